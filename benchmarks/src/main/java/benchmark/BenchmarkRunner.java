@@ -0,0 +1,67 @@
+package benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Punto de entrada de benchmarks.jar.
+ * Acepta las mismas opciones que el runner estándar de JMH (filtro de
+ * benchmarks, -p, -f, -wi, -i, -rf ...) y añade siempre el GCProfiler, de
+ * modo que cada resultado incluye la tasa de asignación (gc.alloc.rate y
+ * gc.alloc.rate.norm) junto al throughput.
+ *
+ * Uso: java -jar benchmarks/target/benchmarks.jar [opciones JMH]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        CommandLineOptions cmdOptions;
+        try {
+            cmdOptions = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("[Benchmark Error] " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (cmdOptions.shouldHelp()) {
+            try {
+                cmdOptions.showHelp();
+            } catch (IOException e) {
+                System.err.println("[Benchmark Error] " + e.getMessage());
+            }
+            return;
+        }
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmdOptions);
+        if (!hasGcProfiler(cmdOptions)) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        Runner runner = new Runner(builder.build());
+
+        if (cmdOptions.shouldList()) {
+            runner.list();
+        } else {
+            runner.run();
+        }
+    }
+
+    // Evita añadirlo dos veces si ya se pasó "-prof gc"
+    private static boolean hasGcProfiler(Options options) {
+        for (ProfilerConfig profiler : options.getProfilers()) {
+            if ("gc".equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import harmonization.CachingHarmonizer;
+import harmonization.FastRuleBasedHarmonizer;
+import harmonization.HarmonizationRules;
+import harmonization.IHarmonizer;
+import harmonization.RuleBasedHarmonizer;
+import harmonization.RuleEngineHarmonizer;
+import model.HarmonizedData;
+import model.RawDataRecord;
+
+/**
+ * Etapa de armonización: limpieza y categorización de registros ya cargados
+ * en memoria, con cada implementación de IHarmonizer (las "cached-" con una
+ * CachingHarmonizer delante).
+ *
+ * Antes de medir, cada implementación se compara con RuleBasedHarmonizer
+ * (valor y categoría) sobre los datos generados y sobre valores límite
+ * (exponentes, sufijos, NaN/Infinity, hexadecimales...): una implementación
+ * que no es equivalente no se mide.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HarmonizationBenchmark {
+
+    // Valores que la pasada única de los harmonizadores rápidos no resuelve por sí sola
+    static final List<String> EDGE_VALUES = Arrays.asList("1e3", "2.5E-2", "12f", "3d", "NaN", "Infinity",
+            "-Infinity", "0x1p3", "1E\u20acUR", "E$UR 5", "1\u00012", " 1,5 ", "1 000,50 EUR", "1-2", "--1",
+            "+.5", ".", "5.", "1.2.3", "12345678901234567890.5", "abc 12.5 def", "N a N", "Inf", "1e", "e5",
+            "1.5e+3 EUR", "$-3.2e2", "\t7\t");
+
+    @Param({ "10000", "100000", "1000000" })
+    public int rows;
+
+    @Param({ "30:30:25:15" })
+    public String ratios;
+
+    @Param({ "regex", "fast", "rules", "cached-regex", "cached-rules" })
+    public String harmonizer;
+
+    private List<RawDataRecord> records;
+    private IHarmonizer impl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = SyntheticDataGenerator.fromSpec(ratios).records(rows);
+        impl = create(harmonizer);
+        verifyAgainstBaseline(impl, records);
+    }
+
+    @Benchmark
+    public void harmonize(Blackhole bh, RecordCounter counter) {
+        for (RawDataRecord record : records) {
+            bh.consume(impl.harmonize(record));
+        }
+        counter.records += records.size();
+    }
+
+    /**
+     * Comprueba que impl da el mismo valor y categoría que RuleBasedHarmonizer
+     * para los registros dados y para EDGE_VALUES con cada tipo de fuente.
+     *
+     * @throws IllegalStateException En la primera diferencia.
+     */
+    static void verifyAgainstBaseline(IHarmonizer impl, List<RawDataRecord> records) {
+        List<RawDataRecord> inputs = new ArrayList<>(records);
+        for (String value : EDGE_VALUES) {
+            for (String sourceId : new String[] { "CRM_Sales_North", "IoT_Sensor_Temp_01", "ERP_Log_System" }) {
+                inputs.add(new RawDataRecord(sourceId, value));
+            }
+        }
+        IHarmonizer baseline = new RuleBasedHarmonizer();
+        for (RawDataRecord record : inputs) {
+            HarmonizedData expected = baseline.harmonize(record);
+            HarmonizedData actual = impl.harmonize(record);
+            if (Double.compare(expected.getValue(), actual.getValue()) != 0
+                    || !expected.getCategory().equals(actual.getCategory())) {
+                throw new IllegalStateException("Harmonizer differs from RuleBasedHarmonizer for '"
+                        + record.getRawContent() + "' (" + record.getSourceId() + "): " + actual.getValue() + " / "
+                        + actual.getCategory() + " instead of " + expected.getValue() + " / "
+                        + expected.getCategory());
+            }
+        }
+    }
+
+    static IHarmonizer create(String name) {
+        switch (name) {
+            case "regex":
+                return new RuleBasedHarmonizer();
+            case "fast":
+                return new FastRuleBasedHarmonizer();
+            case "rules":
+                return new RuleEngineHarmonizer(HarmonizationRules.defaults());
+            case "cached-regex":
+                return new CachingHarmonizer(new RuleBasedHarmonizer());
+            case "cached-rules":
+                return new CachingHarmonizer(new RuleEngineHarmonizer(HarmonizationRules.defaults()));
+            default:
+                throw new IllegalArgumentException("Unknown harmonizer: " + name);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ingestion.CsvDataLoader;
+import ingestion.MappedCsvDataLoader;
+import model.RecordStore;
+
+/**
+ * Etapa de ingesta: lectura de un CSV sintético con cada cargador secuencial.
+ * La escalabilidad de ParallelCsvDataLoader se mide en IngestionScalingBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int rows;
+
+    @Param({ "30:30:25:15" })
+    public String ratios;
+
+    private Path input;
+    private CsvDataLoader csvLoader;
+    private MappedCsvDataLoader mappedLoader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = SyntheticDataGenerator.fromSpec(ratios)
+                .writeCsv(Files.createTempFile("hpi_bench_ingestion", ".csv"), rows);
+        csvLoader = new CsvDataLoader();
+        mappedLoader = new MappedCsvDataLoader();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(input);
+    }
+
+    @Benchmark
+    public void csvLoader(Blackhole bh, RecordCounter counter) throws IOException {
+        counter.records += csvLoader.streamData(input.toString(), bh::consume);
+    }
+
+    @Benchmark
+    public void mappedLoader(Blackhole bh, RecordCounter counter) throws IOException {
+        counter.records += mappedLoader.streamData(input.toString(), bh::consume);
+    }
+
+    @Benchmark
+    public RecordStore mappedLoaderIntoStore(RecordCounter counter) throws IOException {
+        RecordStore store = new RecordStore();
+        counter.records += mappedLoader.loadInto(input.toString(), store);
+        return store;
+    }
+}
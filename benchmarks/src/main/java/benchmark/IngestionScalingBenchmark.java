@@ -0,0 +1,69 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ingestion.ParallelCsvDataLoader;
+
+/**
+ * Escalabilidad de la ingesta paralela: ParallelCsvDataLoader con 1, 2, 4 y
+ * 8 hilos sobre el mismo CSV sintético (0 = un hilo por núcleo, p. ej.
+ * -p parallelism=0). La referencia secuencial es
+ * IngestionBenchmark.mappedLoader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionScalingBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int rows;
+
+    @Param({ "30:30:25:15" })
+    public String ratios;
+
+    @Param({ "1", "2", "4", "8" })
+    public int parallelism;
+
+    private Path input;
+    private ParallelCsvDataLoader parallelLoader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = SyntheticDataGenerator.fromSpec(ratios)
+                .writeCsv(Files.createTempFile("hpi_bench_scaling", ".csv"), rows);
+        parallelLoader = parallelism > 0
+                ? new ParallelCsvDataLoader(parallelism, ParallelCsvDataLoader.DEFAULT_CHUNK_BYTES)
+                : new ParallelCsvDataLoader();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(input);
+    }
+
+    @Benchmark
+    public void parallelLoader(Blackhole bh, RecordCounter counter) throws IOException {
+        counter.records += parallelLoader.streamData(input.toString(), bh::consume);
+    }
+}
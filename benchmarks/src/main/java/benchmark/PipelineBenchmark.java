@@ -0,0 +1,104 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import analytics.SalesForecaster;
+import harmonization.HarmonizationRules;
+import harmonization.RuleEngineHarmonizer;
+import ingestion.MappedCsvDataLoader;
+import pipeline.AnalysisPipeline;
+import pipeline.PipelineOptions;
+import reporting.IReportWriter;
+import reporting.ReportExporter;
+import reporting.ReportFormat;
+
+/**
+ * Pipeline completo sobre un CSV sintético con los mismos componentes que
+ * Main: MappedCsvDataLoader -> RuleEngineHarmonizer -> SalesForecaster.
+ *
+ * - analyze: lectura en streaming, armonización y predicción.
+ * - analyzeAndReport: además escribe el reporte de texto en streaming a
+ *   medida que el pipeline produce los resultados.
+ *
+ * workers = 0 usa un hilo por núcleo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int QUEUED_BATCHES_PER_WORKER = 4;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int rows;
+
+    @Param({ "30:30:25:15" })
+    public String ratios;
+
+    @Param({ "0" })
+    public int workers;
+
+    private Path input;
+    private Path report;
+    private MappedCsvDataLoader loader;
+    private AnalysisPipeline pipeline;
+    private ReportExporter exporter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = SyntheticDataGenerator.fromSpec(ratios)
+                .writeCsv(Files.createTempFile("hpi_bench_pipeline", ".csv"), rows);
+        report = Files.createTempFile("hpi_bench_pipeline_report", ".txt");
+
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        // Modo producción sin salida de progreso: solo se mide el trabajo del pipeline
+        PipelineOptions options = new PipelineOptions(threads, BATCH_SIZE, threads * QUEUED_BATCHES_PER_WORKER,
+                true, 0, 0);
+        loader = new MappedCsvDataLoader();
+        pipeline = new AnalysisPipeline(new RuleEngineHarmonizer(HarmonizationRules.defaults()),
+                new SalesForecaster(), options);
+        exporter = new ReportExporter();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(report);
+    }
+
+    @Benchmark
+    public void analyze(Blackhole bh, RecordCounter counter) throws IOException {
+        counter.records += pipeline.run(loader, input.toString(), (record, prediction) -> bh.consume(prediction))
+                .getRecordsProcessed();
+    }
+
+    @Benchmark
+    public void analyzeAndReport(RecordCounter counter) throws IOException {
+        try (IReportWriter writer = exporter.open(report, ReportFormat.TEXT)) {
+            pipeline.run(loader, input.toString(), writer.asSink());
+            counter.records += writer.getRecordsWritten();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import analytics.IPredictiveModel;
+import analytics.SalesForecaster;
+import analytics.TimeSeriesForecaster;
+import harmonization.FastRuleBasedHarmonizer;
+import harmonization.IHarmonizer;
+import model.HarmonizedBatch;
+import model.HarmonizedData;
+import model.LabelDictionary;
+import model.PredictionBatch;
+import model.RawDataRecord;
+
+/**
+ * Etapa de predicción sobre datos ya armonizados: predict() registro a
+ * registro frente a predictBatch() sobre lotes columnares, con el modelo de
+ * crecimiento y con el de series temporales (este conserva el estado de las
+ * series entre invocaciones, como en una ejecución continua).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PredictionBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int rows;
+
+    @Param({ "30:30:25:15" })
+    public String ratios;
+
+    @Param({ "growth", "timeseries" })
+    public String model;
+
+    private IPredictiveModel engine;
+    private List<HarmonizedData> harmonized;
+    private List<HarmonizedBatch> batches;
+    private PredictionBatch out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = "timeseries".equals(model) ? new TimeSeriesForecaster() : new SalesForecaster();
+        IHarmonizer harmonizer = new FastRuleBasedHarmonizer();
+        LabelDictionary categories = new LabelDictionary();
+        LabelDictionary sources = new LabelDictionary(); // Compartido: las series se identifican por su id
+        harmonized = new ArrayList<>(rows);
+        batches = new ArrayList<>();
+
+        HarmonizedBatch batch = new HarmonizedBatch(BATCH_SIZE, categories, sources);
+        for (RawDataRecord record : SyntheticDataGenerator.fromSpec(ratios).records(rows)) {
+            HarmonizedData data = harmonizer.harmonize(record).withOrigin(record);
+            harmonized.add(data);
+            if (!batch.add(data)) {
+                batches.add(batch);
+                batch = new HarmonizedBatch(BATCH_SIZE, categories, sources);
+                batch.add(data);
+            }
+        }
+        if (batch.size() > 0) {
+            batches.add(batch);
+        }
+        out = new PredictionBatch(BATCH_SIZE);
+    }
+
+    @Benchmark
+    public void predictPerRecord(Blackhole bh, RecordCounter counter) {
+        for (HarmonizedData data : harmonized) {
+            bh.consume(engine.predict(data));
+        }
+        counter.records += harmonized.size();
+    }
+
+    @Benchmark
+    public void predictBatch(Blackhole bh, RecordCounter counter) {
+        for (HarmonizedBatch batch : batches) {
+            engine.predictBatch(batch, out);
+            bh.consume(out.getPredictedValues());
+            bh.consume(out.getConfidences());
+            counter.records += out.size();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Contador auxiliar de JMH: además de las operaciones (pasadas completas sobre
+ * el conjunto de datos) se informa el throughput en registros por segundo,
+ * comparable entre tamaños de datos distintos.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class RecordCounter {
+
+    public long records;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        records = 0;
+    }
+}
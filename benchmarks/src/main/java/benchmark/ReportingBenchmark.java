@@ -0,0 +1,86 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import analytics.IPredictiveModel;
+import analytics.SalesForecaster;
+import harmonization.FastRuleBasedHarmonizer;
+import harmonization.IHarmonizer;
+import model.PredictionResult;
+import model.RawDataRecord;
+import reporting.IReportWriter;
+import reporting.ReportExporter;
+import reporting.ReportFormat;
+
+/**
+ * Etapa de reporte: escritura a disco de resultados ya calculados, en cada
+ * formato de salida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportingBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int rows;
+
+    @Param({ "30:30:25:15" })
+    public String ratios;
+
+    @Param({ "TEXT", "CSV", "BINARY" })
+    public ReportFormat format;
+
+    private final ReportExporter exporter = new ReportExporter();
+    private List<RawDataRecord> records;
+    private List<PredictionResult> predictions;
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        IHarmonizer harmonizer = new FastRuleBasedHarmonizer();
+        IPredictiveModel model = new SalesForecaster();
+        records = SyntheticDataGenerator.fromSpec(ratios).records(rows);
+        predictions = new ArrayList<>(rows);
+        for (RawDataRecord record : records) {
+            predictions.add(model.predict(harmonizer.harmonize(record)));
+        }
+        output = Files.createTempFile("hpi_bench_report", ".txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void export(RecordCounter counter) throws IOException {
+        try (IReportWriter writer = exporter.open(output, format)) {
+            for (int i = 0; i < records.size(); i++) {
+                writer.write(records.get(i), predictions.get(i));
+            }
+        }
+        counter.records += predictions.size();
+    }
+}
@@ -0,0 +1,188 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import model.EventTime;
+import model.RawDataRecord;
+
+/**
+ * Generador de datos sintéticos con el formato de mock_data.csv
+ * (source_id,timestamp,raw_value).
+ *
+ * Mezcla cuatro tipos de valor en proporciones configurables:
+ * - Limpios: "1200.50"
+ * - Con moneda: "€ 3400.00", "$ 5000.99", "2100.00 EUR", "5100 USD"
+ * - Con unidad: "45.2 C", "10 Hz", "1013 hPa"
+ * - Ilegibles: "SYSTEM_OK", "NULL", "CONNECTION_LOST", ...
+ *
+ * Con la misma semilla siempre genera los mismos datos, de modo que las
+ * mediciones son comparables entre ejecuciones.
+ */
+public final class SyntheticDataGenerator {
+
+    public static final String HEADER = "source_id,timestamp,raw_value";
+    public static final long DEFAULT_SEED = 42L;
+
+    private static final String[] SALES_SOURCES = { "CRM_Sales_North", "CRM_Sales_South", "CRM_Sales_East",
+            "CRM_Sales_West" };
+    private static final String[] SENSOR_SOURCES = { "IoT_Sensor_Temp_01", "IoT_Sensor_Vib_02",
+            "IoT_Sensor_Pres_03" };
+    private static final String[] SENSOR_UNITS = { " C", " Hz", " hPa" };
+    private static final String[] LOG_SOURCES = { "ERP_Log_System", "IoT_Sensor_Err" };
+    private static final String[] GARBAGE_VALUES = { "SYSTEM_OK", "NULL", "CONNECTION_LOST", "WARN_LATENCY" };
+    private static final String[] CURRENCY_PREFIXES = { "€ ", "$ " };
+    private static final String[] CURRENCY_SUFFIXES = { " EUR", " USD" };
+
+    // Umbrales acumulados sobre [0, 1) para elegir el tipo de valor
+    private final double cleanLimit;
+    private final double currencyLimit;
+    private final double unitLimit;
+    private final long seed;
+
+    /**
+     * Las proporciones son pesos relativos; no necesitan sumar 1.
+     */
+    public SyntheticDataGenerator(double cleanRatio, double currencyRatio, double unitRatio, double garbageRatio,
+            long seed) {
+        double total = cleanRatio + currencyRatio + unitRatio + garbageRatio;
+        if (cleanRatio < 0 || currencyRatio < 0 || unitRatio < 0 || garbageRatio < 0 || total <= 0) {
+            throw new IllegalArgumentException("Ratios must be non-negative and not all zero");
+        }
+        this.cleanLimit = cleanRatio / total;
+        this.currencyLimit = (cleanRatio + currencyRatio) / total;
+        this.unitLimit = (cleanRatio + currencyRatio + unitRatio) / total;
+        this.seed = seed;
+    }
+
+    /**
+     * Proporciones aproximadas de mock_data.csv.
+     */
+    public static SyntheticDataGenerator mockLike() {
+        return new SyntheticDataGenerator(0.30, 0.30, 0.25, 0.15, DEFAULT_SEED);
+    }
+
+    /**
+     * Crea un generador a partir de "limpios:moneda:unidad:ilegibles",
+     * p. ej. "30:30:25:15" (formato pensado para parámetros de JMH).
+     */
+    public static SyntheticDataGenerator fromSpec(String spec) {
+        String[] parts = spec.split(":");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid ratio spec '" + spec + "': expected clean:currency:unit:garbage");
+        }
+        return new SyntheticDataGenerator(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                Double.parseDouble(parts[2]), Double.parseDouble(parts[3]), DEFAULT_SEED);
+    }
+
+    /**
+     * Registros en memoria (sin pasar por disco).
+     */
+    public List<RawDataRecord> records(int rows) {
+        List<RawDataRecord> records = new ArrayList<>(rows);
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder value = new StringBuilder(32);
+        for (int i = 0; i < rows; i++) {
+            String source = nextRow(random, value);
+            records.add(new RawDataRecord(source, value.toString(), eventTime(i)));
+        }
+        return records;
+    }
+
+    /**
+     * Escribe un CSV con cabecera y 'rows' filas.
+     */
+    public Path writeCsv(Path file, int rows) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder value = new StringBuilder(32);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (int i = 0; i < rows; i++) {
+                String source = nextRow(random, value);
+                writer.write(source);
+                writer.write(',');
+                appendTimestamp(writer, i);
+                writer.write(',');
+                writer.append(value);
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    // Rellena 'value' con el valor crudo y devuelve el sourceId de la fila
+    private String nextRow(SplittableRandom random, StringBuilder value) {
+        value.setLength(0);
+        double kind = random.nextDouble();
+
+        if (kind < cleanLimit) {
+            appendAmount(value, random);
+            return pick(SALES_SOURCES, random);
+        }
+        if (kind < currencyLimit) {
+            if (random.nextBoolean()) {
+                value.append(pick(CURRENCY_PREFIXES, random));
+                appendAmount(value, random);
+            } else {
+                appendAmount(value, random);
+                value.append(pick(CURRENCY_SUFFIXES, random));
+            }
+            return pick(SALES_SOURCES, random);
+        }
+        if (kind < unitLimit) {
+            int sensor = random.nextInt(SENSOR_SOURCES.length);
+            value.append(random.nextInt(2000) / 10.0).append(SENSOR_UNITS[sensor]);
+            return SENSOR_SOURCES[sensor];
+        }
+        value.append(pick(GARBAGE_VALUES, random));
+        return pick(LOG_SOURCES, random);
+    }
+
+    // Importe con dos decimales entre 0.00 y 9999.99
+    private static void appendAmount(StringBuilder value, SplittableRandom random) {
+        int cents = random.nextInt(1_000_000);
+        value.append(cents / 100).append('.');
+        int fraction = cents % 100;
+        if (fraction < 10) {
+            value.append('0');
+        }
+        value.append(fraction);
+    }
+
+    // Una lectura cada 5 minutos a partir del 2024-03-01T08:00:00 (sin pasar por java.time)
+    // Mismo instante que appendTimestamp() escribe para la fila, en epoch ms
+    private static long eventTime(int row) {
+        int minutes = 8 * 60 + row % (16 * 60 / 5) * 5;
+        int day = 1 + row / (16 * 60 / 5) % 28;
+        return EventTime.fromLocalDateTime(LocalDateTime.of(2024, 3, day, minutes / 60, minutes % 60));
+    }
+
+    private static void appendTimestamp(BufferedWriter writer, int row) throws IOException {
+        int minutes = 8 * 60 + row % (16 * 60 / 5) * 5;
+        int day = 1 + row / (16 * 60 / 5) % 28;
+        writer.write("2024-03-");
+        writeTwoDigits(writer, day);
+        writer.write('T');
+        writeTwoDigits(writer, minutes / 60);
+        writer.write(':');
+        writeTwoDigits(writer, minutes % 60);
+        writer.write(":00");
+    }
+
+    private static void writeTwoDigits(BufferedWriter writer, int n) throws IOException {
+        writer.write('0' + n / 10);
+        writer.write('0' + n % 10);
+    }
+
+    private static String pick(String[] options, SplittableRandom random) {
+        return options[random.nextInt(options.length)];
+    }
+}
@@ -0,0 +1,178 @@
+package analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.LabelDictionary;
+import model.RecordStore;
+
+/**
+ * Agregación de los resultados del análisis por categoría o por fuente:
+ * cuenta, suma, mínimo, máximo, media, varianza y cuantiles aproximados del
+ * valor armonizado y del valor proyectado (p. ej. "total proyectado de
+ * Sales_Revenue por fuente") sin exportar el reporte.
+ *
+ * Recorre directamente las columnas del RecordStore, solo las filas
+ * analizadas. Las filas se reparten en tramos contiguos, uno por hilo; cada
+ * hilo acumula en sus propios SummaryStatistics (un array indexado por id de
+ * grupo, sin mapas ni sincronización) y al final los parciales se combinan en
+ * el orden de los tramos, de modo que el resultado no depende de qué hilo
+ * termine antes. Así el coste escala con los núcleos.
+ *
+ * Los resultados no deben cambiar durante la agregación (no se puede
+ * agregar mientras el pipeline escribe en el mismo almacén).
+ */
+public class AggregationEngine {
+
+    /** Por debajo de este tamaño de tramo no compensa añadir otro hilo. */
+    static final int MIN_SLICE_ROWS = 1 << 16;
+
+    private final int parallelism;
+
+    public AggregationEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism Hilos máximos por agregación.
+     */
+    public AggregationEngine(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public AggregationResult aggregate(RecordStore store, GroupBy groupBy) {
+        long start = System.nanoTime();
+        int rows = store.size();
+        int slices = (int) Math.max(1, Math.min(parallelism, ((long) rows + MIN_SLICE_ROWS - 1) / MIN_SLICE_ROWS));
+
+        Partial[] partials = new Partial[slices];
+        if (slices == 1) {
+            partials[0] = scan(store, groupBy, 0, rows);
+        } else {
+            ExecutorService workers = Executors.newFixedThreadPool(slices, daemonThreads("hpi-aggregation-worker-"));
+            List<Future<Partial>> pending = new ArrayList<>(slices);
+            try {
+                for (int slice = 0; slice < slices; slice++) {
+                    int from = (int) ((long) rows * slice / slices);
+                    int to = (int) ((long) rows * (slice + 1) / slices);
+                    pending.add(workers.submit(() -> scan(store, groupBy, from, to)));
+                }
+                for (int slice = 0; slice < slices; slice++) {
+                    partials[slice] = pending.get(slice).get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Aggregation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Aggregation worker failed: " + e.getCause(), e.getCause());
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+
+        Partial merged = partials[0];
+        for (int slice = 1; slice < slices; slice++) {
+            merged.merge(partials[slice]);
+        }
+        return toResult(merged, groupBy == GroupBy.CATEGORY ? store.getCategories() : store.getSourceIds(), groupBy,
+                rows, System.nanoTime() - start);
+    }
+
+    private static Partial scan(RecordStore store, GroupBy groupBy, int from, int to) {
+        Partial partial = new Partial();
+        boolean byCategory = groupBy == GroupBy.CATEGORY;
+        for (int row = from; row < to; row++) {
+            if (store.isAnalyzed(row)) {
+                int group = byCategory ? store.getCategoryId(row) : store.getSourceIdCode(row);
+                partial.add(group, store.getHarmonizedValue(row), store.getPredictedValue(row));
+            }
+        }
+        return partial;
+    }
+
+    private static AggregationResult toResult(Partial merged, LabelDictionary labels, GroupBy groupBy, int rows,
+            long elapsedNanos) {
+        List<AggregationResult.Group> groups = new ArrayList<>();
+        SummaryStatistics totalValue = new SummaryStatistics();
+        SummaryStatistics totalProjected = new SummaryStatistics();
+        for (int id = 0; id < merged.projected.length; id++) {
+            if (merged.projected[id] != null) {
+                groups.add(new AggregationResult.Group(labels.label(id), merged.values[id], merged.projected[id]));
+                totalValue.merge(merged.values[id]);
+                totalProjected.merge(merged.projected[id]);
+            }
+        }
+        groups.sort(Comparator.comparing(AggregationResult.Group::getName));
+        return new AggregationResult(groupBy, groups,
+                new AggregationResult.Group("TOTAL", totalValue, totalProjected), rows, elapsedNanos);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Acumuladores de un hilo, indexados por id de grupo (null = grupo sin
+     * filas en el tramo).
+     */
+    private static final class Partial {
+        private SummaryStatistics[] values = new SummaryStatistics[16];
+        private SummaryStatistics[] projected = new SummaryStatistics[16];
+
+        void add(int group, double value, double projectedValue) {
+            if (group >= projected.length) {
+                grow(group + 1);
+            }
+            if (projected[group] == null) {
+                values[group] = new SummaryStatistics();
+                projected[group] = new SummaryStatistics();
+            }
+            values[group].add(value);
+            projected[group].add(projectedValue);
+        }
+
+        void merge(Partial other) {
+            if (other.projected.length > projected.length) {
+                grow(other.projected.length);
+            }
+            for (int group = 0; group < other.projected.length; group++) {
+                if (other.projected[group] == null) {
+                    continue;
+                }
+                if (projected[group] == null) {
+                    values[group] = other.values[group];
+                    projected[group] = other.projected[group];
+                } else {
+                    values[group].merge(other.values[group]);
+                    projected[group].merge(other.projected[group]);
+                }
+            }
+        }
+
+        private void grow(int minLength) {
+            int length = Math.max(minLength, projected.length * 2);
+            values = Arrays.copyOf(values, length);
+            projected = Arrays.copyOf(projected, length);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package analytics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de una agregación: estadísticos del valor armonizado y del valor
+ * proyectado por grupo, más el total de todas las filas analizadas.
+ *
+ * Los grupos se ordenan por nombre. toString() da la tabla para consola (la
+ * misma que usa el reporte de texto).
+ */
+public class AggregationResult {
+
+    /** Cuantiles que se muestran en tablas y reportes. */
+    public static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+
+    private final GroupBy groupBy;
+    private final List<Group> groups;
+    private final Group total;
+    private final long rowsScanned;
+    private final long elapsedNanos;
+
+    public AggregationResult(GroupBy groupBy, List<Group> groups, Group total, long rowsScanned, long elapsedNanos) {
+        this.groupBy = groupBy;
+        this.groups = Collections.unmodifiableList(groups);
+        this.total = total;
+        this.rowsScanned = rowsScanned;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public GroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Todas las filas analizadas juntas (nombre "TOTAL").
+     */
+    public Group getTotal() {
+        return total;
+    }
+
+    /** Filas recorridas, analizadas o no. */
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("Aggregation by %s: %d groups, %d analyzed of %d rows (%.1f ms)%n",
+                groupBy.getLabel(), groups.size(), total.getProjected().getCount(), rowsScanned,
+                elapsedNanos / 1e6));
+        appendMeasure(table, "Projected value", true);
+        appendMeasure(table, "Harmonized value", false);
+        return table.toString();
+    }
+
+    private void appendMeasure(StringBuilder table, String title, boolean projected) {
+        int width = total.getName().length();
+        for (Group group : groups) {
+            width = Math.max(width, group.getName().length());
+        }
+        String row = "%-" + Math.max(width, 16) + "s %10s %16s %12s %12s %12s %12s %12s %12s %12s%n";
+        table.append(System.lineSeparator()).append(title).append(':').append(System.lineSeparator());
+        table.append(String.format(row, groupBy.getLabel(), "count", "sum", "mean", "std dev", "min", "p50", "p90",
+                "p99", "max"));
+        for (Group group : groups) {
+            appendRow(table, row, group.getName(), projected ? group.getProjected() : group.getValue());
+        }
+        appendRow(table, row, total.getName(), projected ? total.getProjected() : total.getValue());
+    }
+
+    private static void appendRow(StringBuilder table, String row, String name, SummaryStatistics stats) {
+        table.append(String.format(row, name, stats.getCount(), number(stats.getSum()), number(stats.getMean()),
+                number(stats.getStandardDeviation()), number(stats.getMin()), number(stats.getQuantile(QUANTILES[0])),
+                number(stats.getQuantile(QUANTILES[1])), number(stats.getQuantile(QUANTILES[2])),
+                number(stats.getMax())));
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.2f", value);
+    }
+
+    /**
+     * Estadísticos de un grupo.
+     */
+    public static final class Group {
+        private final String name;
+        private final SummaryStatistics value;
+        private final SummaryStatistics projected;
+
+        public Group(String name, SummaryStatistics value, SummaryStatistics projected) {
+            this.name = name;
+            this.value = value;
+            this.projected = projected;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Valor armonizado (actual) de las filas del grupo. */
+        public SummaryStatistics getValue() {
+            return value;
+        }
+
+        /** Valor proyectado por el modelo para las filas del grupo. */
+        public SummaryStatistics getProjected() {
+            return projected;
+        }
+    }
+}
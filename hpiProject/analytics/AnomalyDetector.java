@@ -0,0 +1,344 @@
+package analytics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import model.HarmonizedBatch;
+import model.HarmonizedData;
+import model.LabelDictionary;
+import model.PredictionBatch;
+import model.PredictionResult;
+
+/**
+ * Detección de anomalías para métricas de sensores (Operational_Metric): por
+ * cada fuente (sourceId) guarda las últimas WINDOW lecturas en un buffer
+ * circular y compara cada lectura nueva con la media y la desviación típica
+ * de esa ventana (z-score).
+ *
+ * Por cada registro:
+ * 1. z = (valor - media) / desviación de la ventana previa; con al menos
+ *    MIN_POINTS lecturas, |z| >= threshold es una anomalía.
+ * 2. La lectura entra en la ventana (sustituye a la más antigua si está
+ *    llena) y media y varianza se actualizan en O(1), sin recorrer el buffer.
+ * 3. La predicción es la media de la ventana: el valor esperado de la
+ *    siguiente lectura.
+ *
+ * La confianza mide lo normal que es la lectura: (n / (n + 1)) / (1 +
+ * (z / threshold)^2), donde n son las lecturas de la ventana: una anomalía
+ * queda siempre por debajo de 0,5. getAnomalyCount() da el total marcado.
+ *
+ * Todo el estado está en arrays primitivos indexados por la posición de la
+ * serie (el buffer de todas las series es un solo double[]), así que procesar
+ * un punto no crea objetos. La memoria está acotada: como mucho maxSeries
+ * series de WINDOW lecturas. Con más sensores se descarta la serie usada hace
+ * más tiempo y su hueco pasa a la nueva (lista LRU enlazada por posiciones).
+ *
+ * Cada serie se localiza por el id de fuente del lote en su diccionario
+ * (HarmonizedBatch.getSources()), sin comparar textos. Un lote con otro
+ * diccionario (otra ejecución) empieza de cero, pues sus ids no corresponden.
+ *
+ * Es un modelo con estado (isStateful): el pipeline le entrega los registros
+ * en el orden de la fuente, desde un solo hilo.
+ */
+public class AnomalyDetector implements IPredictiveModel {
+
+    public static final String MODEL_NAME = "Rolling_ZScore_Anomaly_v1";
+    /** Categoría de las métricas de sensores (ver HarmonizationRules). */
+    public static final String SENSOR_CATEGORY = "Operational_Metric";
+
+    public static final int DEFAULT_WINDOW = 32;
+    public static final double DEFAULT_THRESHOLD = 3.0;
+    public static final int DEFAULT_MAX_SERIES = 65_536;
+    public static final Set<String> DEFAULT_PLACEHOLDER_CATEGORIES = Collections
+            .unmodifiableSet(new HashSet<>(Arrays.asList("Missing_Value", "Unreadable_Data")));
+
+    /** Lecturas mínimas en la ventana para poder marcar una anomalía. */
+    static final int MIN_POINTS = 3;
+    private static final int INITIAL_SERIES = 64;
+    private static final int NONE = -1;
+
+    private final int window;
+    private final double threshold;
+    private final int maxSeries;
+    private final Set<String> placeholderCategories;
+
+    // Diccionario de los ids de fuente; slotOf[id + 1] = posición + 1 de su serie (0 = sin serie)
+    private LabelDictionary sources;
+    private int[] slotOf = new int[0];
+    private int seriesCount = 0;
+    // Por posición: clave en slotOf y lista en orden de uso (eldest = usada hace más tiempo)
+    private int[] keyOf;
+    private int[] older;
+    private int[] newer;
+    private int eldest = NONE;
+    private int newest = NONE;
+    private double[] ring; // Ventana de la serie s en [s * window, (s + 1) * window)
+    private int[] head; // Próxima posición a escribir de cada ventana
+    private int[] filled; // Lecturas en la ventana (hasta window)
+    private double[] mean;
+    private double[] m2; // Suma de cuadrados de las desviaciones a la media
+
+    private long points = 0;
+    private long anomalies = 0;
+    private long evictions = 0;
+
+    public AnomalyDetector() {
+        this(DEFAULT_WINDOW, DEFAULT_THRESHOLD, DEFAULT_MAX_SERIES, DEFAULT_PLACEHOLDER_CATEGORIES);
+    }
+
+    /**
+     * @param window                Lecturas por serie en la ventana móvil.
+     * @param threshold             |z| a partir del cual una lectura es anómala.
+     * @param maxSeries             Series con ventana propia como máximo.
+     * @param placeholderCategories Categorías cuyo valor es un relleno y no una medida.
+     */
+    public AnomalyDetector(int window, double threshold, int maxSeries, Set<String> placeholderCategories) {
+        if (window < MIN_POINTS) {
+            throw new IllegalArgumentException("Window must hold at least " + MIN_POINTS + " values");
+        }
+        if (!(threshold > 0)) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        if (maxSeries < 1 || (long) maxSeries * window > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid series limit: " + maxSeries);
+        }
+        this.window = window;
+        this.threshold = threshold;
+        this.maxSeries = maxSeries;
+        this.placeholderCategories = placeholderCategories;
+        allocate(Math.min(INITIAL_SERIES, maxSeries));
+    }
+
+    @Override
+    public synchronized PredictionResult predict(HarmonizedData data) {
+        if (!data.isValid()) {
+            return new PredictionResult("Unknown", 0.0, 0.0, "Error: Invalid Data");
+        }
+        int slot = slotFor(sourceId(data.getSourceId()));
+        double confidence = placeholderCategories.contains(data.getCategory()) ? 0.0 : observe(slot, data.getValue());
+        return new PredictionResult(PredictionResult.targetOf(data.getCategory()), mean[slot], confidence, MODEL_NAME);
+    }
+
+    @Override
+    public synchronized void predictBatch(HarmonizedBatch batch, PredictionBatch out) {
+        int n = batch.size();
+        double[] values = batch.getValues();
+        int[] categoryIds = batch.getCategoryIds();
+        int[] sourceIds = batch.getSourceIds();
+        double[] predicted = out.getPredictedValues();
+        double[] confidences = out.getConfidences();
+
+        // Una consulta al Set por categoría y lote, no por registro
+        LabelDictionary categories = batch.getCategories();
+        boolean[] placeholder = new boolean[categories.size()];
+        for (int id = 0; id < placeholder.length; id++) {
+            placeholder[id] = placeholderCategories.contains(categories.label(id));
+        }
+
+        if (batch.getSources() != sources) {
+            clearSeries();
+            sources = batch.getSources();
+        }
+        int slot = NONE;
+        for (int i = 0; i < n; i++) {
+            // Las lecturas de un mismo sensor suelen venir seguidas: se evita buscar la serie
+            if (slot == NONE || keyOf[slot] != sourceIds[i] + 1) {
+                slot = slotFor(sourceIds[i]);
+            }
+            confidences[i] = placeholder[categoryIds[i]] ? 0.0 : observe(slot, values[i]);
+            predicted[i] = mean[slot];
+        }
+
+        out.setModelUsed(MODEL_NAME);
+        out.setSize(n);
+    }
+
+    @Override
+    public boolean isStateful() {
+        return true;
+    }
+
+    @Override
+    public synchronized void reset() {
+        clearSeries();
+        sources = null;
+        points = 0;
+        anomalies = 0;
+        evictions = 0;
+    }
+
+    /** Series con ventana propia en este momento. */
+    public synchronized int getSeriesCount() {
+        return seriesCount;
+    }
+
+    /** Lecturas evaluadas desde el último reset(). */
+    public synchronized long getPointCount() {
+        return points;
+    }
+
+    /** Lecturas marcadas como anómalas desde el último reset(). */
+    public synchronized long getAnomalyCount() {
+        return anomalies;
+    }
+
+    /** Series descartadas por superar maxSeries desde el último reset(). */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("anomalies: %d of %d sensor readings (|z| >= %.1f over the last %d), %d series, %d evicted",
+                anomalies, points, threshold, window, seriesCount, evictions);
+    }
+
+    // Evalúa la lectura contra la ventana, la incorpora y devuelve la confianza
+    private double observe(int slot, double value) {
+        int n = filled[slot];
+        double currentMean = mean[slot];
+        double z = 0.0;
+        if (n >= MIN_POINTS) {
+            double variance = m2[slot] / (n - 1);
+            if (variance > 0) {
+                z = (value - currentMean) / Math.sqrt(variance);
+            }
+        }
+        points++;
+        if (Math.abs(z) >= threshold) {
+            anomalies++;
+        }
+
+        int position = slot * window + head[slot];
+        head[slot] = head[slot] + 1 == window ? 0 : head[slot] + 1;
+        if (n < window) {
+            // Ventana llenándose: Welford
+            ring[position] = value;
+            filled[slot] = ++n;
+            double delta = value - currentMean;
+            mean[slot] = currentMean + delta / n;
+            m2[slot] += delta * (value - mean[slot]);
+        } else {
+            // Ventana llena: sale la lectura más antigua y entra la nueva
+            double oldest = ring[position];
+            ring[position] = value;
+            double newMean = currentMean + (value - oldest) / window;
+            m2[slot] = Math.max(0.0, m2[slot] + (value - oldest) * (value - newMean + oldest - currentMean));
+            mean[slot] = newMean;
+        }
+
+        double scaled = z / threshold;
+        return (n / (n + 1.0)) / (1.0 + scaled * scaled);
+    }
+
+    // Id de una fuente llegada como texto (predict por registro)
+    private int sourceId(String sourceId) {
+        if (sourceId == null) {
+            return HarmonizedBatch.NO_SOURCE;
+        }
+        if (sources == null) {
+            sources = new LabelDictionary();
+        }
+        return sources.intern(sourceId);
+    }
+
+    // Posición de la serie del id de fuente (NO_SOURCE incluido), creándola si es nueva
+    private int slotFor(int sourceId) {
+        int key = sourceId + 1;
+        int slot = key < slotOf.length ? slotOf[key] - 1 : NONE;
+        if (slot != NONE) {
+            if (slot != newest) {
+                unlink(slot);
+                linkNewest(slot);
+            }
+            return slot;
+        }
+        if (seriesCount == maxSeries) {
+            // Se reutiliza el hueco de la serie usada hace más tiempo
+            slot = eldest;
+            unlink(slot);
+            slotOf[keyOf[slot]] = 0;
+            evictions++;
+        } else {
+            slot = seriesCount++;
+            if (slot == filled.length) {
+                grow((int) Math.min(maxSeries, 2L * filled.length));
+            }
+        }
+        head[slot] = 0;
+        filled[slot] = 0;
+        mean[slot] = 0.0;
+        m2[slot] = 0.0;
+        if (key >= slotOf.length) {
+            slotOf = Arrays.copyOf(slotOf, Math.max(key + 1, 2 * slotOf.length));
+        }
+        slotOf[key] = slot + 1;
+        keyOf[slot] = key;
+        linkNewest(slot);
+        return slot;
+    }
+
+    private void unlink(int slot) {
+        if (older[slot] == NONE) {
+            eldest = newer[slot];
+        } else {
+            newer[older[slot]] = newer[slot];
+        }
+        if (newer[slot] == NONE) {
+            newest = older[slot];
+        } else {
+            older[newer[slot]] = older[slot];
+        }
+    }
+
+    private void linkNewest(int slot) {
+        older[slot] = newest;
+        newer[slot] = NONE;
+        if (newest == NONE) {
+            eldest = slot;
+        } else {
+            newer[newest] = slot;
+        }
+        newest = slot;
+    }
+
+    private void clearSeries() {
+        slotOf = new int[0];
+        seriesCount = 0;
+        eldest = NONE;
+        newest = NONE;
+        allocate(Math.min(INITIAL_SERIES, maxSeries));
+    }
+
+    private void allocate(int series) {
+        ring = new double[series * window];
+        head = new int[series];
+        filled = new int[series];
+        mean = new double[series];
+        m2 = new double[series];
+        keyOf = new int[series];
+        older = new int[series];
+        newer = new int[series];
+    }
+
+    private void grow(int series) {
+        ring = Arrays.copyOf(ring, series * window);
+        head = Arrays.copyOf(head, series);
+        filled = Arrays.copyOf(filled, series);
+        mean = Arrays.copyOf(mean, series);
+        m2 = Arrays.copyOf(m2, series);
+        keyOf = Arrays.copyOf(keyOf, series);
+        older = Arrays.copyOf(older, series);
+        newer = Arrays.copyOf(newer, series);
+    }
+}
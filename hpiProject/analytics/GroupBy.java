@@ -0,0 +1,21 @@
+package analytics;
+
+/**
+ * Criterios de agrupación del AggregationEngine.
+ */
+public enum GroupBy {
+    /** Por categoría armonizada (Sales_Revenue, Operational_Metric...). */
+    CATEGORY("category"),
+    /** Por fuente de origen (sourceId). */
+    SOURCE("source");
+
+    private final String label;
+
+    GroupBy(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
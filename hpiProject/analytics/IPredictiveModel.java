@@ -1,6 +1,8 @@
 package analytics;
 
+import model.HarmonizedBatch;
 import model.HarmonizedData;
+import model.PredictionBatch;
 import model.PredictionResult;
 
 /**
@@ -17,4 +19,47 @@ public interface IPredictiveModel {
      * @return Un objeto con el resultado de la predicción y la confianza.
      */
     PredictionResult predict(HarmonizedData data);
-}
\ No newline at end of file
+
+    /**
+     * Predicción por lotes sobre datos columnares.
+     * Escribe valores proyectados y confianzas en los arrays preasignados de
+     * out, posición a posición con el lote de entrada.
+     *
+     * La implementación por defecto adapta cada posición a predict(); los
+     * modelos que buscan throughput deben sobrescribirla con un bucle sobre
+     * arrays primitivos.
+     *
+     * @param batch Lote de datos armonizados válidos.
+     * @param out   Lote de salida con capacidad suficiente.
+     */
+    default void predictBatch(HarmonizedBatch batch, PredictionBatch out) {
+        int n = batch.size();
+        double[] predicted = out.getPredictedValues();
+        double[] confidences = out.getConfidences();
+
+        for (int i = 0; i < n; i++) {
+            PredictionResult result = predict(batch.get(i));
+            predicted[i] = result.getPredictedValue();
+            confidences[i] = result.getConfidenceScore();
+            out.setModelUsed(result.getModelName());
+        }
+        out.setSize(n);
+    }
+
+    /**
+     * Indica si el modelo guarda estado entre registros (p. ej. una serie
+     * temporal por fuente), de modo que el resultado depende del orden en que
+     * se le entregan. Los modelos con estado reciben los lotes desde un solo
+     * hilo y en el orden de la fuente; los que no lo tienen pueden ejecutarse
+     * en paralelo en los workers.
+     */
+    default boolean isStateful() {
+        return false;
+    }
+
+    /**
+     * Descarta el estado acumulado (antes de analizar de nuevo todos los datos).
+     */
+    default void reset() {
+    }
+}
@@ -0,0 +1,170 @@
+package analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import model.HarmonizedBatch;
+import model.HarmonizedData;
+import model.LabelDictionary;
+import model.PredictionBatch;
+import model.PredictionResult;
+
+/**
+ * Modelo compuesto que envía cada categoría armonizada a su propio modelo
+ * (p. ej. Operational_Metric al AnomalyDetector) y el resto a un modelo por
+ * defecto. Una categoría recuperada ("..._Recovered") sigue la ruta de su
+ * categoría base.
+ *
+ * En predictBatch el lote se reparte en un sub-lote por modelo, conservando el
+ * orden de los registros, y los resultados vuelven a su posición original;
+ * el modelo usado se anota por fila (PredictionBatch.setModelUsed(int, ...)).
+ * Si todo el lote va al mismo modelo se le pasa tal cual, sin copias.
+ *
+ * El router tiene estado si lo tiene alguno de sus modelos; en ese caso el
+ * pipeline predice en un solo hilo y en orden, también para los modelos sin
+ * estado.
+ */
+public class ModelRouter implements IPredictiveModel {
+
+    private static final String RECOVERED_SUFFIX = "_Recovered";
+
+    private final Map<String, IPredictiveModel> routes;
+    private final IPredictiveModel fallback;
+    private final List<IPredictiveModel> models;
+    private final boolean stateful;
+
+    /**
+     * @param routes   Modelo por nombre de categoría.
+     * @param fallback Modelo para las categorías sin ruta.
+     */
+    public ModelRouter(Map<String, IPredictiveModel> routes, IPredictiveModel fallback) {
+        this.routes = Collections.unmodifiableMap(new LinkedHashMap<>(routes));
+        this.fallback = fallback;
+
+        // Modelos distintos, cada uno una vez (para reset e isStateful)
+        Set<IPredictiveModel> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<IPredictiveModel> all = new ArrayList<>();
+        for (IPredictiveModel model : this.routes.values()) {
+            if (distinct.add(model)) {
+                all.add(model);
+            }
+        }
+        if (distinct.add(fallback)) {
+            all.add(fallback);
+        }
+        this.models = Collections.unmodifiableList(all);
+        boolean anyStateful = false;
+        for (IPredictiveModel model : models) {
+            anyStateful |= model.isStateful();
+        }
+        this.stateful = anyStateful;
+    }
+
+    /**
+     * Modelo que atiende la categoría indicada.
+     */
+    public IPredictiveModel route(String category) {
+        if (category == null) {
+            return fallback;
+        }
+        IPredictiveModel model = routes.get(category);
+        if (model == null && category.endsWith(RECOVERED_SUFFIX)) {
+            model = routes.get(category.substring(0, category.length() - RECOVERED_SUFFIX.length()));
+        }
+        return model != null ? model : fallback;
+    }
+
+    public Map<String, IPredictiveModel> getRoutes() {
+        return routes;
+    }
+
+    public IPredictiveModel getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Modelos distintos del router (rutas y modelo por defecto), cada uno una vez.
+     */
+    public List<IPredictiveModel> getModels() {
+        return models;
+    }
+
+    @Override
+    public PredictionResult predict(HarmonizedData data) {
+        return route(data.getCategory()).predict(data);
+    }
+
+    @Override
+    public void predictBatch(HarmonizedBatch batch, PredictionBatch out) {
+        int n = batch.size();
+        int[] categoryIds = batch.getCategoryIds();
+
+        // Una resolución de ruta por categoría y lote, no por registro
+        LabelDictionary categories = batch.getCategories();
+        int[] routeOf = new int[categories.size()];
+        for (int id = 0; id < routeOf.length; id++) {
+            routeOf[id] = models.indexOf(route(categories.label(id)));
+        }
+
+        int[] counts = new int[models.size()];
+        for (int i = 0; i < n; i++) {
+            counts[routeOf[categoryIds[i]]]++;
+        }
+        for (int m = 0; m < counts.length; m++) {
+            if (counts[m] == n) {
+                models.get(m).predictBatch(batch, out);
+                return;
+            }
+        }
+
+        double[] values = batch.getValues();
+        int[] sourceIds = batch.getSourceIds();
+        long[] eventTimes = batch.getEventTimes();
+        double[] predicted = out.getPredictedValues();
+        double[] confidences = out.getConfidences();
+        int[] positions = new int[n];
+        out.setModelUsed(getClass().getSimpleName());
+
+        for (int m = 0; m < counts.length; m++) {
+            if (counts[m] == 0) {
+                continue;
+            }
+            HarmonizedBatch part = new HarmonizedBatch(counts[m], categories, batch.getSources(), batch.getConfig());
+            for (int i = 0; i < n; i++) {
+                if (routeOf[categoryIds[i]] == m) {
+                    positions[part.size()] = i;
+                    part.add(values[i], categoryIds[i], sourceIds[i], eventTimes[i]);
+                }
+            }
+            PredictionBatch partOut = new PredictionBatch(counts[m]);
+            models.get(m).predictBatch(part, partOut);
+
+            double[] partPredicted = partOut.getPredictedValues();
+            double[] partConfidences = partOut.getConfidences();
+            for (int k = 0; k < partOut.size(); k++) {
+                int i = positions[k];
+                predicted[i] = partPredicted[k];
+                confidences[i] = partConfidences[k];
+                out.setModelUsed(i, partOut.getModelUsed(k));
+            }
+        }
+        out.setSize(n);
+    }
+
+    @Override
+    public boolean isStateful() {
+        return stateful;
+    }
+
+    @Override
+    public void reset() {
+        for (IPredictiveModel model : models) {
+            model.reset();
+        }
+    }
+}
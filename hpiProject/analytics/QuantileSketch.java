@@ -0,0 +1,160 @@
+package analytics;
+
+/**
+ * Resumen compacto de una distribución para estimar cuantiles con error
+ * relativo acotado, al estilo DDSketch: cada valor cuenta en el bucket
+ * logarítmico de su magnitud (base GAMMA), y el cuantil devuelto está como
+ * máximo a un RELATIVE_ACCURACY (1%) del valor real.
+ *
+ * Los positivos y los negativos tienen buckets separados; las magnitudes por
+ * debajo de MIN_MAGNITUDE cuentan como cero y las que superan MAX_MAGNITUDE
+ * se acotan al último bucket. Solo se reservan los buckets entre el menor y
+ * el mayor usados, así que una serie que abarca cuatro órdenes de magnitud
+ * ocupa unos pocos KB.
+ *
+ * Dos resúmenes se combinan sumando buckets (merge), sin perder precisión:
+ * así cada hilo acumula el suyo y se juntan al final.
+ *
+ * No es seguro para varios hilos.
+ */
+public final class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    static final double MIN_MAGNITUDE = 1e-6;
+    static final double MAX_MAGNITUDE = 1e15;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final Buckets positive = new Buckets();
+    private final Buckets negative = new Buckets();
+    private long zeroCount = 0;
+    private long count = 0;
+
+    public void add(double value) {
+        double magnitude = Math.abs(value);
+        if (!(magnitude > MIN_MAGNITUDE)) {
+            zeroCount++; // También NaN
+        } else if (value > 0) {
+            positive.increment(index(magnitude));
+        } else {
+            negative.increment(index(magnitude));
+        }
+        count++;
+    }
+
+    /**
+     * Suma a este resumen los valores de otro.
+     */
+    public void merge(QuantileSketch other) {
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Valor aproximado por debajo del cual está la fracción indicada de
+     * valores, o NaN si el resumen está vacío.
+     *
+     * @param quantile Valor entre 0 y 1 (p. ej. 0.5 para la mediana).
+     */
+    public double quantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (Math.min(1.0, Math.max(0.0, quantile)) * (count - 1));
+        // Orden ascendente: negativos de mayor a menor magnitud, cero, positivos
+        long seen = negative.count;
+        if (rank < seen) {
+            return -negative.valueAtRank(negative.count - 1 - rank);
+        }
+        seen += zeroCount;
+        if (rank < seen) {
+            return 0.0;
+        }
+        return positive.valueAtRank(rank - seen);
+    }
+
+    private static int index(double magnitude) {
+        return (int) Math.ceil(Math.log(Math.min(magnitude, MAX_MAGNITUDE)) / LOG_GAMMA);
+    }
+
+    // Centro del bucket: a la misma distancia relativa de sus dos límites
+    private static double valueOf(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    /**
+     * Contadores de los buckets [offset, offset + counts.length); se amplían
+     * al registrar un índice fuera del tramo reservado.
+     */
+    private static final class Buckets {
+        private static final int INITIAL_BUCKETS = 64;
+
+        private long[] counts;
+        private int offset;
+        private long count = 0;
+
+        void increment(int index) {
+            ensure(index, index);
+            counts[index - offset]++;
+            count++;
+        }
+
+        void merge(Buckets other) {
+            if (other.count == 0) {
+                return;
+            }
+            ensure(other.offset, other.offset + other.counts.length - 1);
+            int shift = other.offset - offset;
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[shift + i] += other.counts[i];
+            }
+            count += other.count;
+        }
+
+        // Valor del bucket que contiene la posición rank (0 = el menor)
+        double valueAtRank(long rank) {
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return valueOf(offset + i);
+                }
+            }
+            return valueOf(offset + counts.length - 1);
+        }
+
+        private void ensure(int low, int high) {
+            if (counts == null) {
+                // Margen repartido a ambos lados del primer tramo
+                int length = Math.max(INITIAL_BUCKETS, high - low + 1);
+                counts = new long[length];
+                offset = low - (length - (high - low + 1)) / 2;
+                return;
+            }
+            int end = offset + counts.length;
+            if (low >= offset && high < end) {
+                return;
+            }
+            // Crece al menos al doble para que las ampliaciones sean pocas
+            int newLow = Math.min(low, offset);
+            int newHigh = Math.max(high, end - 1);
+            int grow = Math.max(newHigh - newLow + 1, counts.length * 2) - (newHigh - newLow + 1);
+            if (low < offset) {
+                newLow -= grow;
+            } else {
+                newHigh += grow;
+            }
+            long[] grown = new long[newHigh - newLow + 1];
+            System.arraycopy(counts, 0, grown, offset - newLow, counts.length);
+            counts = grown;
+            offset = newLow;
+        }
+    }
+}
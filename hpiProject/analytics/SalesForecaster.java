@@ -1,14 +1,29 @@
 package analytics;
 
+import java.util.concurrent.ThreadLocalRandom;
+
+import config.ConfigSnapshot;
+import config.ConfigurationContext;
+import model.HarmonizedBatch;
 import model.HarmonizedData;
+import model.LabelDictionary;
+import model.PredictionBatch;
 import model.PredictionResult;
 
 /**
  * Modelo de predicción de ventas.
  * Simula un algoritmo de proyección de crecimiento (Forecasting).
+ *
+ * La variación de la confianza no sale de un Random compartido: en modo
+ * determinista (el de por defecto) es un hash de la semilla configurada y del
+ * registro (sourceId, tiempo de evento y valor), de modo que el mismo dato
+ * recibe la misma confianza sea cual sea el hilo, el lote o el número de
+ * workers. En modo aleatorio cada hilo usa su propio generador.
  */
 public class SalesForecaster implements IPredictiveModel {
 
+    private static final String MODEL_NAME = "Standard_Growth_Algorithm_v1";
+
     // Simulación de parámetros del modelo
     // Simulación de parámetros del modelo
     // La configuración ahora viene de ConfigurationContext
@@ -21,19 +36,113 @@ public class SalesForecaster implements IPredictiveModel {
             return new PredictionResult("Unknown", 0.0, 0.0, "Error: Invalid Data");
         }
 
-        // Obtener configuración global
-        double growthFactor = config.ConfigurationContext.getInstance().getGrowthFactor();
+        // Obtener configuración global (lectura sin bloqueo del snapshot vigente)
+        ConfigSnapshot config = ConfigurationContext.getInstance().snapshot();
+        double growthFactor = config.getGrowthFactor();
 
         // 2. Lógica de Predicción (Simulación de IA)
         // Tomamos el valor actual y proyectamos el futuro
         double currentVal = data.getValue();
-        double projectedVal = currentVal * growthFactor;
+        double projectedVal = project(currentVal, growthFactor);
 
         // 3. Cálculo de confianza (Simulación con mayor variabilidad)
+        double unit = config.isDeterministicConfidence()
+                ? unitHash(config.getConfidenceSeed(), sourceHash(data.getSourceId()), data.getEventEpochMillis(),
+                        currentVal)
+                : ThreadLocalRandom.current().nextDouble();
+        double confidence = confidence(currentVal, unit);
+
+        // 4. Retornar el resultado encapsulado
+        return new PredictionResult(
+                PredictionResult.targetOf(data.getCategory()), // Ej: Future_Sales_Revenue
+                projectedVal,
+                confidence,
+                MODEL_NAME);
+    }
+
+    /**
+     * Versión por lotes: usa la configuración del lote y recorre arrays
+     * primitivos sin crear objetos, en bucles simples que el JIT puede
+     * vectorizar.
+     */
+    @Override
+    public void predictBatch(HarmonizedBatch batch, PredictionBatch out) {
+        int n = batch.size();
+        double[] values = batch.getValues();
+        double[] predicted = out.getPredictedValues();
+        double[] confidences = out.getConfidences();
+        // Snapshot capturado al inicio de la ejecución: coherente en todos los lotes
+        ConfigSnapshot config = batch.getConfig();
+        double growthFactor = config.getGrowthFactor();
+
+        for (int i = 0; i < n; i++) {
+            predicted[i] = values[i] * growthFactor;
+        }
+
+        if (config.isDeterministicConfidence()) {
+            long seed = config.getConfidenceSeed();
+            int[] sourceIds = batch.getSourceIds();
+            LabelDictionary sources = batch.getSources();
+            long[] eventTimes = batch.getEventTimes();
+            int previousId = HarmonizedBatch.NO_SOURCE;
+            long sourceHash = sourceHash(null);
+            for (int i = 0; i < n; i++) {
+                // Las filas de una misma fuente suelen venir seguidas: el texto solo se resuelve al cambiar
+                if (sourceIds[i] != previousId) {
+                    previousId = sourceIds[i];
+                    String sourceId = previousId == HarmonizedBatch.NO_SOURCE ? null : sources.label(previousId);
+                    sourceHash = sourceHash(sourceId);
+                }
+                confidences[i] = confidence(values[i], unitHash(seed, sourceHash, eventTimes[i], values[i]));
+            }
+        } else {
+            // Generador por hilo: evita la contención del Random global de Math.random()
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < n; i++) {
+                confidences[i] = confidence(values[i], random.nextDouble());
+            }
+        }
+
+        out.setModelUsed(MODEL_NAME);
+        out.setSize(n);
+    }
+
+    private static double project(double currentVal, double growthFactor) {
+        return currentVal * growthFactor;
+    }
+
+    // String.hashCode está fijado por la especificación: estable entre JVMs
+    private static long sourceHash(String sourceId) {
+        return sourceId == null ? 0L : sourceId.hashCode();
+    }
+
+    /**
+     * Valor pseudoaleatorio uniforme en [0, 1) que depende solo de sus
+     * argumentos (mezcla final de SplitMix64 sobre cada campo).
+     */
+    private static double unitHash(long seed, long sourceHash, long eventEpochMillis, double value) {
+        long h = mix(seed ^ 0x9E3779B97F4A7C15L);
+        h = mix(h ^ sourceHash);
+        h = mix(h ^ eventEpochMillis);
+        h = mix(h ^ Double.doubleToLongBits(value));
+        return (h >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param randomUnit Valor aleatorio uniforme en [0, 1).
+     */
+    private static double confidence(double currentVal, double randomUnit) {
         // Simulamos que el modelo tiene variaciones basadas en "factores externos"
         // aleatorios
         // Genera una confianza base entre 0.70 y 0.95
-        double randomFactor = 0.70 + (Math.random() * 0.25);
+        double randomFactor = 0.70 + (randomUnit * 0.25);
 
         // Ajuste por magnitud: valores extremos suelen tener menor confianza
         double magnitudeAdjustment = (currentVal > 10000) ? -0.05 : 0.02;
@@ -41,13 +150,6 @@ public class SalesForecaster implements IPredictiveModel {
         double confidence = randomFactor + magnitudeAdjustment;
 
         // Clampear para asegurar que esté entre 0 y 1
-        confidence = Math.max(0.0, Math.min(1.0, confidence));
-
-        // 4. Retornar el resultado encapsulado
-        return new PredictionResult(
-                "Future_" + data.getCategory(), // Ej: Future_Sales_Revenue
-                projectedVal,
-                confidence,
-                "Standard_Growth_Algorithm_v1");
+        return Math.max(0.0, Math.min(1.0, confidence));
     }
-}
\ No newline at end of file
+}
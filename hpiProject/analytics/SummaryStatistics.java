@@ -0,0 +1,113 @@
+package analytics;
+
+/**
+ * Estadísticos de una serie de valores en una sola pasada: cuenta, suma,
+ * mínimo, máximo, media y varianza (algoritmo de Welford, estable con
+ * millones de valores) y cuantiles aproximados (QuantileSketch).
+ *
+ * Pensado para acumuladores por hilo: cada hilo llena el suyo y al final se
+ * combinan con merge(), que aplica la fórmula de Chan et al. para juntar
+ * medias y varianzas parciales sin volver a recorrer los datos.
+ *
+ * No es seguro para varios hilos.
+ */
+public final class SummaryStatistics {
+
+    private long count = 0;
+    private double sum = 0.0;
+    private double mean = 0.0;
+    private double m2 = 0.0; // Suma de cuadrados de las desviaciones a la media
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch = new QuantileSketch();
+
+    public void add(double value) {
+        count++;
+        sum += value;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        sketch.add(value);
+    }
+
+    /**
+     * Suma a estos estadísticos los de otra serie.
+     */
+    public void merge(SummaryStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /** Mínimo, o NaN si no hay valores. */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /** Máximo, o NaN si no hay valores. */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /** Media, o NaN si no hay valores. */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * Varianza muestral (divide entre n - 1); 0 con un solo valor y NaN sin
+     * valores.
+     */
+    public double getVariance() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return count == 1 ? 0.0 : m2 / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Cuantil aproximado (error relativo de QuantileSketch.RELATIVE_ACCURACY),
+     * acotado al mínimo y al máximo exactos.
+     *
+     * @param quantile Valor entre 0 y 1 (p. ej. 0.99).
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (quantile <= 0) {
+            return min;
+        }
+        if (quantile >= 1) {
+            return max;
+        }
+        return Math.max(min, Math.min(max, sketch.quantile(quantile)));
+    }
+}
@@ -0,0 +1,248 @@
+package analytics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import model.EventTime;
+import model.HarmonizedBatch;
+import model.HarmonizedData;
+import model.LabelDictionary;
+import model.PredictionBatch;
+import model.PredictionResult;
+
+/**
+ * Modelo de series temporales: agrupa los registros por fuente (sourceId) y
+ * proyecta el siguiente valor de cada serie con suavizado exponencial doble
+ * (Holt: nivel + tendencia) adaptado a intervalos irregulares mediante el
+ * tiempo de evento de cada registro.
+ *
+ * Por cada registro:
+ * 1. Se compara el valor con la previsión que la serie tenía para ese
+ *    instante; el error actualiza una varianza de residuos con media móvil
+ *    exponencial.
+ * 2. Se actualizan nivel y tendencia (tendencia por milisegundo).
+ * 3. Se proyecta la serie un intervalo típico hacia delante (media móvil de
+ *    los intervalos observados) y esa es la predicción del registro.
+ *
+ * La confianza sale del error relativo de la serie: 1 / (1 + rmse / |nivel|),
+ * rebajada mientras la serie tiene pocos puntos. Cada punto cuesta O(1) y la
+ * memoria crece con el número de series, no con el de filas.
+ *
+ * Los registros sin tiempo de evento avanzan la serie un intervalo típico
+ * (o un paso, si la serie nunca tuvo tiempos).
+ * Los que llegan con un tiempo anterior al último visto actualizan el nivel
+ * pero no la tendencia. Los valores de relleno (p. ej. Missing_Value) no se
+ * incorporan a la serie: reciben la previsión vigente.
+ *
+ * Las series se guardan en un array indexado por el id de fuente del lote en
+ * su diccionario (HarmonizedBatch.getSources()), sin comparar textos. Un lote
+ * con otro diccionario (otra ejecución) empieza de cero, pues sus ids no
+ * corresponden.
+ *
+ * Es un modelo con estado (isStateful): el resultado depende del orden de los
+ * registros, por lo que el pipeline se lo entrega en el orden de la fuente.
+ */
+public class TimeSeriesForecaster implements IPredictiveModel {
+
+    public static final String MODEL_NAME = "Holt_TimeSeries_v1";
+
+    public static final double DEFAULT_LEVEL_SMOOTHING = 0.5;
+    public static final double DEFAULT_TREND_SMOOTHING = 0.3;
+    public static final Set<String> DEFAULT_PLACEHOLDER_CATEGORIES = Collections
+            .unmodifiableSet(new HashSet<>(Arrays.asList("Missing_Value", "Unreadable_Data")));
+
+    // Peso de cada punto nuevo en la varianza de residuos y en el intervalo típico
+    private static final double STATS_SMOOTHING = 0.2;
+    private static final double FIRST_POINT_CONFIDENCE = 0.5;
+    private static final double MIN_SCALE = 1e-9;
+
+    private final double levelSmoothing;
+    private final double trendSmoothing;
+    private final Set<String> placeholderCategories;
+    // Diccionario de los ids de fuente; seriesOf[id + 1] es la serie del id (NO_SOURCE incluido)
+    private LabelDictionary sources;
+    private Series[] seriesOf = new Series[0];
+    private int seriesCount = 0;
+
+    public TimeSeriesForecaster() {
+        this(DEFAULT_LEVEL_SMOOTHING, DEFAULT_TREND_SMOOTHING, DEFAULT_PLACEHOLDER_CATEGORIES);
+    }
+
+    /**
+     * @param levelSmoothing        Peso del valor nuevo en el nivel (alpha, 0-1].
+     * @param trendSmoothing        Peso de la pendiente nueva en la tendencia (beta, 0-1].
+     * @param placeholderCategories Categorías cuyo valor es un relleno y no una medida.
+     */
+    public TimeSeriesForecaster(double levelSmoothing, double trendSmoothing, Set<String> placeholderCategories) {
+        if (!(levelSmoothing > 0 && levelSmoothing <= 1) || !(trendSmoothing > 0 && trendSmoothing <= 1)) {
+            throw new IllegalArgumentException("Smoothing factors must be in (0, 1]");
+        }
+        this.levelSmoothing = levelSmoothing;
+        this.trendSmoothing = trendSmoothing;
+        this.placeholderCategories = placeholderCategories;
+    }
+
+    @Override
+    public synchronized PredictionResult predict(HarmonizedData data) {
+        if (!data.isValid()) {
+            return new PredictionResult("Unknown", 0.0, 0.0, "Error: Invalid Data");
+        }
+
+        Series current = seriesFor(sourceId(data.getSourceId()));
+        if (!placeholderCategories.contains(data.getCategory())) {
+            current.observe(data.getValue(), data.getEventEpochMillis());
+        }
+        return new PredictionResult(PredictionResult.targetOf(data.getCategory()), current.forecast(),
+                current.confidence(), MODEL_NAME);
+    }
+
+    @Override
+    public synchronized void predictBatch(HarmonizedBatch batch, PredictionBatch out) {
+        int n = batch.size();
+        double[] values = batch.getValues();
+        int[] categoryIds = batch.getCategoryIds();
+        int[] sourceIds = batch.getSourceIds();
+        long[] eventTimes = batch.getEventTimes();
+        double[] predicted = out.getPredictedValues();
+        double[] confidences = out.getConfidences();
+
+        // Una consulta al Set por categoría y lote, no por registro
+        LabelDictionary categories = batch.getCategories();
+        boolean[] placeholder = new boolean[categories.size()];
+        for (int id = 0; id < placeholder.length; id++) {
+            placeholder[id] = placeholderCategories.contains(categories.label(id));
+        }
+
+        if (batch.getSources() != sources) {
+            clearSeries();
+            sources = batch.getSources();
+        }
+        for (int i = 0; i < n; i++) {
+            Series current = seriesFor(sourceIds[i]);
+            if (!placeholder[categoryIds[i]]) {
+                current.observe(values[i], eventTimes[i]);
+            }
+            predicted[i] = current.forecast();
+            confidences[i] = current.confidence();
+        }
+
+        out.setModelUsed(MODEL_NAME);
+        out.setSize(n);
+    }
+
+    @Override
+    public boolean isStateful() {
+        return true;
+    }
+
+    @Override
+    public synchronized void reset() {
+        clearSeries();
+        sources = null;
+    }
+
+    /**
+     * Series distintas vistas desde el último reset().
+     */
+    public synchronized int getSeriesCount() {
+        return seriesCount;
+    }
+
+    // Id de una fuente llegada como texto (predict por registro)
+    private int sourceId(String sourceId) {
+        if (sourceId == null) {
+            return HarmonizedBatch.NO_SOURCE;
+        }
+        if (sources == null) {
+            sources = new LabelDictionary();
+        }
+        return sources.intern(sourceId);
+    }
+
+    private Series seriesFor(int sourceId) {
+        int key = sourceId + 1;
+        if (key >= seriesOf.length) {
+            seriesOf = Arrays.copyOf(seriesOf, Math.max(key + 1, 2 * seriesOf.length));
+        }
+        Series current = seriesOf[key];
+        if (current == null) {
+            current = new Series();
+            seriesOf[key] = current;
+            seriesCount++;
+        }
+        return current;
+    }
+
+    private void clearSeries() {
+        seriesOf = new Series[0];
+        seriesCount = 0;
+    }
+
+    /**
+     * Estado incremental de una serie (acceso sincronizado sobre el modelo).
+     */
+    private final class Series {
+        private long points = 0;
+        private long lastTime = EventTime.NONE;
+        private double level;
+        private double trendPerMs;
+        private double typicalIntervalMs;
+        private double residualVariance;
+
+        void observe(double value, long eventTime) {
+            if (points == 0) {
+                level = value;
+                lastTime = eventTime;
+                points = 1;
+                return;
+            }
+
+            double elapsed = elapsedMs(eventTime);
+            double expected = level + trendPerMs * elapsed;
+            double error = value - expected;
+            residualVariance = points == 1 ? error * error
+                    : (1 - STATS_SMOOTHING) * residualVariance + STATS_SMOOTHING * error * error;
+
+            double previousLevel = level;
+            level = levelSmoothing * value + (1 - levelSmoothing) * expected;
+            if (elapsed > 0) {
+                trendPerMs = trendSmoothing * (level - previousLevel) / elapsed + (1 - trendSmoothing) * trendPerMs;
+                typicalIntervalMs = typicalIntervalMs == 0 ? elapsed
+                        : (1 - STATS_SMOOTHING) * typicalIntervalMs + STATS_SMOOTHING * elapsed;
+            }
+            if (EventTime.isPresent(eventTime) && (lastTime == EventTime.NONE || eventTime > lastTime)) {
+                lastTime = eventTime;
+            }
+            points++;
+        }
+
+        // Proyección un intervalo típico por delante del último punto
+        double forecast() {
+            return points == 0 ? 0.0 : level + trendPerMs * typicalIntervalMs;
+        }
+
+        double confidence() {
+            if (points == 0) {
+                return 0.0;
+            }
+            if (points == 1) {
+                return FIRST_POINT_CONFIDENCE;
+            }
+            double scale = Math.max(Math.abs(level), MIN_SCALE);
+            double relativeError = Math.sqrt(residualVariance) / scale;
+            double confidence = (1.0 / (1.0 + relativeError)) * (points / (points + 1.0));
+            return Math.max(0.0, Math.min(1.0, confidence));
+        }
+
+        // Sin tiempo de evento se avanza un intervalo típico (1 ms si aún no hay
+        // ninguno: la serie se trata como una secuencia de pasos); fuera de orden, 0
+        private double elapsedMs(long eventTime) {
+            if (!EventTime.isPresent(eventTime) || lastTime == EventTime.NONE) {
+                return typicalIntervalMs > 0 ? typicalIntervalMs : 1.0;
+            }
+            return Math.max(0, eventTime - lastTime);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package config;
+
+/**
+ * Vista inmutable de la configuración en un instante dado.
+ * Una ejecución del pipeline captura un snapshot al comenzar y lo usa de
+ * principio a fin, de modo que los cambios hechos desde el menú de ajustes
+ * solo afectan a la siguiente ejecución.
+ */
+public final class ConfigSnapshot {
+    private final long version;
+    private final double growthFactor;
+    private final int simulationDelayMs;
+    private final int ingestionParallelism;
+    private final boolean deterministicConfidence;
+    private final long confidenceSeed;
+
+    ConfigSnapshot(long version, double growthFactor, int simulationDelayMs, int ingestionParallelism,
+            boolean deterministicConfidence, long confidenceSeed) {
+        this.version = version;
+        this.growthFactor = growthFactor;
+        this.simulationDelayMs = simulationDelayMs;
+        this.ingestionParallelism = ingestionParallelism;
+        this.deterministicConfidence = deterministicConfidence;
+        this.confidenceSeed = confidenceSeed;
+    }
+
+    static ConfigSnapshot defaults() {
+        return new ConfigSnapshot(1, 1.15, 200, Runtime.getRuntime().availableProcessors(), true, 42L);
+    }
+
+    // --- Copias con un parámetro cambiado (la versión siempre avanza) ---
+
+    ConfigSnapshot withGrowthFactor(double growthFactor) {
+        return new ConfigSnapshot(version + 1, growthFactor, simulationDelayMs, ingestionParallelism,
+                deterministicConfidence, confidenceSeed);
+    }
+
+    ConfigSnapshot withSimulationDelayMs(int simulationDelayMs) {
+        return new ConfigSnapshot(version + 1, growthFactor, simulationDelayMs, ingestionParallelism,
+                deterministicConfidence, confidenceSeed);
+    }
+
+    ConfigSnapshot withIngestionParallelism(int ingestionParallelism) {
+        return new ConfigSnapshot(version + 1, growthFactor, simulationDelayMs, ingestionParallelism,
+                deterministicConfidence, confidenceSeed);
+    }
+
+    ConfigSnapshot withConfidence(boolean deterministicConfidence, long confidenceSeed) {
+        return new ConfigSnapshot(version + 1, growthFactor, simulationDelayMs, ingestionParallelism,
+                deterministicConfidence, confidenceSeed);
+    }
+
+    /**
+     * Número de versión creciente: cambia con cada modificación publicada.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public double getGrowthFactor() {
+        return growthFactor;
+    }
+
+    public int getSimulationDelayMs() {
+        return simulationDelayMs;
+    }
+
+    public int getIngestionParallelism() {
+        return ingestionParallelism;
+    }
+
+    /**
+     * Si es true, la confianza simulada se deriva del propio registro y de
+     * confidenceSeed: los mismos datos dan siempre el mismo reporte.
+     */
+    public boolean isDeterministicConfidence() {
+        return deterministicConfidence;
+    }
+
+    public long getConfidenceSeed() {
+        return confidenceSeed;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshot{v" + version + ", growthFactor=" + growthFactor + ", simulationDelayMs="
+                + simulationDelayMs + ", ingestionParallelism=" + ingestionParallelism + ", confidence="
+                + (deterministicConfidence ? "seed " + confidenceSeed : "random") + "}";
+    }
+}
@@ -1,31 +1,45 @@
 package config;
 
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
 /**
  * Singleton para gestionar la configuración global de la aplicación.
  * Permite ajustar parámetros del modelo en tiempo real.
+ *
+ * La configuración se guarda como un ConfigSnapshot inmutable publicado de
+ * forma atómica: las lecturas no toman ningún monitor (una lectura volátil) y
+ * cada cambio publica un snapshot nuevo con la versión incrementada.
  */
 public class ConfigurationContext {
-    private static ConfigurationContext instance;
 
-    // Parámetros de configuración (con valores por defecto)
-    private double growthFactor = 1.15; // +15% por defecto
-    private int simulationDelayMs = 200; // Velocidad de "efecto visual"
+    // Inicialización perezosa y thread-safe sin synchronized (idiom "holder")
+    private static final class Holder {
+        private static final ConfigurationContext INSTANCE = new ConfigurationContext();
+    }
+
+    private final AtomicReference<ConfigSnapshot> current = new AtomicReference<>(ConfigSnapshot.defaults());
 
     // Constructor privado para Singleton
     private ConfigurationContext() {
     }
 
-    public static synchronized ConfigurationContext getInstance() {
-        if (instance == null) {
-            instance = new ConfigurationContext();
-        }
-        return instance;
+    public static ConfigurationContext getInstance() {
+        return Holder.INSTANCE;
     }
 
-    // --- Getters & Setters ---
+    /**
+     * Configuración vigente. Una ejecución debe capturarla una vez al empezar
+     * y no volver a consultar el contexto.
+     */
+    public ConfigSnapshot snapshot() {
+        return current.get();
+    }
+
+    // --- Getters & Setters (atajos sobre el snapshot vigente) ---
 
     public double getGrowthFactor() {
-        return growthFactor;
+        return snapshot().getGrowthFactor();
     }
 
     public void setGrowthFactor(double growthFactor) {
@@ -34,15 +48,49 @@ public class ConfigurationContext {
             System.out.println("[Config] Error: Factor cannot be negative.");
             return;
         }
-        this.growthFactor = growthFactor;
+        publish(s -> s.withGrowthFactor(growthFactor));
         System.out.println("[Config] New growth factor set: " + growthFactor + "x");
     }
 
     public int getSimulationDelayMs() {
-        return simulationDelayMs;
+        return snapshot().getSimulationDelayMs();
     }
 
     public void setSimulationDelayMs(int delay) {
-        this.simulationDelayMs = delay;
+        publish(s -> s.withSimulationDelayMs(delay));
+    }
+
+    public int getIngestionParallelism() {
+        return snapshot().getIngestionParallelism();
+    }
+
+    public void setIngestionParallelism(int parallelism) {
+        if (parallelism < 1) {
+            System.out.println("[Config] Error: Parallelism must be at least 1.");
+            return;
+        }
+        publish(s -> s.withIngestionParallelism(parallelism));
+        System.out.println("[Config] New ingestion parallelism set: " + parallelism + " threads");
+    }
+
+    /**
+     * Confianza reproducible derivada de cada registro y de la semilla dada.
+     */
+    public void setConfidenceSeed(long seed) {
+        publish(s -> s.withConfidence(true, seed));
+        System.out.println("[Config] Deterministic confidence, seed " + seed);
+    }
+
+    /**
+     * Confianza con variación aleatoria distinta en cada ejecución.
+     */
+    public void setRandomConfidence() {
+        publish(s -> s.withConfidence(false, s.getConfidenceSeed()));
+        System.out.println("[Config] Random confidence (runs are not reproducible)");
+    }
+
+    // Sustituye el snapshot vigente sin bloquear a los lectores
+    private void publish(UnaryOperator<ConfigSnapshot> change) {
+        current.updateAndGet(change);
     }
 }
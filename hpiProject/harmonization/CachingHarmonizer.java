@@ -0,0 +1,253 @@
+package harmonization;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.HarmonizedData;
+import model.RawDataRecord;
+
+/**
+ * Decorador de IHarmonizer con una caché acotada de resultados por
+ * (sourceId, valor crudo): los feeds repiten mucho los mismos valores
+ * ("SYSTEM_OK", "$500.00"...) y una repetición se resuelve sin limpiar ni
+ * categorizar de nuevo.
+ *
+ * Expulsión LRU segmentada (SLRU): una entrada nueva entra en el segmento de
+ * prueba y solo pasa al protegido (80% de la capacidad) si se vuelve a pedir.
+ * Así una ráfaga de valores únicos (importes con céntimos, ids) expulsa a
+ * otros valores únicos y no a los que de verdad se repiten.
+ *
+ * La caché se reparte en SEGMENTS particiones por hash, cada una con su
+ * propio bloqueo, para que los workers del pipeline no compitan por uno solo.
+ * Los valores crudos de más de MAX_KEY_LENGTH caracteres no se guardan, de
+ * modo que la memoria queda acotada por número de entradas.
+ *
+ * El resultado de la armonización solo depende de las reglas del
+ * harmonizador envuelto, no de la configuración; si las reglas cambian, hay
+ * que crear otro harmonizador o llamar a invalidate().
+ */
+public class CachingHarmonizer implements IHarmonizer {
+
+    public static final int DEFAULT_MAX_ENTRIES = 65_536;
+    static final int MAX_KEY_LENGTH = 256;
+
+    private static final int SEGMENTS = 16; // Potencia de dos
+    /** Capacidad mínima: una entrada por partición. */
+    public static final int MIN_ENTRIES = SEGMENTS;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final IHarmonizer delegate;
+    private final int maxEntries;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingHarmonizer(IHarmonizer delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES);
+    }
+
+    public CachingHarmonizer(IHarmonizer delegate, int maxEntries) {
+        if (maxEntries < MIN_ENTRIES) {
+            throw new IllegalArgumentException("Cache size must be at least " + MIN_ENTRIES);
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        int perSegment = maxEntries / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    @Override
+    public HarmonizedData harmonize(RawDataRecord rawRecord) {
+        String raw = rawRecord.getRawContent();
+        if (raw == null || raw.length() > MAX_KEY_LENGTH) {
+            misses.increment();
+            return delegate.harmonize(rawRecord);
+        }
+        Key key = new Key(rawRecord.getSourceId(), raw);
+        Segment segment = segments[key.hash & (SEGMENTS - 1)];
+
+        HarmonizedData cached = segment.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        // Se calcula fuera del bloqueo; dos hilos con la misma clave obtienen el mismo resultado
+        HarmonizedData result = delegate.harmonize(rawRecord);
+        if (result != null) {
+            segment.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Vacía la caché (p. ej. tras cambiar las reglas del harmonizador envuelto).
+     * Los contadores de aciertos y fallos se conservan.
+     */
+    public void invalidate() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public IHarmonizer getDelegate() {
+        return delegate;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        long evicted = 0;
+        for (Segment segment : segments) {
+            evicted += segment.evicted();
+        }
+        return evicted;
+    }
+
+    /**
+     * Fracción de búsquedas resueltas desde la caché (0 si aún no hubo ninguna).
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("harmonization cache: %d hits, %d misses (%.1f%% hit rate), %d/%d entries, %d evicted",
+                getHits(), getMisses(), getHitRate() * 100, size(), maxEntries, getEvictions());
+    }
+
+    /**
+     * Clave (sourceId, valor crudo) con el hash precalculado.
+     */
+    private static final class Key {
+        private final String sourceId;
+        private final String raw;
+        private final int hash;
+
+        Key(String sourceId, String raw) {
+            this.sourceId = sourceId;
+            this.raw = raw;
+            int h = 31 * (sourceId == null ? 0 : sourceId.hashCode()) + raw.hashCode();
+            this.hash = h ^ (h >>> 16);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash && raw.equals(key.raw)
+                    && (sourceId == null ? key.sourceId == null : sourceId.equals(key.sourceId));
+        }
+    }
+
+    /**
+     * Una partición de la caché: segmento de prueba y segmento protegido,
+     * ambos en orden de acceso (el primero es el menos reciente).
+     */
+    private static final class Segment {
+        private final int protectedCapacity;
+        private final int probationCapacity;
+        private final LinkedHashMap<Key, HarmonizedData> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Key, HarmonizedData> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+        private long evicted;
+
+        Segment(int capacity) {
+            this.protectedCapacity = Math.max(0, (int) (capacity * PROTECTED_RATIO));
+            this.probationCapacity = Math.max(1, capacity - protectedCapacity);
+        }
+
+        synchronized HarmonizedData get(Key key) {
+            HarmonizedData value = protectedEntries.get(key);
+            if (value != null) {
+                return value;
+            }
+            value = probation.remove(key);
+            if (value != null) {
+                // Segundo acceso: pasa al segmento protegido
+                promote(key, value);
+            }
+            return value;
+        }
+
+        synchronized void put(Key key, HarmonizedData value) {
+            if (!protectedEntries.containsKey(key)) {
+                probation.put(key, value);
+                trimProbation();
+            }
+        }
+
+        synchronized void clear() {
+            probation.clear();
+            protectedEntries.clear();
+        }
+
+        synchronized int size() {
+            return probation.size() + protectedEntries.size();
+        }
+
+        synchronized long evicted() {
+            return evicted;
+        }
+
+        private void promote(Key key, HarmonizedData value) {
+            if (protectedCapacity == 0) {
+                probation.put(key, value);
+                return;
+            }
+            protectedEntries.put(key, value);
+            if (protectedEntries.size() > protectedCapacity) {
+                // La menos reciente del protegido vuelve al de prueba
+                Iterator<Map.Entry<Key, HarmonizedData>> eldest = protectedEntries.entrySet().iterator();
+                Map.Entry<Key, HarmonizedData> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+                trimProbation();
+            }
+        }
+
+        private void trimProbation() {
+            Iterator<Key> eldest = probation.keySet().iterator();
+            while (probation.size() > probationCapacity) {
+                eldest.next();
+                eldest.remove();
+                evicted++;
+            }
+        }
+    }
+}
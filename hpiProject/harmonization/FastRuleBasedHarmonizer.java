@@ -0,0 +1,266 @@
+package harmonization;
+
+import model.HarmonizedData;
+import model.RawDataRecord;
+
+/**
+ * Versión de una sola pasada de RuleBasedHarmonizer.
+ * Recorre los caracteres del valor crudo una única vez: omite los marcadores de
+ * moneda (€, $, EUR) y los espacios, normaliza el separador decimal y calcula el
+ * double directamente, sin Strings intermedios, sin regex y sin usar
+ * excepciones como control de flujo.
+ *
+ * Produce exactamente el mismo HarmonizedData (valor y categoría) que
+ * RuleBasedHarmonizer. Las entradas que el camino rápido no puede resolver con
+ * certeza (exponentes, NaN/Infinity, hexadecimales, caracteres de control o más
+ * de 15 dígitos) se delegan a la implementación original.
+ */
+public class FastRuleBasedHarmonizer implements IHarmonizer {
+
+    private static final int SALES = 0;
+    private static final int OPERATIONAL = 1;
+    private static final int GENERAL = 2;
+
+    private static final String[] CATEGORIES = { "Sales_Revenue", "Operational_Metric", "General_Data" };
+    private static final String[] RECOVERED_CATEGORIES = { "Sales_Revenue_Recovered",
+            "Operational_Metric_Recovered", "General_Data_Recovered" };
+
+    // Potencias de 10 representables exactamente como double
+    private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    // Con hasta 15 dígitos la mantisa es exacta (< 2^53) y una sola división
+    // redondea igual que Double.parseDouble
+    static final int MAX_FAST_DIGITS = 15;
+
+    private final RuleBasedHarmonizer exactFallback = new RuleBasedHarmonizer();
+
+    @Override
+    public HarmonizedData harmonize(RawDataRecord rawRecord) {
+        String raw = rawRecord.getRawContent();
+
+        // Equivalente a rawContent.trim() sin crear el String
+        int start = 0;
+        int end = raw == null ? 0 : raw.length();
+        while (start < end && raw.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && raw.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start >= end) {
+            return new HarmonizedData(0.0, "Missing_Value", true);
+        }
+
+        int category = detectCategory(rawRecord.getSourceId());
+        if (category < 0) {
+            return exactFallback.harmonize(rawRecord); // sourceId no ASCII
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        int kept = 0; // Caracteres que sobrevivirían a la limpieza
+        boolean seenDot = false;
+        boolean negative = false;
+        boolean parseable = true;
+
+        for (int i = start; i < end && parseable; i++) {
+            char c = raw.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                if (digits < MAX_FAST_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                digits++;
+                if (seenDot) {
+                    fractionDigits++;
+                }
+                kept++;
+            } else if (c == '.' || c == ',') {
+                parseable = !seenDot;
+                seenDot = true;
+                kept++;
+            } else if (c == '€' || c == '$' || isRegexWhitespace(c)) {
+                // Marcador de moneda o espacio: se elimina
+            } else if (c == 'E' && endOfEur(raw, i, end) > 0) {
+                i = endOfEur(raw, i, end) - 1; // "EUR"
+            } else if (c == '+' || c == '-') {
+                parseable = kept == 0;
+                negative = c == '-';
+                kept++;
+            } else if (c == 'x' || c == 'X' || c <= ' ') {
+                // Posible hexadecimal (0x1p3) o carácter de control que Double.parseDouble recorta
+                return exactFallback.harmonize(rawRecord);
+            } else if (isExponentOrSuffix(c)) {
+                if (digits > 0) {
+                    return exactFallback.harmonize(rawRecord); // 1e5, 12f, 3.5d...
+                }
+                parseable = false;
+            } else if ((c == 'N' || c == 'I') && digits == 0 && !seenDot) {
+                if (mayBeLiteral(raw, i + 1, end, c == 'N' ? "aN" : "nfinity")) {
+                    return exactFallback.harmonize(rawRecord); // NaN / Infinity
+                }
+                parseable = false;
+            } else {
+                parseable = false; // Cualquier otro carácter hace fallar Double.parseDouble
+            }
+        }
+
+        if (parseable && digits > 0) {
+            if (digits > MAX_FAST_DIGITS) {
+                return exactFallback.harmonize(rawRecord);
+            }
+            double value = scale(mantissa, fractionDigits);
+            return new HarmonizedData(negative ? -value : value, CATEGORIES[category], true);
+        }
+
+        return recover(raw, category);
+    }
+
+    private static HarmonizedData recover(String raw, int category) {
+        double value = recoverFirstNumber(raw);
+        if (Double.isNaN(value)) {
+            return new HarmonizedData(0.0, "Unreadable_Data", true);
+        }
+        return new HarmonizedData(value, RECOVERED_CATEGORIES[category], true);
+    }
+
+    /**
+     * Equivalente a buscar el primer match de (\d+(\.\d+)?) en el contenido crudo.
+     * Devuelve NaN si no hay ningún dígito (un match nunca puede producir NaN).
+     */
+    static double recoverFirstNumber(String raw) {
+        int length = raw.length();
+        int first = 0;
+        while (first < length && !isAsciiDigit(raw.charAt(first))) {
+            first++;
+        }
+        if (first == length) {
+            return Double.NaN;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        int pos = first;
+
+        while (pos < length && isAsciiDigit(raw.charAt(pos))) {
+            mantissa = mantissa * 10 + (raw.charAt(pos++) - '0');
+            digits++;
+        }
+        if (pos + 1 < length && raw.charAt(pos) == '.' && isAsciiDigit(raw.charAt(pos + 1))) {
+            pos++;
+            while (pos < length && isAsciiDigit(raw.charAt(pos))) {
+                mantissa = mantissa * 10 + (raw.charAt(pos++) - '0');
+                digits++;
+                fractionDigits++;
+            }
+        }
+
+        if (digits <= MAX_FAST_DIGITS) {
+            return scale(mantissa, fractionDigits);
+        }
+        return Double.parseDouble(raw.substring(first, pos)); // Caso raro: número muy largo
+    }
+
+    /**
+     * mantissa / 10^fractionDigits, redondeado igual que Double.parseDouble
+     * siempre que la mantisa tenga como máximo MAX_FAST_DIGITS dígitos.
+     */
+    static double scale(long mantissa, int fractionDigits) {
+        return mantissa / POW10[fractionDigits];
+    }
+
+    /**
+     * Igual que RuleBasedHarmonizer.detectCategory pero sin toLowerCase().
+     * Devuelve -1 si el sourceId contiene caracteres no ASCII.
+     */
+    private static int detectCategory(String sourceId) {
+        for (int i = 0; i < sourceId.length(); i++) {
+            if (sourceId.charAt(i) > 127) {
+                return -1;
+            }
+        }
+        if (containsIgnoreCase(sourceId, "crm")) {
+            return SALES;
+        } else if (containsIgnoreCase(sourceId, "sensor") || containsIgnoreCase(sourceId, "iot")) {
+            return OPERATIONAL;
+        }
+        return GENERAL;
+    }
+
+    private static boolean containsIgnoreCase(String text, String lowerKeyword) {
+        return indexOfIgnoreCase(text, lowerKeyword) >= 0;
+    }
+
+    private static int indexOfIgnoreCase(String text, String lowerKeyword) {
+        int last = text.length() - lowerKeyword.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, lowerKeyword, 0, lowerKeyword.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Si en la posición 'at' empieza "EUR" (ignorando € y $, que el original
+     * elimina antes), devuelve el índice tras la 'R'; si no, -1.
+     */
+    private static int endOfEur(String raw, int at, int end) {
+        int matched = 1; // 'E'
+        for (int i = at + 1; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c == '€' || c == '$') {
+                continue;
+            }
+            if (c != "EUR".charAt(matched)) {
+                return -1;
+            }
+            if (++matched == 3) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // Clase \s de java.util.regex: [ \t\n\x0B\f\r]
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isExponentOrSuffix(char c) {
+        return c == 'e' || c == 'E' || c == 'd' || c == 'D' || c == 'f' || c == 'F';
+    }
+
+    /**
+     * Indica si el resto del valor, una vez limpiado, podría ser exactamente el
+     * literal indicado (para NaN / Infinity). Ante caracteres de control responde
+     * true para que decida la implementación original.
+     */
+    private static boolean mayBeLiteral(String raw, int from, int end, String literal) {
+        int matched = 0;
+        for (int i = from; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c == '€' || c == '$' || isRegexWhitespace(c)) {
+                continue;
+            }
+            if (c == 'E' && endOfEur(raw, i, end) > 0) {
+                i = endOfEur(raw, i, end) - 1;
+                continue;
+            }
+            if (c <= ' ') {
+                return true;
+            }
+            if (matched == literal.length() || c != literal.charAt(matched)) {
+                return false;
+            }
+            matched++;
+        }
+        return matched == literal.length();
+    }
+}
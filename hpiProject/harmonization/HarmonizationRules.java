@@ -0,0 +1,181 @@
+package harmonization;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Conjunto inmutable de reglas de armonización.
+ * Describe qué marcadores se eliminan del valor crudo, qué caracteres actúan
+ * como separador decimal y cómo se asigna una categoría a cada sourceId.
+ *
+ * Se carga una sola vez desde un archivo .properties (UTF-8), de modo que se
+ * pueden añadir nuevas fuentes sin recompilar:
+ *
+ * <pre>
+ * strip.tokens=€|$|EUR
+ * decimal.separators=,
+ * category.default=General_Data
+ * category.1=crm -> Sales_Revenue
+ * category.2=sensor -> Operational_Metric
+ * category.3=iot -> Operational_Metric
+ * </pre>
+ *
+ * Las reglas de categoría se evalúan por número: gana la de menor número cuya
+ * palabra clave aparezca (sin distinguir mayúsculas) en el sourceId.
+ */
+public final class HarmonizationRules {
+
+    private static final String TOKEN_SEPARATOR = "\\|";
+    private static final String MAPPING_ARROW = "->";
+    private static final String CATEGORY_PREFIX = "category.";
+
+    private final List<String> stripTokens;
+    private final String decimalSeparators;
+    private final List<CategoryRule> categoryRules;
+    private final String defaultCategory;
+
+    public HarmonizationRules(List<String> stripTokens, String decimalSeparators, List<CategoryRule> categoryRules,
+            String defaultCategory) {
+        this.stripTokens = Collections.unmodifiableList(new ArrayList<>(stripTokens));
+        this.decimalSeparators = decimalSeparators;
+        this.categoryRules = Collections.unmodifiableList(new ArrayList<>(categoryRules));
+        this.defaultCategory = defaultCategory;
+    }
+
+    /**
+     * Reglas equivalentes a las que RuleBasedHarmonizer tiene fijas en código.
+     */
+    public static HarmonizationRules defaults() {
+        return new HarmonizationRules(
+                Arrays.asList("€", "$", "EUR"),
+                ",",
+                Arrays.asList(
+                        new CategoryRule("crm", "Sales_Revenue"),
+                        new CategoryRule("sensor", "Operational_Metric"),
+                        new CategoryRule("iot", "Operational_Metric")),
+                "General_Data");
+    }
+
+    /**
+     * Carga las reglas desde un archivo .properties en UTF-8.
+     *
+     * @throws IOException              Si el archivo no puede leerse.
+     * @throws IllegalArgumentException Si una regla de categoría está mal formada.
+     */
+    public static HarmonizationRules load(String path) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+
+        HarmonizationRules defaults = defaults();
+
+        List<String> stripTokens = new ArrayList<>();
+        String stripValue = props.getProperty("strip.tokens");
+        if (stripValue == null) {
+            stripTokens.addAll(defaults.stripTokens);
+        } else {
+            for (String token : stripValue.split(TOKEN_SEPARATOR)) {
+                if (!token.trim().isEmpty()) {
+                    stripTokens.add(token.trim());
+                }
+            }
+        }
+
+        // Reglas numeradas: se ordenan por número, no por orden de aparición en el archivo
+        TreeMap<Integer, CategoryRule> numbered = new TreeMap<>();
+        for (String key : props.stringPropertyNames()) {
+            if (!key.startsWith(CATEGORY_PREFIX) || key.equals("category.default")) {
+                continue;
+            }
+            String value = props.getProperty(key);
+            int arrow = value.indexOf(MAPPING_ARROW);
+            if (arrow <= 0) {
+                throw new IllegalArgumentException("Invalid category rule '" + key + "': expected 'keyword -> Category'");
+            }
+            try {
+                int order = Integer.parseInt(key.substring(CATEGORY_PREFIX.length()));
+                numbered.put(order, new CategoryRule(value.substring(0, arrow).trim(),
+                        value.substring(arrow + MAPPING_ARROW.length()).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid category rule key '" + key + "': expected category.<n>");
+            }
+        }
+
+        return new HarmonizationRules(
+                stripTokens,
+                props.getProperty("decimal.separators", defaults.decimalSeparators),
+                numbered.isEmpty() ? defaults.categoryRules : new ArrayList<>(numbered.values()),
+                props.getProperty("category.default", defaults.defaultCategory).trim());
+    }
+
+    public List<String> getStripTokens() {
+        return stripTokens;
+    }
+
+    public String getDecimalSeparators() {
+        return decimalSeparators;
+    }
+
+    public List<CategoryRule> getCategoryRules() {
+        return categoryRules;
+    }
+
+    public String getDefaultCategory() {
+        return defaultCategory;
+    }
+
+    /**
+     * Huella estable de 64 bits (FNV-1a) de todas las reglas: dos conjuntos
+     * de reglas iguales dan la misma huella en cualquier ejecución. Sirve para
+     * saber si una armonización guardada en disco sigue siendo válida.
+     */
+    public long fingerprint() {
+        StringBuilder canonical = new StringBuilder(256);
+        for (String token : stripTokens) {
+            canonical.append(token).append('\u0000');
+        }
+        canonical.append('\u0001').append(decimalSeparators).append('\u0001');
+        for (CategoryRule rule : categoryRules) {
+            canonical.append(rule.keyword).append(MAPPING_ARROW).append(rule.category).append('\u0000');
+        }
+        canonical.append('\u0001').append(defaultCategory);
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < canonical.length(); i++) {
+            hash ^= canonical.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Asociación palabra clave -> categoría.
+     */
+    public static final class CategoryRule {
+        private final String keyword;
+        private final String category;
+
+        public CategoryRule(String keyword, String category) {
+            this.keyword = keyword;
+            this.category = category;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+    }
+}
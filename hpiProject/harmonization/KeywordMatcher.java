@@ -0,0 +1,97 @@
+package harmonization;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Autómata Aho-Corasick sobre un conjunto de palabras clave.
+ * Encuentra en una sola pasada sobre el texto qué palabras aparecen, sin
+ * distinguir mayúsculas, y devuelve la de menor índice (mayor prioridad).
+ *
+ * Es inmutable tras la construcción y puede compartirse entre hilos.
+ */
+final class KeywordMatcher {
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    // Transiciones por nodo (solo las del trie; los fallos se siguen en match)
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final int[] failure;
+    // Mejor (menor) índice de palabra que termina en el nodo o en su cadena de fallos
+    private final int[] bestMatch;
+
+    KeywordMatcher(List<String> keywords) {
+        List<Integer> output = new ArrayList<>();
+        transitions.add(new HashMap<>());
+        output.add(NO_MATCH);
+
+        // 1. Construir el trie
+        for (int k = 0; k < keywords.size(); k++) {
+            int node = 0;
+            String keyword = keywords.get(k);
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                Integer next = transitions.get(node).get(c);
+                if (next == null) {
+                    next = transitions.size();
+                    transitions.get(node).put(c, next);
+                    transitions.add(new HashMap<>());
+                    output.add(NO_MATCH);
+                }
+                node = next;
+            }
+            output.set(node, Math.min(output.get(node), k));
+        }
+
+        // 2. Enlaces de fallo por BFS
+        int size = transitions.size();
+        failure = new int[size];
+        bestMatch = new int[size];
+        bestMatch[0] = output.get(0);
+
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : transitions.get(0).values()) {
+            failure[child] = 0;
+            bestMatch[child] = output.get(child);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(node).entrySet()) {
+                int child = edge.getValue();
+                int fallback = failure[node];
+                while (fallback != 0 && !transitions.get(fallback).containsKey(edge.getKey())) {
+                    fallback = failure[fallback];
+                }
+                Integer target = transitions.get(fallback).get(edge.getKey());
+                failure[child] = (target != null && target != child) ? target : 0;
+                bestMatch[child] = Math.min(output.get(child), bestMatch[failure[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * @return Índice de la palabra clave de mayor prioridad contenida en el
+     *         texto, o -1 si no aparece ninguna.
+     */
+    int firstMatch(CharSequence text) {
+        int node = 0;
+        int best = NO_MATCH;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            Integer next;
+            while ((next = transitions.get(node).get(c)) == null && node != 0) {
+                node = failure[node];
+            }
+            node = next == null ? 0 : next;
+            best = Math.min(best, bestMatch[node]);
+        }
+        return best == NO_MATCH ? -1 : best;
+    }
+}
@@ -9,6 +9,9 @@ import model.RawDataRecord;
  */
 public class RuleBasedHarmonizer implements IHarmonizer {
 
+    // Patrón de recuperación compilado una sola vez (antes se compilaba en cada fallo)
+    private static final java.util.regex.Pattern NUMBER_PATTERN = java.util.regex.Pattern.compile("(\\d+(\\.\\d+)?)");
+
     @Override
     public HarmonizedData harmonize(RawDataRecord rawRecord) {
         // 1. Obtener el contenido sucio
@@ -38,8 +41,7 @@ public class RuleBasedHarmonizer implements IHarmonizer {
         } catch (NumberFormatException e) {
             // Intento B: Recuperación por Regex (Buscar cualquier patrón numérico)
             try {
-                java.util.regex.Matcher matcher = java.util.regex.Pattern.compile("(\\d+(\\.\\d+)?)")
-                        .matcher(rawContent);
+                java.util.regex.Matcher matcher = NUMBER_PATTERN.matcher(rawContent);
                 if (matcher.find()) {
                     value = Double.parseDouble(matcher.group(1));
                     category = category + "_Recovered"; // Marcamos que fue recuperado
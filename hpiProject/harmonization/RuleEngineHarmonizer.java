@@ -0,0 +1,278 @@
+package harmonization;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import model.HarmonizedData;
+import model.RawDataRecord;
+
+/**
+ * Motor de armonización configurable.
+ * Las reglas (HarmonizationRules) se compilan una sola vez al construir el
+ * motor: los marcadores a eliminar se convierten en tablas de búsqueda y las
+ * palabras clave de categoría en un autómata Aho-Corasick (KeywordMatcher).
+ *
+ * La categoría de cada sourceId se calcula una vez y se guarda en una caché
+ * acotada; como los feeds tienen pocos cientos de sourceIds distintos, la
+ * detección de categoría queda fuera del camino crítico por registro.
+ *
+ * El valor se limpia en una sola pasada (como FastRuleBasedHarmonizer): los
+ * marcadores se eliminan de izquierda a derecha en el texto original y se
+ * aceptan números decimales simples con signo opcional. Lo que esa pasada no
+ * puede decidir con certeza (letras como las de exponentes, sufijos f/d,
+ * NaN/Infinity o hexadecimales, caracteres de control, o caracteres de un
+ * marcador de varios caracteres) se resuelve con la semántica exacta de las
+ * reglas: eliminar los marcadores en su orden, normalizar los separadores,
+ * quitar los espacios y Double.parseDouble. Con las reglas por defecto el
+ * resultado es el mismo que el de RuleBasedHarmonizer. Un valor que no se
+ * puede parsear pasa a la recuperación del primer número (categoría
+ * "_Recovered").
+ */
+public class RuleEngineHarmonizer implements IHarmonizer {
+
+    public static final int DEFAULT_CATEGORY_CACHE_SIZE = 4096;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final HarmonizationRules rules;
+    private final KeywordMatcher categoryMatcher;
+    private final CategoryNames[] ruleCategories;
+    private final CategoryNames defaultCategory;
+
+    // Marcadores de un solo carácter ASCII: búsqueda O(1)
+    private final boolean[] asciiStripChars = new boolean[128];
+    // Resto de marcadores (no ASCII o de varios caracteres), del más largo al más corto
+    private final String[] otherStripTokens;
+    private final String decimalSeparators;
+    // Caracteres que obligan a la semántica exacta (ver harmonizeExact)
+    private final boolean[] asciiExactChars = new boolean[128];
+    private final String otherExactChars;
+
+    private final Map<String, CategoryNames> categoryCache = new ConcurrentHashMap<>();
+    private final int categoryCacheLimit;
+
+    public RuleEngineHarmonizer(HarmonizationRules rules) {
+        this(rules, DEFAULT_CATEGORY_CACHE_SIZE);
+    }
+
+    public RuleEngineHarmonizer(HarmonizationRules rules, int categoryCacheLimit) {
+        this.rules = rules;
+        this.categoryCacheLimit = categoryCacheLimit;
+        this.decimalSeparators = rules.getDecimalSeparators();
+
+        // 1. Compilar marcadores
+        List<String> others = new ArrayList<>();
+        for (String token : rules.getStripTokens()) {
+            if (token.length() == 1 && token.charAt(0) < 128) {
+                asciiStripChars[token.charAt(0)] = true;
+            } else if (!token.isEmpty()) {
+                others.add(token);
+            }
+        }
+        others.sort(Comparator.comparingInt(String::length).reversed());
+        this.otherStripTokens = others.toArray(new String[0]);
+
+        // Letras (exponentes, sufijos, NaN, Infinity, 0x...) y caracteres de marcadores largos
+        for (char c = 'a'; c <= 'z'; c++) {
+            asciiExactChars[c] = true;
+            asciiExactChars[Character.toUpperCase(c)] = true;
+        }
+        StringBuilder otherChars = new StringBuilder();
+        for (String token : others) {
+            for (int i = 0; i < token.length(); i++) {
+                char c = token.charAt(i);
+                if (c < 128) {
+                    asciiExactChars[c] = true;
+                } else if (otherChars.indexOf(String.valueOf(c)) < 0) {
+                    otherChars.append(c);
+                }
+            }
+        }
+        this.otherExactChars = otherChars.toString();
+
+        // 2. Compilar reglas de categoría (los nombres se comparten entre reglas)
+        Map<String, CategoryNames> names = new HashMap<>();
+        List<String> keywords = new ArrayList<>();
+        List<HarmonizationRules.CategoryRule> categoryRules = rules.getCategoryRules();
+        this.ruleCategories = new CategoryNames[categoryRules.size()];
+        for (int i = 0; i < categoryRules.size(); i++) {
+            HarmonizationRules.CategoryRule rule = categoryRules.get(i);
+            keywords.add(rule.getKeyword());
+            ruleCategories[i] = names.computeIfAbsent(rule.getCategory(), CategoryNames::new);
+        }
+        this.categoryMatcher = new KeywordMatcher(keywords);
+        this.defaultCategory = names.computeIfAbsent(rules.getDefaultCategory(), CategoryNames::new);
+    }
+
+    @Override
+    public HarmonizedData harmonize(RawDataRecord rawRecord) {
+        String raw = rawRecord.getRawContent();
+
+        int start = 0;
+        int end = raw == null ? 0 : raw.length();
+        while (start < end && raw.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && raw.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start >= end) {
+            return new HarmonizedData(0.0, "Missing_Value", true);
+        }
+
+        CategoryNames category = categoryFor(rawRecord.getSourceId());
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        int kept = 0;
+        boolean seenDot = false;
+        boolean negative = false;
+        boolean parseable = true;
+
+        for (int i = start; i < end && parseable; i++) {
+            char c = raw.charAt(i);
+            int tokenLength;
+
+            if (isRegexWhitespace(c) || (c < 128 && asciiStripChars[c])) {
+                // Espacio o marcador de un carácter: se elimina
+            } else if ((tokenLength = matchStripToken(raw, i, end)) > 0) {
+                i += tokenLength - 1;
+            } else if (c >= '0' && c <= '9') {
+                if (digits < FastRuleBasedHarmonizer.MAX_FAST_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                digits++;
+                if (seenDot) {
+                    fractionDigits++;
+                }
+                kept++;
+            } else if (c == '.' || decimalSeparators.indexOf(c) >= 0) {
+                parseable = !seenDot;
+                seenDot = true;
+                kept++;
+            } else if ((c == '+' || c == '-') && kept == 0) {
+                negative = c == '-';
+                kept++;
+            } else if (c < ' ' || (c < 128 ? asciiExactChars[c] : otherExactChars.indexOf(c) >= 0)) {
+                return harmonizeExact(raw, category);
+            } else {
+                parseable = false; // Double.parseDouble nunca acepta este carácter
+            }
+        }
+
+        if (parseable && digits > 0) {
+            double value = digits <= FastRuleBasedHarmonizer.MAX_FAST_DIGITS
+                    ? FastRuleBasedHarmonizer.scale(mantissa, fractionDigits)
+                    : parseLongNumber(raw, start, end);
+            return new HarmonizedData(negative ? -value : value, category.name, true);
+        }
+
+        return recover(raw, category);
+    }
+
+    public HarmonizationRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Categoría del sourceId, consultando primero la caché. Cuando la caché
+     * alcanza su límite deja de crecer y los sourceIds nuevos se resuelven con
+     * el autómata sin almacenarse.
+     */
+    private CategoryNames categoryFor(String sourceId) {
+        CategoryNames cached = categoryCache.get(sourceId);
+        if (cached != null) {
+            return cached;
+        }
+
+        int rule = categoryMatcher.firstMatch(sourceId);
+        CategoryNames category = rule < 0 ? defaultCategory : ruleCategories[rule];
+        if (categoryCache.size() < categoryCacheLimit) {
+            categoryCache.putIfAbsent(sourceId, category);
+        }
+        return category;
+    }
+
+    /**
+     * Semántica exacta de las reglas, como RuleBasedHarmonizer: marcadores
+     * eliminados en el orden de las reglas, separadores normalizados a '.',
+     * espacios eliminados y Double.parseDouble. Solo para los valores que la
+     * pasada única no resuelve.
+     */
+    private HarmonizedData harmonizeExact(String raw, CategoryNames category) {
+        String cleaned = raw.trim();
+        for (String token : rules.getStripTokens()) {
+            if (!token.isEmpty()) {
+                cleaned = cleaned.replace(token, "");
+            }
+        }
+        for (int i = 0; i < decimalSeparators.length(); i++) {
+            cleaned = cleaned.replace(decimalSeparators.charAt(i), '.');
+        }
+        cleaned = WHITESPACE.matcher(cleaned).replaceAll("");
+        try {
+            return new HarmonizedData(Double.parseDouble(cleaned), category.name, true);
+        } catch (NumberFormatException e) {
+            return recover(raw, category);
+        }
+    }
+
+    private static HarmonizedData recover(String raw, CategoryNames category) {
+        double recovered = FastRuleBasedHarmonizer.recoverFirstNumber(raw);
+        if (Double.isNaN(recovered)) {
+            return new HarmonizedData(0.0, "Unreadable_Data", true);
+        }
+        return new HarmonizedData(recovered, category.recoveredName, true);
+    }
+
+    // Clase \s de java.util.regex: [ \t\n\x0B\f\r]
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Longitud del marcador multi-carácter que empieza en 'at', o 0
+    private int matchStripToken(String raw, int at, int end) {
+        for (String token : otherStripTokens) {
+            if (at + token.length() <= end && raw.startsWith(token, at)) {
+                return token.length();
+            }
+        }
+        return 0;
+    }
+
+    // Caso raro (> 15 dígitos): reconstruir el número limpio y delegar en el JDK
+    private double parseLongNumber(String raw, int start, int end) {
+        StringBuilder cleaned = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            int tokenLength;
+            if (c <= ' ' || (c < 128 && asciiStripChars[c]) || c == '+' || c == '-') {
+                continue;
+            } else if ((tokenLength = matchStripToken(raw, i, end)) > 0) {
+                i += tokenLength - 1;
+            } else {
+                cleaned.append(c >= '0' && c <= '9' ? c : '.');
+            }
+        }
+        return Double.parseDouble(cleaned.toString());
+    }
+
+    /**
+     * Nombre de categoría y su variante "_Recovered", precalculados una vez.
+     */
+    private static final class CategoryNames {
+        private final String name;
+        private final String recoveredName;
+
+        CategoryNames(String name) {
+            this.name = name;
+            this.recoveredName = name + "_Recovered";
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package ingestion;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import model.EventTime;
+import model.LabelDictionary;
+
+/**
+ * Tokenizador CSV que trabaja directamente sobre bytes (sin readLine ni split).
+ * Recorre el buffer una sola vez buscando separadores y saltos de línea, y solo
+ * crea Strings para las columnas que usa el pipeline: source_id (0) y
+ * raw_value (2). El timestamp (1) se convierte a epoch en ms directamente
+ * desde los bytes (EventTime), sin crear un String.
+ *
+ * Soporta campos entre comillas con comas internas ("1,200") y comillas
+ * escapadas ("").
+ *
+ * Cuenta las líneas que recorre, de modo que cada fila sale con su número de
+ * línea. Una línea con menos de tres columnas no es un registro: en lugar de
+ * descartarse en silencio se entrega entera al RejectSink (cuarentena). Las
+ * líneas en blanco se saltan.
+ *
+ * source_id tiene muy pocos valores distintos: una tabla pequeña indexada por
+ * el hash de los bytes devuelve el String ya creado sin decodificar nada, y
+ * con un LabelDictionary compartido (p. ej. entre los bloques de
+ * ParallelCsvDataLoader) todas las filas de una fuente comparten la misma
+ * instancia.
+ *
+ * No es thread-safe: cada hilo de lectura debe usar su propia instancia.
+ */
+final class CsvByteTokenizer {
+
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte NEWLINE = '\n';
+
+    private static final int SOURCE_ID_FIELD = 0;
+    private static final int TIMESTAMP_FIELD = 1;
+    private static final int RAW_VALUE_FIELD = 2;
+
+    // Tabla de source_id ya decodificados (una entrada por hash; una colisión la sustituye)
+    private static final int LABEL_SLOTS = 1024;
+
+    // Buffer reutilizable para decodificar campos sin asignar arrays por fila
+    private byte[] scratch = new byte[256];
+    private final byte[][] labelBytes = new byte[LABEL_SLOTS][];
+    private final String[] labelStrings = new String[LABEL_SLOTS];
+    private final LabelDictionary sourceIds;
+    private final RejectSink rejects;
+    private long recordCount = 0;
+    private long line; // Número de la última línea recorrida
+
+    /**
+     * @param linesBefore Líneas del archivo anteriores al primer byte que se
+     *                    parseará (0 si se empieza por la cabecera).
+     * @param rejects     Recibe las líneas mal formadas, o null para descartarlas.
+     * @param sourceIds   Diccionario que da la instancia compartida de cada
+     *                    source_id (LabelDictionary.canonical), o null.
+     */
+    CsvByteTokenizer(long linesBefore, RejectSink rejects, LabelDictionary sourceIds) {
+        this.line = linesBefore;
+        this.rejects = rejects;
+        this.sourceIds = sourceIds;
+    }
+
+    /**
+     * Parsea las líneas completas contenidas en [from, limit).
+     *
+     * @param buf        Buffer de origen (se usa acceso absoluto, no se modifica su posición).
+     * @param from       Offset de inicio (debe coincidir con el inicio de una línea).
+     * @param limit      Offset final (exclusivo).
+     * @param endOfInput true si limit es el final real de los datos; en caso
+     *                   contrario la última línea incompleta no se procesa.
+     * @param sink       Receptor de las columnas de cada fila.
+     * @return Offset justo después de la última línea procesada.
+     */
+    int parseFields(ByteBuffer buf, int from, int limit, boolean endOfInput, RowSink sink) {
+        int pos = from;
+
+        while (pos < limit) {
+            int lineStart = pos;
+            int field = 0;
+            int fieldStart = pos;
+            boolean inQuotes = false;
+            boolean lineComplete = false;
+
+            int idStart = -1, idEnd = -1, timeStart = -1, timeEnd = -1, valueStart = -1, valueEnd = -1;
+
+            while (pos < limit) {
+                byte b = buf.get(pos);
+
+                if (inQuotes) {
+                    if (b == QUOTE) {
+                        if (pos + 1 >= limit && !endOfInput) {
+                            break; // No sabemos si es "" o cierre: esperar al siguiente bloque
+                        }
+                        if (pos + 1 < limit && buf.get(pos + 1) == QUOTE) {
+                            pos += 2; // Comilla escapada
+                            continue;
+                        }
+                        inQuotes = false;
+                    }
+                    pos++;
+                    continue;
+                }
+
+                if (b == QUOTE && isBlank(buf, fieldStart, pos)) {
+                    inQuotes = true;
+                    pos++;
+                    continue;
+                }
+
+                if (b == COMMA || b == NEWLINE) {
+                    if (field == SOURCE_ID_FIELD) {
+                        idStart = fieldStart;
+                        idEnd = pos;
+                    } else if (field == TIMESTAMP_FIELD) {
+                        timeStart = fieldStart;
+                        timeEnd = pos;
+                    } else if (field == RAW_VALUE_FIELD) {
+                        valueStart = fieldStart;
+                        valueEnd = pos;
+                    }
+                    pos++;
+                    if (b == NEWLINE) {
+                        lineComplete = true;
+                        break;
+                    }
+                    field++;
+                    fieldStart = pos;
+                    continue;
+                }
+                pos++;
+            }
+
+            if (!lineComplete) {
+                if (!endOfInput) {
+                    return lineStart; // Línea incompleta: la procesa el siguiente bloque
+                }
+                // Última línea del archivo sin salto de línea final
+                if (field == SOURCE_ID_FIELD) {
+                    idStart = fieldStart;
+                    idEnd = pos;
+                } else if (field == RAW_VALUE_FIELD) {
+                    valueStart = fieldStart;
+                    valueEnd = pos;
+                }
+            }
+
+            line++;
+            // Igual que el cargador clásico: se requieren al menos 3 columnas
+            if (field >= RAW_VALUE_FIELD) {
+                String sourceId = decodeLabel(buf, idStart, idEnd);
+                String rawValue = decode(buf, valueStart, valueEnd);
+                sink.accept(sourceId, rawValue, EventTime.parse(buf, timeStart, timeEnd), line);
+                recordCount++;
+            } else if (rejects != null && !isBlank(buf, lineStart, pos)) {
+                rejects.reject(line, decode(buf, lineStart, lineComplete ? pos - 1 : pos));
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Salta la cabecera del CSV, que cuenta como línea 1.
+     *
+     * @return Offset de la primera línea de datos, o -1 si la cabecera no
+     *         termina antes de limit.
+     */
+    int skipHeader(ByteBuffer buf, int from, int limit) {
+        int next = skipLine(buf, from, limit);
+        if (next >= 0) {
+            line++;
+        }
+        return next;
+    }
+
+    /**
+     * Devuelve el offset justo después del primer salto de línea a partir de
+     * from, o -1 si no hay ninguno antes de limit.
+     */
+    static int skipLine(ByteBuffer buf, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buf.get(i) == NEWLINE) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Número de la última línea recorrida (o líneas recorridas, contando las
+     * anteriores al primer bloque).
+     */
+    long getLine() {
+        return line;
+    }
+
+    // Igual que decode, pero reutiliza el String de los mismos bytes si ya apareció
+    private String decodeLabel(ByteBuffer buf, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buf.get(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (LABEL_SLOTS - 1);
+        byte[] cached = labelBytes[slot];
+        if (cached != null && sameBytes(cached, buf, start, end)) {
+            return labelStrings[slot];
+        }
+
+        String label = decode(buf, start, end);
+        if (sourceIds != null) {
+            label = sourceIds.canonical(label);
+        }
+        byte[] key = new byte[end - start];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = buf.get(start + i);
+        }
+        labelBytes[slot] = key;
+        labelStrings[slot] = label;
+        return label;
+    }
+
+    private static boolean sameBytes(byte[] cached, ByteBuffer buf, int start, int end) {
+        if (cached.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < cached.length; i++) {
+            if (cached[i] != buf.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Equivalente a String.trim() + eliminación de comillas, pero sobre bytes
+    private String decode(ByteBuffer buf, int start, int end) {
+        while (start < end && (buf.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buf.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+
+        boolean quoted = end - start >= 2 && buf.get(start) == QUOTE && buf.get(end - 1) == QUOTE;
+        if (quoted) {
+            start++;
+            end--;
+        }
+
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            scratch[n++] = b;
+            if (quoted && b == QUOTE && i + 1 < end && buf.get(i + 1) == QUOTE) {
+                i++; // "" -> "
+            }
+        }
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Receptor de las columnas source_id, raw_value y timestamp (epoch en ms,
+     * o EventTime.NONE si es ilegible) de cada fila, con su número de línea.
+     */
+    interface RowSink {
+        void accept(String sourceId, String rawValue, long eventEpochMillis, long line);
+    }
+
+    /**
+     * Receptor de las líneas que no llegan a ser un registro (texto sin el
+     * salto de línea).
+     */
+    interface RejectSink {
+        void reject(long line, String content);
+    }
+
+    /**
+     * RejectSink que pone en cuarentena las líneas mal formadas de un
+     * archivo, o null si no hay cola (se descartan como antes).
+     */
+    static RejectSink quarantine(DeadLetterQueue deadLetters, String file) {
+        if (deadLetters == null) {
+            return null;
+        }
+        return (line, content) -> deadLetters.quarantine(QuarantineReason.MALFORMED_ROW, file, line, null, content);
+    }
+
+    private static boolean isBlank(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if ((buf.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
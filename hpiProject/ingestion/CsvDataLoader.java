@@ -1,18 +1,24 @@
 package ingestion;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import metrics.MetricsRegistry;
+import metrics.Stage;
+import model.EventTime;
+import model.LabelDictionary;
 import model.RawDataRecord;
 
 /**
  * Implementación concreta para cargar datos desde archivos CSV.
  * Simula los "Automated connectors" descritos en la arquitectura del sistema.
  */
-public class CsvDataLoader implements IDataLoader {
+public class CsvDataLoader implements IStreamingDataLoader {
 
     @Override
     public List<RawDataRecord> loadData(String filePath) {
@@ -20,12 +26,41 @@ public class CsvDataLoader implements IDataLoader {
 
         System.out.println("[Ingestion] Starting file read: " + filePath);
 
+        try {
+            streamData(filePath, records::add);
+            System.out.println("[Ingestion] Read complete. Records loaded: " + records.size());
+
+        } catch (IOException e) {
+            System.err.println("[Ingestion Error] Could not read file: " + e.getMessage());
+        }
+
+        return records;
+    }
+
+    @Override
+    public long streamData(String filePath, Consumer<RawDataRecord> sink) throws IOException {
+        return streamData(filePath, sink, null);
+    }
+
+    @Override
+    public long streamData(String filePath, Consumer<RawDataRecord> sink, DeadLetterQueue deadLetters)
+            throws IOException {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long started = metrics.startTimer();
+        long delivered = 0;
+        long bytesRead = 0;
+
         // Try-with-resources para asegurar que el archivo se cierra automáticamente
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+        try (FileInputStream in = new FileInputStream(filePath);
+                BufferedReader br = new BufferedReader(new InputStreamReader(in))) {
             String line;
+            long lineNumber = 0;
             boolean isHeader = true;
+            // Una sola instancia de cada sourceId para todos los registros de la lectura
+            LabelDictionary sourceIds = new LabelDictionary();
 
             while ((line = br.readLine()) != null) {
+                lineNumber++;
                 // Omitir la cabecera del CSV
                 if (isHeader) {
                     isHeader = false;
@@ -38,23 +73,27 @@ public class CsvDataLoader implements IDataLoader {
                 String[] values = line.split(",");
 
                 if (values.length >= 3) {
-                    String sourceId = values[0].trim();
+                    String sourceId = sourceIds.canonical(values[0].trim());
                     // El valor crudo está en la posición 2 (índice 2)
                     // Nota: Si el CSV tiene comas dentro del valor (ej: "1,200"), este split simple
                     // fallaría,
                     // pero asumimos el formato del mock_data.csv para este ejercicio.
                     String rawValue = values[2].trim();
 
-                    // Crear el registro inmutable
-                    records.add(new RawDataRecord(sourceId, rawValue));
+                    // Entregar el registro inmutable sin retenerlo
+                    sink.accept(new RawDataRecord(sourceId, rawValue, EventTime.parse(values[1]), filePath,
+                            lineNumber));
+                    delivered++;
+                } else if (deadLetters != null && !line.trim().isEmpty()) {
+                    deadLetters.quarantine(QuarantineReason.MALFORMED_ROW, filePath, lineNumber, null, line.trim());
                 }
             }
-            System.out.println("[Ingestion] Read complete. Records loaded: " + records.size());
-
-        } catch (IOException e) {
-            System.err.println("[Ingestion Error] Could not read file: " + e.getMessage());
+            // Al llegar al final, el decodificador ha consumido el archivo entero: bytes
+            // exactos, sea cual sea la codificación o el salto de línea (\n o \r\n)
+            bytesRead = in.getChannel().position();
         }
 
-        return records;
+        metrics.record(Stage.INGESTION, started, delivered, bytesRead);
+        return delivered;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,253 @@
+package ingestion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import model.RawDataRecord;
+
+/**
+ * Vigila archivos CSV o directorios de entrega con un WatchService y entrega
+ * al sink cada línea completa nueva en cuanto aparece (equivalente a
+ * "tail -F" sobre varios archivos).
+ *
+ * - Archivo: se vigila su directorio y solo se atienden eventos de ese archivo.
+ * - Directorio: se atienden todos sus *.csv, también los que se creen después.
+ *
+ * La posición de cada archivo la lleva un IncrementalCsvDataLoader, así que
+ * una rotación o un truncado hacen que el archivo nuevo se lea desde el
+ * principio. Como algunos sistemas de archivos no emiten eventos (o los
+ * agrupan con retraso), si no llega ninguno en rescanIntervalMs se revisan
+ * todos los archivos igualmente; revisar uno sin cambios solo cuesta un stat.
+ *
+ * El sink se llama desde el hilo de run(). Si bloquea (back-pressure), la
+ * lectura se detiene y las líneas pendientes esperan en disco.
+ *
+ * Con una DeadLetterQueue, las líneas mal formadas van a cuarentena.
+ */
+public class CsvTailWatcher implements Closeable {
+
+    public static final long DEFAULT_RESCAN_INTERVAL_MS = 1000;
+
+    private final IncrementalCsvDataLoader loader;
+    private final List<Path> targets = new ArrayList<>();
+    private final boolean fromBeginning;
+    private final long rescanIntervalMs;
+    private final DeadLetterQueue deadLetters;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final Set<Path> watchedFiles = new LinkedHashSet<>();
+    private final Set<Path> tracked = new LinkedHashSet<>();
+    private final AtomicLong linesRead = new AtomicLong();
+    private volatile boolean running = true;
+
+    public CsvTailWatcher(List<String> paths, boolean fromBeginning) throws IOException {
+        this(paths, fromBeginning, null);
+    }
+
+    /**
+     * @param deadLetters Cola de cuarentena de las líneas mal formadas (null = se descartan).
+     */
+    public CsvTailWatcher(List<String> paths, boolean fromBeginning, DeadLetterQueue deadLetters)
+            throws IOException {
+        this(new IncrementalCsvDataLoader(), paths, fromBeginning, DEFAULT_RESCAN_INTERVAL_MS, deadLetters);
+    }
+
+    public CsvTailWatcher(IncrementalCsvDataLoader loader, List<String> paths, boolean fromBeginning,
+            long rescanIntervalMs) throws IOException {
+        this(loader, paths, fromBeginning, rescanIntervalMs, null);
+    }
+
+    /**
+     * @param loader           Cargador que guarda la posición de cada archivo.
+     * @param paths            Archivos CSV o directorios a vigilar.
+     * @param fromBeginning    Si es true, las filas que ya existen también se
+     *                         entregan; si no, solo las que lleguen a partir de ahora.
+     * @param rescanIntervalMs Revisión completa si no llega ningún evento en este tiempo.
+     * @param deadLetters      Cola de cuarentena de las líneas mal formadas (null = se descartan).
+     * @throws IOException Si alguna ruta no existe o no se puede vigilar.
+     */
+    public CsvTailWatcher(IncrementalCsvDataLoader loader, List<String> paths, boolean fromBeginning,
+            long rescanIntervalMs, DeadLetterQueue deadLetters) throws IOException {
+        if (paths.isEmpty() || rescanIntervalMs <= 0) {
+            throw new IllegalArgumentException("At least one path and a positive rescan interval are required");
+        }
+        this.loader = loader;
+        this.fromBeginning = fromBeginning;
+        this.rescanIntervalMs = rescanIntervalMs;
+        this.deadLetters = deadLetters;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        try {
+            for (String path : paths) {
+                Path target = Paths.get(path).toAbsolutePath().normalize();
+                if (Files.isDirectory(target)) {
+                    register(target);
+                } else {
+                    Path parent = target.getParent();
+                    if (parent == null || !Files.isDirectory(parent)) {
+                        throw new NoSuchFileException(path, null, "parent directory does not exist");
+                    }
+                    register(parent);
+                    watchedFiles.add(target);
+                }
+                targets.add(target);
+            }
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Vigila hasta que se llame a close() (o se interrumpa el hilo) y entrega
+     * las líneas nuevas al sink.
+     *
+     * @throws IOException Si falla la lectura inicial de los archivos.
+     */
+    public void run(Consumer<RawDataRecord> sink) throws IOException {
+        for (Path file : currentFiles()) {
+            if (fromBeginning) {
+                tail(file, sink);
+            } else {
+                loader.seekToEnd(file.toString());
+                tracked.add(file);
+            }
+        }
+        System.out.println("[Ingestion] Watching " + targets.size() + " path(s), " + tracked.size()
+                + " file(s) " + (fromBeginning ? "from the beginning" : "from the end"));
+
+        try {
+            while (running) {
+                WatchKey key = watchService.poll(rescanIntervalMs, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    rescan(sink);
+                    continue;
+                }
+
+                // Varios eventos del mismo archivo se atienden con una sola lectura
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+                do {
+                    Path directory = watchedDirectories.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else if (directory != null) {
+                            Path file = directory.resolve((Path) event.context());
+                            if (isWatched(file)) {
+                                changed.add(file);
+                            }
+                        }
+                    }
+                    key.reset();
+                } while ((key = watchService.poll()) != null);
+
+                if (overflow) {
+                    rescan(sink);
+                } else {
+                    for (Path file : changed) {
+                        tail(file, sink);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // close() desde otro hilo: fin normal
+        }
+    }
+
+    /**
+     * Líneas entregadas desde que empezó run().
+     */
+    public long getLinesRead() {
+        return linesRead.get();
+    }
+
+    /**
+     * Detiene run() (puede llamarse desde otro hilo).
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watchService.close();
+    }
+
+    private void register(Path directory) throws IOException {
+        if (!watchedDirectories.containsValue(directory)) {
+            WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.put(key, directory);
+        }
+    }
+
+    private boolean isWatched(Path file) {
+        return watchedFiles.contains(file)
+                || (targets.contains(file.getParent()) && MultiSourceDataLoader.isCsvFile(file));
+    }
+
+    // Archivos existentes ahora mismo (los explícitos que aún no existen se esperan)
+    private List<Path> currentFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path target : targets) {
+            if (watchedFiles.contains(target)) {
+                if (Files.isRegularFile(target)) {
+                    files.add(target);
+                }
+            } else if (Files.isDirectory(target)) {
+                for (String file : MultiSourceDataLoader.listCsvFiles(target)) {
+                    files.add(Paths.get(file));
+                }
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private void rescan(Consumer<RawDataRecord> sink) throws IOException {
+        Set<Path> files = new LinkedHashSet<>(currentFiles());
+        files.addAll(tracked); // Los que desaparecieron se dan de baja en tail()
+        for (Path file : files) {
+            tail(file, sink);
+        }
+    }
+
+    private void tail(Path file, Consumer<RawDataRecord> sink) {
+        String path = file.toString();
+        if (!Files.isRegularFile(file)) {
+            if (tracked.remove(file)) {
+                loader.reset(path); // Borrado o movido: si vuelve a aparecer se lee entero
+            }
+            return;
+        }
+        tracked.add(file);
+        try {
+            linesRead.addAndGet(loader.tail(path, sink, deadLetters));
+        } catch (NoSuchFileException e) {
+            tracked.remove(file);
+            loader.reset(path);
+        } catch (IOException e) {
+            // Un archivo ilegible no detiene al resto; se reintenta en el siguiente evento
+            System.err.println("[Ingestion Error] " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package ingestion;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+import model.RawDataRecord;
+
+/**
+ * Cuarentena de una ejecución: registros que no se pueden analizar (líneas
+ * mal formadas, valores vacíos o ilegibles) con su motivo y su posición en
+ * la fuente, en un archivo CSV aparte:
+ *
+ * <pre>
+ * reason,file,line,source_id,raw_value
+ * unreadable_value,mock_data.csv,5,ERP_Log_System,SYSTEM_OK
+ * malformed_row,mock_data.csv,12,,"IoT_Sensor_Err,2024-03-01T09:45:00"
+ * </pre>
+ *
+ * En una línea mal formada raw_value es la línea entera. file queda vacío y
+ * line es 0 cuando no se conocen (p. ej. registros creados en memoria).
+ *
+ * El archivo se crea con la primera entrada (una ejecución limpia no deja
+ * archivo) y se escribe con un BufferedWriter. Los workers del pipeline
+ * pueden llamar a quarantine() a la vez; los registros en cuarentena son la
+ * excepción, así que basta con un monitor. Si la escritura falla se deja de
+ * escribir, los contadores siguen y el error sale en close().
+ */
+public class DeadLetterQueue implements Closeable {
+
+    public static final String CSV_HEADER = "reason,file,line,source_id,raw_value";
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final Path file;
+    private final long[] counts = new long[QuarantineReason.values().length];
+    private BufferedWriter out;
+    private IOException failure;
+    private boolean closed = false;
+
+    /**
+     * @param file Archivo de cuarentena (se sobrescribe si ya existe).
+     */
+    public DeadLetterQueue(Path file) {
+        this.file = Objects.requireNonNull(file);
+    }
+
+    /**
+     * Nombre por defecto: Dead_Letters_&lt;fecha&gt;.csv.
+     */
+    public static String defaultFileName() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        return "Dead_Letters_" + timestamp + ".csv";
+    }
+
+    /**
+     * Pone en cuarentena un registro ya leído.
+     */
+    public void quarantine(QuarantineReason reason, RawDataRecord record) {
+        quarantine(reason, record.getSourceFile(), record.getSourceLine(), record.getSourceId(),
+                record.getRawContent());
+    }
+
+    /**
+     * @param sourceFile Archivo de origen, o null si no se conoce.
+     * @param line       Línea del archivo (1 = cabecera), o RawDataRecord.UNKNOWN_LINE.
+     */
+    public synchronized void quarantine(QuarantineReason reason, String sourceFile, long line, String sourceId,
+            String rawValue) {
+        if (closed) {
+            throw new IllegalStateException("Dead-letter queue already closed");
+        }
+        counts[reason.ordinal()]++;
+        if (failure != null) {
+            return;
+        }
+        try {
+            if (out == null) {
+                out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+                        BUFFER_CHARS);
+                out.write(CSV_HEADER);
+                out.write('\n');
+            }
+            StringBuilder row = new StringBuilder(96);
+            row.append(reason.getLabel()).append(',').append(field(sourceFile)).append(',')
+                    .append(line == RawDataRecord.UNKNOWN_LINE ? "" : Long.toString(line)).append(',')
+                    .append(field(sourceId)).append(',').append(field(rawValue)).append('\n');
+            out.write(row.toString());
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Vuelca al archivo las entradas pendientes (p. ej. en modo streaming).
+     */
+    public synchronized void flush() throws IOException {
+        if (out != null && failure == null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Registros en cuarentena por este motivo.
+     */
+    public synchronized long getCount(QuarantineReason reason) {
+        return counts[reason.ordinal()];
+    }
+
+    /**
+     * Registros en cuarentena por cualquier motivo.
+     */
+    public synchronized long getTotal() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Cierra el archivo (si se llegó a crear).
+     *
+     * @throws IOException Si alguna escritura falló.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Resumen por motivo, p. ej. "quarantined: 7 records (missing_value 3,
+     * unreadable_value 4) -> Dead_Letters_20240301_120000.csv".
+     */
+    @Override
+    public synchronized String toString() {
+        long total = getTotal();
+        if (total == 0) {
+            return "quarantined: 0 records";
+        }
+        StringBuilder summary = new StringBuilder("quarantined: ").append(total).append(" records (");
+        boolean first = true;
+        for (QuarantineReason reason : QuarantineReason.values()) {
+            if (counts[reason.ordinal()] > 0) {
+                summary.append(first ? "" : ", ").append(reason.getLabel()).append(' ')
+                        .append(counts[reason.ordinal()]);
+                first = false;
+            }
+        }
+        summary.append(") -> ").append(file);
+        if (failure != null) {
+            summary.append(" [write failed: ").append(failure.getMessage()).append(']');
+        }
+        return summary.toString();
+    }
+
+    // Entre comillas solo si contiene separador, comillas o salto de línea
+    private static String field(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+}
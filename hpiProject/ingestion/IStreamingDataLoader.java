@@ -0,0 +1,50 @@
+package ingestion;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import model.RawDataRecord;
+import model.RecordStore;
+
+/**
+ * Variante en streaming del contrato de ingesta.
+ * En lugar de devolver una lista completa, empuja cada registro a un consumidor
+ * (sink) a medida que se lee, de modo que la memoria usada no depende del
+ * tamaño del archivo.
+ */
+public interface IStreamingDataLoader extends IDataLoader {
+    /**
+     * Lee la fuente fila a fila y entrega cada registro al sink.
+     *
+     * @param sourcePath Ruta o identificador de la fuente.
+     * @param sink       Consumidor que recibe cada registro en orden de lectura.
+     * @return Número de registros entregados al sink.
+     * @throws IOException Si la fuente no puede leerse.
+     */
+    long streamData(String sourcePath, Consumer<RawDataRecord> sink) throws IOException;
+
+    /**
+     * Igual que streamData(sourcePath, sink), pero las filas que no llegan a
+     * ser un registro (menos de tres columnas) van a la cola de cuarentena
+     * con su línea en lugar de descartarse en silencio. Por defecto la cola
+     * se ignora; los cargadores CSV lo sobrescriben.
+     *
+     * @param deadLetters Cola de cuarentena, o null.
+     */
+    default long streamData(String sourcePath, Consumer<RawDataRecord> sink, DeadLetterQueue deadLetters)
+            throws IOException {
+        return streamData(sourcePath, sink);
+    }
+
+    /**
+     * Carga la fuente en un almacén columnar. Por defecto pasa por
+     * streamData; los cargadores que puedan escribir las columnas
+     * directamente lo sobrescriben.
+     *
+     * @return Número de filas añadidas al almacén.
+     * @throws IOException Si la fuente no puede leerse.
+     */
+    default long loadInto(String sourcePath, RecordStore store) throws IOException {
+        return streamData(sourcePath, store::append);
+    }
+}
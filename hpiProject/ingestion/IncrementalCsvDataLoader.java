@@ -0,0 +1,486 @@
+package ingestion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import model.LabelDictionary;
+import model.RawDataRecord;
+import model.RecordStore;
+
+/**
+ * Carga incremental de CSV a los que la fuente solo añade filas.
+ *
+ * Por cada archivo se guarda un punto de control: offset de la última línea
+ * completa leída, líneas leídas hasta ahí (para numerar las filas nuevas),
+ * identidad del archivo (fileKey, p. ej. el inodo) y un CRC de
+ * los primeros bytes. En cada refresh() solo se leen los bytes añadidos desde
+ * entonces, de modo que el coste es O(filas nuevas) y no O(total).
+ *
+ * Se hace una recarga completa cuando:
+ * - no hay punto de control (primera carga),
+ * - el archivo fue rotado (cambió su fileKey),
+ * - el archivo fue truncado (es más pequeño que el offset guardado),
+ * - el inicio del archivo cambió (reescrito en el sitio).
+ *
+ * Una última línea sin salto de línea se considera a medio escribir y se lee
+ * en el siguiente refresh().
+ *
+ * tail() aplica las mismas reglas pero entrega las filas nuevas a un sink en
+ * lugar de a un RecordStore (lo usa CsvTailWatcher en modo streaming).
+ *
+ * Con una DeadLetterQueue, las líneas de menos de tres columnas van a
+ * cuarentena con su número de línea en el archivo.
+ */
+public class IncrementalCsvDataLoader implements IStreamingDataLoader {
+
+    // Bytes del inicio del archivo usados para detectar reescrituras
+    private static final int FINGERPRINT_BYTES = 4096;
+
+    private final MappedCsvDataLoader reader;
+    private final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+    // sourceIds compartidos por todas las llamadas a tail() (acotado por CANONICAL_LIMIT)
+    private final LabelDictionary tailSourceIds = new LabelDictionary();
+
+    public IncrementalCsvDataLoader() {
+        this(new MappedCsvDataLoader());
+    }
+
+    public IncrementalCsvDataLoader(MappedCsvDataLoader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Lectura completa sin punto de control (contrato clásico).
+     */
+    @Override
+    public List<RawDataRecord> loadData(String sourcePath) {
+        return reader.loadData(sourcePath);
+    }
+
+    @Override
+    public long streamData(String sourcePath, Consumer<RawDataRecord> sink) throws IOException {
+        return reader.streamData(sourcePath, sink);
+    }
+
+    @Override
+    public long streamData(String sourcePath, Consumer<RawDataRecord> sink, DeadLetterQueue deadLetters)
+            throws IOException {
+        return reader.streamData(sourcePath, sink, deadLetters);
+    }
+
+    /**
+     * Carga completa en el almacén indicado y registra el punto de control.
+     */
+    @Override
+    public long loadInto(String sourcePath, RecordStore store) throws IOException {
+        checkpoints.remove(key(sourcePath));
+        return refresh(sourcePath, store, () -> store, null).getRowsAdded();
+    }
+
+    /**
+     * Añade al almacén las filas nuevas desde el último refresh(), o lo
+     * recarga desde cero si el archivo fue rotado o truncado.
+     *
+     * @param store Almacén con las filas ya cargadas de esta fuente (null = primera carga).
+     * @return Resultado con el almacén a usar a partir de ahora (uno nuevo si
+     *         hubo recarga completa) y las filas añadidas.
+     * @throws IOException Si el archivo no puede leerse.
+     */
+    public RefreshResult refresh(String sourcePath, RecordStore store) throws IOException {
+        return refresh(sourcePath, store, null);
+    }
+
+    /**
+     * Igual que refresh(sourcePath, store), pero las líneas mal formadas
+     * leídas van a la cola de cuarentena.
+     *
+     * @param deadLetters Cola de cuarentena (null = se descartan).
+     */
+    public RefreshResult refresh(String sourcePath, RecordStore store, DeadLetterQueue deadLetters)
+            throws IOException {
+        return refresh(sourcePath, store, RecordStore::new, deadLetters);
+    }
+
+    private RefreshResult refresh(String sourcePath, RecordStore store, Supplier<RecordStore> fullReloadTarget,
+            DeadLetterQueue deadLetters) throws IOException {
+        StoreTarget target = new StoreTarget(store, fullReloadTarget);
+        Scan scan = advance(sourcePath, store == null, target, deadLetters);
+
+        int rowsAdded = target.store.size() - target.firstNewRow;
+        RefreshResult.Mode mode = scan.fullReloadReason != null ? RefreshResult.Mode.FULL
+                : rowsAdded > 0 ? RefreshResult.Mode.INCREMENTAL : RefreshResult.Mode.UNCHANGED;
+        return new RefreshResult(mode, target.store, target.firstNewRow, rowsAdded, scan.from, scan.to, scan.lines,
+                scan.fullReloadReason);
+    }
+
+    /**
+     * Entrega al sink las filas completas añadidas desde la última lectura
+     * (modo tail). Si el archivo fue rotado, truncado o reescrito, o no tenía
+     * punto de control, se entrega desde el principio.
+     *
+     * @return Filas entregadas.
+     * @throws IOException Si el archivo no puede leerse.
+     */
+    public long tail(String sourcePath, Consumer<RawDataRecord> sink) throws IOException {
+        return tail(sourcePath, sink, null);
+    }
+
+    /**
+     * Igual que tail(sourcePath, sink), pero las líneas mal formadas van a la
+     * cola de cuarentena.
+     *
+     * @param deadLetters Cola de cuarentena (null = se descartan).
+     */
+    public long tail(String sourcePath, Consumer<RawDataRecord> sink, DeadLetterQueue deadLetters)
+            throws IOException {
+        long[] rows = new long[1];
+        advance(sourcePath, false, new RowTarget() {
+            @Override
+            public CsvByteTokenizer.RowSink open(boolean fullReload) {
+                return (sourceId, rawValue, eventMillis, line) -> {
+                    sink.accept(new RawDataRecord(sourceId, rawValue, eventMillis, sourcePath, line));
+                    rows[0]++;
+                };
+            }
+
+            @Override
+            public LabelDictionary sourceIds() {
+                return tailSourceIds;
+            }
+        }, deadLetters);
+        return rows[0];
+    }
+
+    /**
+     * Sitúa el punto de control al final de la última línea completa, sin leer
+     * el contenido (un tail() posterior solo verá las líneas que lleguen después).
+     *
+     * @return Offset del punto de control.
+     * @throws IOException Si el archivo no puede leerse.
+     */
+    public long seekToEnd(String sourcePath) throws IOException {
+        Path path = Paths.get(sourcePath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long offset = endOfLastLine(channel, channel.size());
+            checkpoints.put(key(sourcePath), checkpoint(path, channel, offset, countLines(channel, offset)));
+            return offset;
+        }
+    }
+
+    /**
+     * Registra como punto de control un offset ya leído por otro medio (p. ej.
+     * un RecordStoreSnapshot de este mismo contenido): el siguiente refresh()
+     * solo leerá lo añadido a partir de ahí.
+     *
+     * @param lines Líneas del archivo antes de offset, cabecera incluida
+     *              (numeración de las filas siguientes).
+     * @throws IOException Si el archivo no puede leerse.
+     */
+    public void resume(String sourcePath, long offset, long lines) throws IOException {
+        Path path = Paths.get(sourcePath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (offset < 0 || offset > channel.size()) {
+                throw new IllegalArgumentException("Offset " + offset + " out of range [0, " + channel.size() + "]");
+            }
+            if (lines < 0) {
+                throw new IllegalArgumentException("Negative line count: " + lines);
+            }
+            checkpoints.put(key(sourcePath), checkpoint(path, channel, offset, lines));
+        }
+    }
+
+    /**
+     * Lee desde el punto de control (o desde el inicio si hay que recargar)
+     * hasta la última línea completa y avanza el punto de control.
+     */
+    private Scan advance(String sourcePath, boolean forceFull, RowTarget target, DeadLetterQueue deadLetters)
+            throws IOException {
+        String key = key(sourcePath);
+        Path path = Paths.get(sourcePath);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Object fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            Checkpoint previous = checkpoints.get(key);
+
+            String fullReloadReason = null;
+            if (forceFull || previous == null) {
+                fullReloadReason = "first load";
+            } else if (previous.fileKey != null && !previous.fileKey.equals(fileKey)) {
+                fullReloadReason = "file rotated";
+            } else if (size < previous.offset) {
+                fullReloadReason = "file truncated (" + size + " < " + previous.offset + " bytes)";
+            } else if (fingerprint(channel, previous.fingerprintLength) != previous.fingerprint) {
+                fullReloadReason = "file rewritten";
+            }
+
+            long from = fullReloadReason != null ? 0 : previous.offset;
+            long linesBefore = fullReloadReason != null ? 0 : previous.lines;
+            if (fullReloadReason == null && from == size) {
+                return new Scan(null, from, from, linesBefore); // Nada nuevo: ni se abre el tokenizador
+            }
+
+            CsvByteTokenizer.RowSink sink = target.open(fullReloadReason != null);
+            CsvByteTokenizer tokenizer = new CsvByteTokenizer(linesBefore,
+                    CsvByteTokenizer.quarantine(deadLetters, sourcePath), target.sourceIds());
+            long offset = reader.scan(channel, from, size, true, tokenizer, sink);
+            checkpoints.put(key, checkpoint(fileKey, channel, offset, tokenizer.getLine()));
+            return new Scan(fullReloadReason, from, offset, tokenizer.getLine());
+        }
+    }
+
+    private static Checkpoint checkpoint(Path path, FileChannel channel, long offset, long lines)
+            throws IOException {
+        return checkpoint(Files.readAttributes(path, BasicFileAttributes.class).fileKey(), channel, offset, lines);
+    }
+
+    private static Checkpoint checkpoint(Object fileKey, FileChannel channel, long offset, long lines)
+            throws IOException {
+        int fingerprintLength = (int) Math.min(offset, FINGERPRINT_BYTES);
+        return new Checkpoint(fileKey, offset, lines, fingerprint(channel, fingerprintLength), fingerprintLength);
+    }
+
+    // Saltos de línea en [0, end): líneas completas antes de end
+    private static long countLines(FileChannel channel, long end) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(64 * 1024);
+        long lines = 0;
+        long position = 0;
+        while (position < end) {
+            block.clear().limit((int) Math.min(block.capacity(), end - position));
+            int read = channel.read(block, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n') {
+                    lines++;
+                }
+            }
+            position += read;
+        }
+        return lines;
+    }
+
+    // Offset tras el último '\n' del archivo (0 si aún no hay ninguna línea completa)
+    private static long endOfLastLine(FileChannel channel, long size) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(FINGERPRINT_BYTES);
+        long end = size;
+        while (end > 0) {
+            long start = Math.max(0, end - block.capacity());
+            block.clear().limit((int) (end - start));
+            while (block.hasRemaining()) {
+                if (channel.read(block, start + block.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = block.position() - 1; i >= 0; i--) {
+                if (block.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * Olvida el punto de control de una fuente (el siguiente refresh será completo).
+     */
+    public void reset(String sourcePath) {
+        checkpoints.remove(key(sourcePath));
+    }
+
+    private static String key(String sourcePath) {
+        return Paths.get(sourcePath).toAbsolutePath().normalize().toString();
+    }
+
+    private static long fingerprint(FileChannel channel, int length) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(length);
+        while (head.hasRemaining()) {
+            if (channel.read(head, head.position()) < 0) {
+                break; // El archivo es más corto que el prefijo guardado
+            }
+        }
+        CRC32 crc = new CRC32();
+        head.flip();
+        crc.update(head);
+        return crc.getValue() ^ ((long) head.limit() << 32);
+    }
+
+    /**
+     * Posición leída de un archivo.
+     */
+    private static final class Checkpoint {
+        private final Object fileKey;
+        private final long offset;
+        private final long lines; // Líneas antes de offset, cabecera incluida
+        private final long fingerprint;
+        private final int fingerprintLength;
+
+        Checkpoint(Object fileKey, long offset, long lines, long fingerprint, int fingerprintLength) {
+            this.fileKey = fileKey;
+            this.offset = offset;
+            this.lines = lines;
+            this.fingerprint = fingerprint;
+            this.fingerprintLength = fingerprintLength;
+        }
+    }
+
+    /**
+     * Destino de las filas leídas; se decide cuando se sabe si hay recarga completa.
+     */
+    private interface RowTarget {
+        CsvByteTokenizer.RowSink open(boolean fullReload);
+
+        // Diccionario con el que se canonicalizan los sourceIds; se pide tras open()
+        LabelDictionary sourceIds();
+    }
+
+    /**
+     * Destino de refresh(): el almacén existente o uno nuevo si se recarga todo.
+     */
+    private static final class StoreTarget implements RowTarget {
+        private final Supplier<RecordStore> fullReloadTarget;
+        private RecordStore store;
+        private int firstNewRow;
+
+        StoreTarget(RecordStore store, Supplier<RecordStore> fullReloadTarget) {
+            this.store = store;
+            this.fullReloadTarget = fullReloadTarget;
+            this.firstNewRow = store == null ? 0 : store.size();
+        }
+
+        @Override
+        public CsvByteTokenizer.RowSink open(boolean fullReload) {
+            if (fullReload) {
+                store = fullReloadTarget.get();
+                firstNewRow = store.size();
+            }
+            RecordStore target = store;
+            long ingestionMillis = System.currentTimeMillis();
+            return (sourceId, rawValue, eventMillis, line) -> target.append(sourceId, rawValue, ingestionMillis,
+                    eventMillis, line);
+        }
+
+        @Override
+        public LabelDictionary sourceIds() {
+            return store.getSourceIds();
+        }
+    }
+
+    /**
+     * Tramo de bytes leído por advance().
+     */
+    private static final class Scan {
+        private final String fullReloadReason;
+        private final long from;
+        private final long to;
+        private final long lines;
+
+        Scan(String fullReloadReason, long from, long to, long lines) {
+            this.fullReloadReason = fullReloadReason;
+            this.from = from;
+            this.to = to;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Resultado de un refresh().
+     */
+    public static final class RefreshResult {
+
+        public enum Mode {
+            /** Se recargó todo el archivo en un almacén nuevo. */
+            FULL,
+            /** Se añadieron solo las filas nuevas al almacén existente. */
+            INCREMENTAL,
+            /** No había datos nuevos. */
+            UNCHANGED
+        }
+
+        private final Mode mode;
+        private final RecordStore store;
+        private final int firstNewRow;
+        private final int rowsAdded;
+        private final long fromOffset;
+        private final long toOffset;
+        private final long linesRead;
+        private final String fullReloadReason;
+
+        RefreshResult(Mode mode, RecordStore store, int firstNewRow, int rowsAdded, long fromOffset, long toOffset,
+                long linesRead, String fullReloadReason) {
+            this.mode = mode;
+            this.store = Objects.requireNonNull(store);
+            this.firstNewRow = firstNewRow;
+            this.rowsAdded = rowsAdded;
+            this.fromOffset = fromOffset;
+            this.toOffset = toOffset;
+            this.linesRead = linesRead;
+            this.fullReloadReason = fullReloadReason;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        /**
+         * Almacén actualizado (el mismo que se pasó, salvo en recarga completa).
+         */
+        public RecordStore getStore() {
+            return store;
+        }
+
+        /**
+         * Índice de la primera fila añadida en este refresh.
+         */
+        public int getFirstNewRow() {
+            return firstNewRow;
+        }
+
+        public int getRowsAdded() {
+            return rowsAdded;
+        }
+
+        public long getFromOffset() {
+            return fromOffset;
+        }
+
+        public long getToOffset() {
+            return toOffset;
+        }
+
+        /**
+         * Líneas del archivo hasta toOffset, cabecera incluida.
+         */
+        public long getLinesRead() {
+            return linesRead;
+        }
+
+        /**
+         * Motivo de la recarga completa, o null si fue incremental.
+         */
+        public String getFullReloadReason() {
+            return fullReloadReason;
+        }
+
+        @Override
+        public String toString() {
+            return mode + " +" + rowsAdded + " rows (bytes " + fromOffset + " -> " + toOffset + ")"
+                    + (fullReloadReason == null ? "" : ": " + fullReloadReason);
+        }
+    }
+}
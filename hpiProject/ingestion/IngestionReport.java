@@ -0,0 +1,105 @@
+package ingestion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de una ingesta multi-fuente.
+ * Registra el éxito o fallo de cada fuente por separado, en lugar de imprimir
+ * el error y devolver una lista vacía.
+ */
+public class IngestionReport {
+
+    public enum Status {
+        SUCCESS, FAILED, TIMED_OUT
+    }
+
+    private final List<SourceOutcome> outcomes;
+
+    public IngestionReport(List<SourceOutcome> outcomes) {
+        this.outcomes = Collections.unmodifiableList(new ArrayList<>(outcomes));
+    }
+
+    public List<SourceOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public long getTotalRecords() {
+        long total = 0;
+        for (SourceOutcome outcome : outcomes) {
+            total += outcome.getRecords();
+        }
+        return total;
+    }
+
+    public int count(Status status) {
+        int count = 0;
+        for (SourceOutcome outcome : outcomes) {
+            if (outcome.getStatus() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean hasFailures() {
+        return count(Status.SUCCESS) < outcomes.size();
+    }
+
+    public void printSummary() {
+        System.out.println("[Ingestion] Sources: " + count(Status.SUCCESS) + " OK, " + count(Status.FAILED)
+                + " FAILED, " + count(Status.TIMED_OUT) + " TIMED OUT | Records: " + getTotalRecords());
+        for (SourceOutcome outcome : outcomes) {
+            if (outcome.getStatus() != Status.SUCCESS) {
+                System.out.println(" [!] " + outcome);
+            }
+        }
+    }
+
+    /**
+     * Resultado de una fuente concreta.
+     */
+    public static final class SourceOutcome {
+        private final String source;
+        private final Status status;
+        private final long records;
+        private final long elapsedMs;
+        private final String error;
+
+        public SourceOutcome(String source, Status status, long records, long elapsedMs, String error) {
+            this.source = source;
+            this.status = status;
+            this.records = records;
+            this.elapsedMs = elapsedMs;
+            this.error = error;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        // Registros entregados antes de terminar (también en fallos parciales)
+        public long getRecords() {
+            return records;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return source + ": " + status + " (" + records + " records, " + elapsedMs + " ms"
+                    + (error != null ? ", " + error : "") + ")";
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package ingestion;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import model.RawDataRecord;
+
+/**
+ * Ingesta concurrente de muchas fuentes lentas (p. ej. cientos de CSV por
+ * región, o sustitutos locales de fuentes SQL/API).
+ *
+ * Cada fuente se lee en su propio hilo virtual (JDK 21+; en JDK anteriores se
+ * usan hilos de plataforma bajo demanda) con un límite configurable de fuentes
+ * simultáneas y un timeout por fuente. Los registros de todas las fuentes se
+ * fusionan, en lotes de BATCH_RECORDS, en una cola acotada y se entregan al
+ * sink desde el hilo que llama, de modo que el sink no necesita ser
+ * thread-safe.
+ *
+ * El orden se conserva dentro de cada fuente, pero no entre fuentes.
+ *
+ * Los registros se entregan a medida que llegan: una fuente que termina en
+ * FAILED o TIMED_OUT puede haber entregado ya parte de los suyos.
+ * SourceOutcome.getRecords() dice exactamente cuántos llegaron al sink; los
+ * que una fuente expirada tenía aún en la cola se descartan.
+ */
+public class MultiSourceDataLoader implements IStreamingDataLoader {
+
+    public static final int DEFAULT_MAX_CONCURRENT_SOURCES = 64;
+    public static final long DEFAULT_SOURCE_TIMEOUT_MS = 60_000;
+
+    /** Archivos que se leen de un directorio (CSV en minúsculas o mayúsculas). */
+    public static final String CSV_GLOB = "*.{csv,CSV}";
+
+    private static final int BATCH_RECORDS = 256;
+    private static final int MERGE_QUEUE_BATCHES = 32;
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL_MS);
+
+    private final IStreamingDataLoader delegate;
+    private final int maxConcurrentSources;
+    private final long sourceTimeoutMs;
+    private volatile IngestionReport lastReport;
+
+    public MultiSourceDataLoader(IStreamingDataLoader delegate) {
+        this(delegate, DEFAULT_MAX_CONCURRENT_SOURCES, DEFAULT_SOURCE_TIMEOUT_MS);
+    }
+
+    /**
+     * @param delegate             Cargador usado para cada fuente (debe ser thread-safe).
+     * @param maxConcurrentSources Fuentes leídas a la vez como máximo.
+     * @param sourceTimeoutMs      Tiempo máximo de lectura de cada fuente
+     *                             (Long.MAX_VALUE = sin límite).
+     */
+    public MultiSourceDataLoader(IStreamingDataLoader delegate, int maxConcurrentSources, long sourceTimeoutMs) {
+        if (maxConcurrentSources < 1 || sourceTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Concurrency limit and timeout must be positive");
+        }
+        this.delegate = delegate;
+        this.maxConcurrentSources = maxConcurrentSources;
+        this.sourceTimeoutMs = sourceTimeoutMs;
+    }
+
+    @Override
+    public List<RawDataRecord> loadData(String sourcePath) {
+        List<RawDataRecord> records = new ArrayList<>();
+        System.out.println("[Ingestion] Starting multi-source read: " + sourcePath);
+
+        try {
+            streamData(sourcePath, records::add);
+        } catch (IOException e) {
+            System.err.println("[Ingestion Error] " + e.getMessage());
+        }
+        if (lastReport != null) {
+            lastReport.printSummary();
+        }
+        return records;
+    }
+
+    @Override
+    public long streamData(String sourcePath, Consumer<RawDataRecord> sink) throws IOException {
+        return streamData(sourcePath, sink, null);
+    }
+
+    /**
+     * @param sourcePath Directorio (se leen todos sus CSV) o lista de rutas
+     *                   separadas por File.pathSeparator.
+     * @throws IOException Si no se puede listar el directorio o fallan todas las fuentes.
+     */
+    @Override
+    public long streamData(String sourcePath, Consumer<RawDataRecord> sink, DeadLetterQueue deadLetters)
+            throws IOException {
+        Path path = Paths.get(sourcePath);
+        List<String> sources = Files.isDirectory(path) ? listCsvFiles(path)
+                : Arrays.asList(sourcePath.split(File.pathSeparator));
+        IngestionReport report = loadAll(sources, sink, deadLetters);
+        if (!report.getOutcomes().isEmpty() && report.count(IngestionReport.Status.SUCCESS) == 0) {
+            throw new IOException("All " + report.getOutcomes().size() + " sources failed");
+        }
+        return report.getTotalRecords();
+    }
+
+    /**
+     * Lee todas las fuentes y devuelve el resultado individual de cada una.
+     */
+    public IngestionReport loadAll(List<String> sources, Consumer<RawDataRecord> sink) throws IOException {
+        return loadAll(sources, sink, null);
+    }
+
+    /**
+     * Igual que loadAll(sources, sink), con las filas mal formadas de cada
+     * fuente en la cola de cuarentena (DeadLetterQueue es thread-safe).
+     */
+    public IngestionReport loadAll(List<String> sources, Consumer<RawDataRecord> sink, DeadLetterQueue deadLetters)
+            throws IOException {
+        BlockingQueue<Object> merged = new ArrayBlockingQueue<>(MERGE_QUEUE_BATCHES);
+        Semaphore permits = new Semaphore(maxConcurrentSources);
+        List<SourceTask> tasks = new ArrayList<>(sources.size());
+        ExecutorService executor = newSourceExecutor();
+
+        try {
+            for (String source : sources) {
+                SourceTask task = new SourceTask(source, merged, permits, deadLetters);
+                task.future = executor.submit(task);
+                tasks.add(task);
+            }
+
+            int pending = tasks.size();
+            long lastTimeoutCheck = System.nanoTime();
+            while (pending > 0) {
+                Object item = merged.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+                if (item instanceof RecordBatch) {
+                    RecordBatch batch = (RecordBatch) item;
+                    if (batch.task.outcome == null) { // Una fuente ya expirada no entrega más
+                        for (int i = 0; i < batch.size; i++) {
+                            sink.accept(batch.records[i]);
+                        }
+                        batch.task.delivered += batch.size;
+                    }
+                } else if (item instanceof SourceTask && ((SourceTask) item).outcome == null) {
+                    ((SourceTask) item).finish(); // Todos sus lotes ya se entregaron
+                    pending--;
+                }
+
+                // Vigilancia de timeouts, incluida una fuente bloqueada sin entregar registros.
+                // Recorre todas las fuentes: solo con la cola vacía o una vez por intervalo
+                long now = System.nanoTime();
+                if (item != null && now - lastTimeoutCheck < POLL_INTERVAL_NANOS) {
+                    continue;
+                }
+                lastTimeoutCheck = now;
+                for (SourceTask task : tasks) {
+                    if (task.outcome == null && task.expire(now)) {
+                        task.future.cancel(true);
+                        pending--;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Multi-source ingestion interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<IngestionReport.SourceOutcome> outcomes = new ArrayList<>(tasks.size());
+        for (SourceTask task : tasks) {
+            outcomes.add(task.outcome);
+        }
+        lastReport = new IngestionReport(outcomes);
+        return lastReport;
+    }
+
+    /**
+     * Resultado por fuente de la última ingesta.
+     */
+    public IngestionReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Archivos tal cual y los CSV de cada directorio (listCsvFiles), en el
+     * orden dado.
+     *
+     * @throws NoSuchFileException Si una entrada no es un archivo ni un directorio.
+     */
+    public static List<String> resolveSources(List<String> inputs) throws IOException {
+        List<String> sources = new ArrayList<>();
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                sources.addAll(listCsvFiles(path));
+            } else if (Files.isRegularFile(path)) {
+                sources.add(input);
+            } else {
+                throw new NoSuchFileException(input, null, "input not found");
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Archivos regulares del directorio que cumplen CSV_GLOB, en orden alfabético.
+     */
+    public static List<String> listCsvFiles(Path directory) throws IOException {
+        List<String> files = new ArrayList<>();
+        try (DirectoryStream<Path> csvFiles = Files.newDirectoryStream(directory, CSV_GLOB)) {
+            for (Path file : csvFiles) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file.toString());
+                }
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Indica si el nombre del archivo cumple CSV_GLOB.
+     */
+    public static boolean isCsvFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".csv") || name.endsWith(".CSV");
+    }
+
+    /**
+     * Un hilo virtual por fuente si el JDK lo soporta; si no, hilos de
+     * plataforma bajo demanda (el Semaphore limita igualmente la concurrencia).
+     */
+    private static ExecutorService newSourceExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "hpi-source-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Registros consecutivos de una fuente.
+     */
+    private static final class RecordBatch {
+        private final SourceTask task;
+        private final RawDataRecord[] records = new RawDataRecord[BATCH_RECORDS];
+        private int size = 0;
+
+        RecordBatch(SourceTask task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * Lectura de una fuente. Al terminar (bien o mal) encola su último lote y
+     * después a sí misma como marcador de fin.
+     *
+     * El resultado (outcome) y el recuento de registros entregados solo los
+     * escribe el hilo que fusiona; el hilo de la fuente solo anota cómo acabó.
+     */
+    private final class SourceTask implements Runnable {
+        private final String source;
+        private final BlockingQueue<Object> merged;
+        private final Semaphore permits;
+        private final DeadLetterQueue deadLetters;
+        // La fuente al terminar o el vigilante al expirar: gana el primero
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile long startNanos = 0; // 0 = esperando turno
+        private volatile long endNanos = 0;
+        private volatile IngestionReport.Status status;
+        private volatile String error;
+        private Future<?> future;
+        private RecordBatch batch;
+
+        // Solo los usa el hilo que fusiona
+        private long delivered = 0;
+        private IngestionReport.SourceOutcome outcome;
+
+        SourceTask(String source, BlockingQueue<Object> merged, Semaphore permits, DeadLetterQueue deadLetters) {
+            this.source = source;
+            this.merged = merged;
+            this.permits = permits;
+            this.deadLetters = deadLetters;
+        }
+
+        @Override
+        public void run() {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                end(IngestionReport.Status.FAILED, "Interrupted before start");
+                return;
+            }
+
+            try {
+                startNanos = System.nanoTime();
+                delegate.streamData(source, record -> {
+                    if (done.get()) {
+                        throw new IllegalStateException("Source abandoned");
+                    }
+                    if (batch == null) {
+                        batch = new RecordBatch(this);
+                    }
+                    batch.records[batch.size++] = record;
+                    if (batch.size == BATCH_RECORDS) {
+                        put(batch);
+                        batch = null;
+                    }
+                }, deadLetters);
+                if (batch != null) {
+                    put(batch);
+                }
+                end(IngestionReport.Status.SUCCESS, null);
+
+            } catch (IOException | RuntimeException e) {
+                end(IngestionReport.Status.FAILED, e.getClass().getSimpleName() + ": " + e.getMessage());
+            } finally {
+                permits.release();
+                if (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        merged.put(this);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+
+        private void put(Object item) {
+            try {
+                merged.put(item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Source cancelled", e);
+            }
+        }
+
+        // Hilo de la fuente: anota cómo acabó, salvo que ya haya expirado
+        private void end(IngestionReport.Status finalStatus, String finalError) {
+            if (done.compareAndSet(false, true)) {
+                endNanos = System.nanoTime();
+                error = finalError;
+                status = finalStatus;
+            }
+        }
+
+        // Hilo que fusiona: la fuente terminó y todos sus lotes ya están entregados
+        void finish() {
+            outcome = new IngestionReport.SourceOutcome(source, status, delivered, elapsedMs(endNanos), error);
+        }
+
+        // Hilo que fusiona: marca la fuente como expirada si superó su tiempo
+        boolean expire(long now) {
+            long start = startNanos;
+            if (start == 0 || now - start <= TimeUnit.MILLISECONDS.toNanos(sourceTimeoutMs)
+                    || !done.compareAndSet(false, true)) {
+                return false;
+            }
+            outcome = new IngestionReport.SourceOutcome(source, IngestionReport.Status.TIMED_OUT, delivered,
+                    elapsedMs(now), "Timeout after " + sourceTimeoutMs + " ms");
+            return true;
+        }
+
+        private long elapsedMs(long end) {
+            long start = startNanos;
+            return start == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(end - start);
+        }
+    }
+}
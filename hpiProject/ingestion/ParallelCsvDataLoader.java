@@ -0,0 +1,260 @@
+package ingestion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import config.ConfigurationContext;
+import metrics.MetricsRegistry;
+import metrics.Stage;
+import model.LabelDictionary;
+import model.RawDataRecord;
+
+/**
+ * Cargador CSV paralelo.
+ * Divide el archivo en rangos de bytes, realinea cada rango al inicio de línea
+ * y parsea los bloques en paralelo sobre un ForkJoinPool usando el tokenizador
+ * de bytes de MappedCsvDataLoader.
+ *
+ * Los registros se entregan al sink en el orden original del archivo (el
+ * ReportExporter empareja registros y predicciones por índice). Solo se
+ * mantienen en memoria unos pocos bloques por hilo a la vez.
+ *
+ * Cada bloque guarda sus campos en columnas con las líneas numeradas desde 1;
+ * los registros se crean una sola vez al entregar el bloque en orden, cuando
+ * ya se conocen las líneas de los bloques anteriores, con su línea en el
+ * archivo (igual que las líneas mal formadas en cuarentena).
+ *
+ * Nota: la realineación asume que no hay saltos de línea dentro de campos
+ * entre comillas.
+ */
+public class ParallelCsvDataLoader implements IStreamingDataLoader {
+
+    public static final long DEFAULT_CHUNK_BYTES = 8L * 1024 * 1024;
+
+    private static final int ALIGN_PROBE_BYTES = 4096;
+    // Bloques en vuelo por hilo: limita la memoria y mantiene los hilos ocupados
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private final int parallelism;
+    private final long chunkBytes;
+
+    /**
+     * Usa el grado de paralelismo configurado en ConfigurationContext.
+     */
+    public ParallelCsvDataLoader() {
+        this(ConfigurationContext.getInstance().getIngestionParallelism(), DEFAULT_CHUNK_BYTES);
+    }
+
+    public ParallelCsvDataLoader(int parallelism, long chunkBytes) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        if (chunkBytes <= 0 || chunkBytes > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + Integer.MAX_VALUE / 2 + " bytes");
+        }
+        this.parallelism = parallelism;
+        this.chunkBytes = chunkBytes;
+    }
+
+    @Override
+    public List<RawDataRecord> loadData(String filePath) {
+        List<RawDataRecord> records = new ArrayList<>();
+
+        System.out.println("[Ingestion] Starting parallel file read (" + parallelism + " threads): " + filePath);
+
+        try {
+            streamData(filePath, records::add);
+            System.out.println("[Ingestion] Read complete. Records loaded: " + records.size());
+
+        } catch (IOException e) {
+            System.err.println("[Ingestion Error] Could not read file: " + e.getMessage());
+        }
+
+        return records;
+    }
+
+    @Override
+    public long streamData(String filePath, Consumer<RawDataRecord> sink) throws IOException {
+        return streamData(filePath, sink, null);
+    }
+
+    @Override
+    public long streamData(String filePath, Consumer<RawDataRecord> sink, DeadLetterQueue deadLetters)
+            throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long started = metrics.startTimer();
+        long delivered = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkCount = (size + chunkBytes - 1) / chunkBytes;
+            int maxInFlight = parallelism * CHUNKS_IN_FLIGHT_PER_THREAD;
+
+            Deque<ForkJoinTask<ParsedChunk>> inFlight = new ArrayDeque<>();
+            long nextChunk = 0;
+            long linesBefore = 0; // Líneas de los bloques ya entregados
+            LabelDictionary sourceIds = new LabelDictionary(); // Compartido por todos los bloques
+
+            while (nextChunk < chunkCount || !inFlight.isEmpty()) {
+                while (nextChunk < chunkCount && inFlight.size() < maxInFlight) {
+                    final long chunk = nextChunk++;
+                    inFlight.addLast(pool.submit(() -> parseChunk(channel, size, chunk, filePath,
+                            deadLetters != null, sourceIds)));
+                }
+
+                // Entregar en orden: siempre se espera al bloque más antiguo
+                ParsedChunk parsed = joinChunk(inFlight.removeFirst());
+                for (int i = 0; i < parsed.size; i++) {
+                    sink.accept(new RawDataRecord(parsed.sourceIds[i], parsed.rawValues[i], parsed.eventMillis[i],
+                            filePath, linesBefore + parsed.lines[i]));
+                }
+                delivered += parsed.size;
+                for (int i = 0; i < parsed.rejectedLines.size(); i++) {
+                    deadLetters.quarantine(QuarantineReason.MALFORMED_ROW, filePath,
+                            linesBefore + parsed.rejectedLines.get(i), null, parsed.rejectedContents.get(i));
+                }
+                linesBefore += parsed.lineCount;
+            }
+            metrics.record(Stage.INGESTION, started, delivered, size);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return delivered;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private ParsedChunk parseChunk(FileChannel channel, long size, long chunk, String filePath,
+            boolean keepRejected, LabelDictionary sourceIds) {
+        try {
+            long start = lineStartAtOrAfter(channel, size, chunk * chunkBytes);
+            long end = lineStartAtOrAfter(channel, size, Math.min(size, (chunk + 1) * chunkBytes));
+            ParsedChunk parsed = new ParsedChunk();
+
+            if (start >= end) {
+                return parsed; // Una sola línea larga ocupa el bloque entero
+            }
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line at offset " + start + " is too long to map");
+            }
+
+            int length = (int) (end - start);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+
+            // Líneas numeradas desde el inicio del bloque (ver streamData)
+            CsvByteTokenizer tokenizer = new CsvByteTokenizer(0, keepRejected ? parsed::reject : null, sourceIds);
+            int from = 0;
+            if (start == 0) {
+                // Omitir la cabecera del CSV
+                from = tokenizer.skipHeader(region, 0, length);
+                if (from < 0) {
+                    return parsed;
+                }
+            }
+
+            tokenizer.parseFields(region, from, length, true, parsed);
+            parsed.lineCount = tokenizer.getLine();
+            return parsed;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Devuelve el inicio de la primera línea que comienza en offset o después.
+     * Un bloque "posee" todas las líneas que comienzan dentro de su rango.
+     */
+    private static long lineStartAtOrAfter(FileChannel channel, long size, long offset) throws IOException {
+        if (offset <= 0 || offset >= size) {
+            return Math.max(0, Math.min(offset, size));
+        }
+
+        ByteBuffer probe = ByteBuffer.allocate(ALIGN_PROBE_BYTES);
+        long position = offset - 1; // Si el byte anterior es '\n', offset ya es inicio de línea
+
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static ParsedChunk joinChunk(ForkJoinTask<ParsedChunk> task) throws IOException {
+        try {
+            return task.join();
+        } catch (RuntimeException e) {
+            // ForkJoin puede re-envolver la excepción original: buscar la IOException en la cadena
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Campos de las filas y líneas mal formadas de un bloque, con las líneas
+     * numeradas desde el inicio del bloque.
+     */
+    private static final class ParsedChunk implements CsvByteTokenizer.RowSink {
+        private static final int INITIAL_ROWS = 1024;
+
+        private String[] sourceIds = new String[INITIAL_ROWS];
+        private String[] rawValues = new String[INITIAL_ROWS];
+        private long[] eventMillis = new long[INITIAL_ROWS];
+        private long[] lines = new long[INITIAL_ROWS];
+        private int size = 0;
+        private final List<Long> rejectedLines = new ArrayList<>();
+        private final List<String> rejectedContents = new ArrayList<>();
+        private long lineCount = 0;
+
+        @Override
+        public void accept(String sourceId, String rawValue, long eventMillis, long line) {
+            if (size == lines.length) {
+                int capacity = size * 2;
+                this.sourceIds = Arrays.copyOf(this.sourceIds, capacity);
+                this.rawValues = Arrays.copyOf(this.rawValues, capacity);
+                this.eventMillis = Arrays.copyOf(this.eventMillis, capacity);
+                this.lines = Arrays.copyOf(this.lines, capacity);
+            }
+            this.sourceIds[size] = sourceId;
+            this.rawValues[size] = rawValue;
+            this.eventMillis[size] = eventMillis;
+            this.lines[size] = line;
+            size++;
+        }
+
+        void reject(long line, String content) {
+            rejectedLines.add(line);
+            rejectedContents.add(content);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ingestion;
+
+/**
+ * Motivo por el que un registro va a cuarentena (DeadLetterQueue) en lugar
+ * de llegar a la predicción y al reporte.
+ */
+public enum QuarantineReason {
+
+    /** Línea con menos de tres columnas: no llega a ser un registro. */
+    MALFORMED_ROW("malformed_row", null),
+    /** Valor vacío o nulo (categoría Missing_Value del harmonizador). */
+    MISSING_VALUE("missing_value", "Missing_Value"),
+    /** Valor sin ningún número recuperable (categoría Unreadable_Data del harmonizador). */
+    UNREADABLE_VALUE("unreadable_value", "Unreadable_Data");
+
+    private final String label;
+    private final String category;
+
+    QuarantineReason(String label, String category) {
+        this.label = label;
+        this.category = category;
+    }
+
+    /** Nombre en el archivo de cuarentena y en los resúmenes. */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Categoría de relleno que asigna el harmonizador, o null si el motivo
+     * se detecta en la lectura.
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Motivo de cuarentena de un dato armonizado con esta categoría, o null
+     * si el dato pasa a predicción.
+     */
+    public static QuarantineReason forCategory(String category) {
+        if (MISSING_VALUE.category.equals(category)) {
+            return MISSING_VALUE;
+        }
+        if (UNREADABLE_VALUE.category.equals(category)) {
+            return UNREADABLE_VALUE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,268 @@
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import analytics.AnomalyDetector;
+import analytics.IPredictiveModel;
+import analytics.SalesForecaster;
+import config.ConfigurationContext;
+import harmonization.CachingHarmonizer;
+import harmonization.IHarmonizer;
+import ingestion.DeadLetterQueue;
+import ingestion.IStreamingDataLoader;
+import ingestion.IngestionReport;
+import ingestion.MappedCsvDataLoader;
+import ingestion.MultiSourceDataLoader;
+import ingestion.ParallelCsvDataLoader;
+import metrics.MetricsDumper;
+import metrics.MetricsRegistry;
+import pipeline.AnalysisPipeline;
+import pipeline.PipelineOptions;
+import pipeline.PipelineSummary;
+import reporting.IReportWriter;
+import reporting.ReportExporter;
+import reporting.ReportFormat;
+
+/**
+ * Modo por lotes sin menú: ingesta -> armonización -> predicción -> reporte
+ * de principio a fin, sin retardos simulados ni preguntas, para ejecuciones
+ * programadas y mediciones.
+ *
+ * Uso: --batch <archivo|directorio>... [--growth-factor X]
+ *      [--format text|csv|binary] [--out archivo] [--parallelism N]
+ *      [--model growth|timeseries|anomaly] [--confidence-seed N|random]
+ *      [--metrics archivo.prom] [--harmonization-cache N] [--dead-letters archivo.csv]
+ *      [--source-timeout-sec N]
+ *
+ * Los directorios aportan sus *.csv en orden alfabético. Todas las fuentes
+ * forman una sola ejecución con un solo reporte. Con varias fuentes y
+ * --parallelism mayor que 1 se leen a la vez con MultiSourceDataLoader (hasta
+ * N fuentes simultáneas, cada una con --source-timeout-sec si se indica): el
+ * orden se conserva dentro de cada fuente pero no entre fuentes, y al final
+ * se muestra el resultado de cada una. Una fuente que falla o expira puede
+ * haber aportado ya parte de sus registros (se indica cuántos) y hace que la
+ * ejecución termine con error. Con --parallelism 1 las fuentes se procesan
+ * una tras otra en el orden dado.
+ * Sin --out el reporte usa el nombre por defecto; sin --format, el formato
+ * sale de la extensión de --out (texto si no coincide). Con
+ * --harmonization-cache los resultados de la armonización se guardan en una
+ * caché de N entradas (CachingHarmonizer) y al final se muestra su tasa de
+ * aciertos.
+ *
+ * El reporte se escribe en un hilo propio con doble buffer
+ * (ReportExporter.openAsync), en paralelo con el análisis, y se fuerza a
+ * disco al terminar.
+ *
+ * Las líneas mal formadas y los valores vacíos o ilegibles no llegan al
+ * reporte: van con su archivo, línea y motivo a --dead-letters (por defecto
+ * Dead_Letters_&lt;fecha&gt;.csv, solo si hay alguno).
+ *
+ * Códigos de salida: 0 correcto, 1 error de lectura, escritura o proceso,
+ * 2 argumentos inválidos, 3 ningún registro válido que analizar.
+ */
+final class BatchMode {
+
+    static final String BATCH_FLAG = "--batch";
+
+    private static final int EXIT_NO_DATA = 3;
+
+    private BatchMode() {
+    }
+
+    /**
+     * @return Código de salida del proceso.
+     */
+    static int run(String[] args, IHarmonizer harmonizer) {
+        long start = System.nanoTime();
+        Arguments arguments;
+        try {
+            arguments = Arguments.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[Batch] " + e.getMessage());
+            System.err.println("Usage: " + BATCH_FLAG + " <file|dir>... [--growth-factor X]"
+                    + " [--format text|csv|binary] [--out FILE] [--parallelism N]"
+                    + " [--model growth|timeseries|anomaly] [--confidence-seed N|random] [--metrics FILE]"
+                    + " [--harmonization-cache N] [--dead-letters FILE] [--source-timeout-sec N]");
+            return CommandLine.EXIT_USAGE;
+        }
+        CachingHarmonizer cache = arguments.harmonizationCache > 0
+                ? new CachingHarmonizer(harmonizer, arguments.harmonizationCache)
+                : null;
+
+        ConfigurationContext config = ConfigurationContext.getInstance();
+        if (arguments.growthFactor != null) {
+            config.setGrowthFactor(arguments.growthFactor);
+        }
+        if (arguments.randomConfidence) {
+            config.setRandomConfidence();
+        } else if (arguments.confidenceSeed != null) {
+            config.setConfidenceSeed(arguments.confidenceSeed);
+        }
+
+        List<String> sources;
+        try {
+            sources = MultiSourceDataLoader.resolveSources(arguments.inputs);
+        } catch (IOException e) {
+            System.err.println("[Batch Error] " + e.getMessage());
+            return CommandLine.EXIT_FAILURE;
+        }
+        if (sources.isEmpty()) {
+            System.err.println("[Batch] No CSV files found in " + arguments.inputs);
+            return EXIT_NO_DATA;
+        }
+
+        // Con un solo hilo no compensa repartir el archivo en bloques
+        IStreamingDataLoader loader = arguments.parallelism > 1
+                ? new ParallelCsvDataLoader(arguments.parallelism, ParallelCsvDataLoader.DEFAULT_CHUNK_BYTES)
+                : new MappedCsvDataLoader();
+        // Varias fuentes: una por hilo (la lista se pasa separada por File.pathSeparator)
+        MultiSourceDataLoader multiSource = arguments.parallelism > 1 && sources.size() > 1
+                && sources.stream().noneMatch(source -> source.contains(File.pathSeparator))
+                        ? new MultiSourceDataLoader(new MappedCsvDataLoader(), arguments.parallelism,
+                                arguments.sourceTimeoutMs)
+                        : null;
+        Path out = Paths.get(arguments.outFile != null ? arguments.outFile
+                : ReportExporter.defaultFileName(arguments.format));
+        DeadLetterQueue deadLetters = new DeadLetterQueue(Paths.get(arguments.deadLettersFile != null
+                ? arguments.deadLettersFile : DeadLetterQueue.defaultFileName()));
+        AnalysisPipeline pipeline = new AnalysisPipeline(cache != null ? cache : harmonizer, arguments.model,
+                PipelineOptions.production(arguments.parallelism), deadLetters);
+
+        PipelineSummary summary;
+        try (deadLetters; IReportWriter writer = new ReportExporter().openAsync(out, arguments.format)) {
+            summary = multiSource != null
+                    ? pipeline.run(multiSource, String.join(File.pathSeparator, sources), writer.asSink())
+                    : pipeline.run(loader, sources, writer.asSink());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[Batch Error] " + e.getMessage());
+            return CommandLine.EXIT_FAILURE;
+        } finally {
+            dumpMetrics(arguments.metricsFile);
+        }
+
+        System.out.printf("[Batch] %d source(s) -> %s (%s): %d records written, %d skipped. Total %.1f ms%n",
+                sources.size(), out, arguments.format, summary.getRecordsProcessed(), summary.getRecordsSkipped(),
+                (System.nanoTime() - start) / 1e6);
+        System.out.println("[Batch] " + deadLetters);
+        IngestionReport sourceReport = multiSource == null ? null : multiSource.getLastReport();
+        if (sourceReport != null) {
+            sourceReport.printSummary();
+        }
+        if (cache != null) {
+            System.out.println("[Batch] " + cache);
+        }
+        AnomalyDetector detector = CommandLine.anomalyDetector(arguments.model);
+        if (detector != null) {
+            System.out.println("[Batch] " + detector);
+        }
+        if (sourceReport != null && sourceReport.hasFailures()) {
+            System.err.println("[Batch Error] " + (sourceReport.getOutcomes().size()
+                    - sourceReport.count(IngestionReport.Status.SUCCESS)) + " source(s) incomplete");
+            return CommandLine.EXIT_FAILURE;
+        }
+        return summary.getRecordsProcessed() > 0 ? CommandLine.EXIT_OK : EXIT_NO_DATA;
+    }
+
+    private static void dumpMetrics(String metricsFile) {
+        if (metricsFile == null) {
+            return;
+        }
+        try {
+            MetricsDumper.dump(MetricsRegistry.getInstance().snapshot(), Paths.get(metricsFile));
+        } catch (IOException e) {
+            System.err.println("[Metrics Error] Could not write " + metricsFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Argumentos de la línea de comandos del modo por lotes.
+     */
+    private static final class Arguments {
+        private final List<String> inputs = new ArrayList<>();
+        private Double growthFactor;
+        private ReportFormat format;
+        private String outFile;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private IPredictiveModel model = new SalesForecaster();
+        private Long confidenceSeed;
+        private boolean randomConfidence = false;
+        private String metricsFile;
+        private int harmonizationCache = 0;
+        private String deadLettersFile;
+        private long sourceTimeoutMs = Long.MAX_VALUE;
+
+        static Arguments parse(String[] args) {
+            Arguments parsed = new Arguments();
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case BATCH_FLAG:
+                        break;
+                    case "--growth-factor":
+                        parsed.growthFactor = CommandLine.decimal(args, ++i);
+                        if (!(parsed.growthFactor >= 0)) {
+                            throw new IllegalArgumentException("Growth factor cannot be negative");
+                        }
+                        break;
+                    case "--format":
+                        parsed.format = CommandLine.format(CommandLine.value(args, ++i));
+                        break;
+                    case "--out":
+                        parsed.outFile = CommandLine.value(args, ++i);
+                        break;
+                    case "--parallelism":
+                        parsed.parallelism = (int) CommandLine.number(args, ++i);
+                        if (parsed.parallelism < 1) {
+                            throw new IllegalArgumentException("Parallelism must be at least 1");
+                        }
+                        break;
+                    case "--model":
+                        parsed.model = CommandLine.model(CommandLine.value(args, ++i));
+                        break;
+                    case "--confidence-seed":
+                        if ("random".equalsIgnoreCase(CommandLine.value(args, i + 1))) {
+                            parsed.randomConfidence = true;
+                            i++;
+                        } else {
+                            parsed.confidenceSeed = CommandLine.number(args, ++i);
+                        }
+                        break;
+                    case "--metrics":
+                        parsed.metricsFile = CommandLine.value(args, ++i);
+                        break;
+                    case "--harmonization-cache":
+                        parsed.harmonizationCache = CommandLine.cacheEntries(args, ++i);
+                        break;
+                    case "--dead-letters":
+                        parsed.deadLettersFile = CommandLine.value(args, ++i);
+                        break;
+                    case "--source-timeout-sec":
+                        long seconds = CommandLine.number(args, ++i);
+                        if (seconds < 1) {
+                            throw new IllegalArgumentException("Source timeout must be at least 1 second");
+                        }
+                        parsed.sourceTimeoutMs = TimeUnit.SECONDS.toMillis(seconds);
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+                        parsed.inputs.add(args[i]);
+                }
+            }
+            if (parsed.inputs.isEmpty()) {
+                throw new IllegalArgumentException("No input file or directory");
+            }
+            if (parsed.format == null) {
+                parsed.format = parsed.outFile == null ? ReportFormat.TEXT
+                        : CommandLine.formatOf(parsed.outFile, ReportFormat.TEXT);
+            }
+            return parsed;
+        }
+    }
+}
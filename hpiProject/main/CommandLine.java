@@ -0,0 +1,128 @@
+package main;
+
+import java.util.Collections;
+
+import analytics.AnomalyDetector;
+import analytics.IPredictiveModel;
+import analytics.ModelRouter;
+import analytics.SalesForecaster;
+import analytics.TimeSeriesForecaster;
+import harmonization.CachingHarmonizer;
+import reporting.ReportFormat;
+
+/**
+ * Utilidades comunes a los modos sin menú (--watch, --batch): lectura de
+ * valores de opciones y códigos de salida. Los errores de uso se señalan con
+ * IllegalArgumentException.
+ */
+final class CommandLine {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+
+    private CommandLine() {
+    }
+
+    /**
+     * Valor de la opción en args[i - 1].
+     */
+    static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    static long number(String[] args, int i) {
+        String value = value(args, i);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + args[i - 1] + ": " + value);
+        }
+    }
+
+    static double decimal(String[] args, int i) {
+        String value = value(args, i);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + args[i - 1] + ": " + value);
+        }
+    }
+
+    static IPredictiveModel model(String name) {
+        switch (name) {
+            case "growth":
+                return new SalesForecaster();
+            case "timeseries":
+                return new TimeSeriesForecaster();
+            case "anomaly":
+                return sensorAnomalyRouter();
+            default:
+                throw new IllegalArgumentException("Unknown model: " + name);
+        }
+    }
+
+    /**
+     * Detección de anomalías para las métricas de sensores y proyección de
+     * crecimiento para el resto de categorías.
+     */
+    static ModelRouter sensorAnomalyRouter() {
+        return new ModelRouter(Collections.singletonMap(AnomalyDetector.SENSOR_CATEGORY, new AnomalyDetector()),
+                new SalesForecaster());
+    }
+
+    /**
+     * Detector de anomalías del modelo (directo o dentro de un ModelRouter), o null.
+     */
+    static AnomalyDetector anomalyDetector(IPredictiveModel model) {
+        if (model instanceof AnomalyDetector) {
+            return (AnomalyDetector) model;
+        }
+        if (model instanceof ModelRouter) {
+            for (IPredictiveModel routed : ((ModelRouter) model).getModels()) {
+                if (routed instanceof AnomalyDetector) {
+                    return (AnomalyDetector) routed;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Número de entradas de --harmonization-cache: 0 (sin caché) o al menos
+     * CachingHarmonizer.MIN_ENTRIES.
+     */
+    static int cacheEntries(String[] args, int i) {
+        long entries = number(args, i);
+        if (entries != 0 && (entries < CachingHarmonizer.MIN_ENTRIES || entries > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Cache size must be 0 or between " + CachingHarmonizer.MIN_ENTRIES
+                    + " and " + Integer.MAX_VALUE);
+        }
+        return (int) entries;
+    }
+
+    static ReportFormat format(String name) {
+        for (ReportFormat format : ReportFormat.values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format: " + name);
+    }
+
+    /**
+     * Formato según la extensión del archivo, o 'fallback' si no coincide con ninguno.
+     */
+    static ReportFormat formatOf(String file, ReportFormat fallback) {
+        String name = file.toLowerCase();
+        for (ReportFormat format : ReportFormat.values()) {
+            if (name.endsWith(format.getExtension())) {
+                return format;
+            }
+        }
+        return fallback;
+    }
+}
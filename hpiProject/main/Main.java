@@ -1,45 +1,88 @@
 package main;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
-import java.util.ArrayList;
 
 // Imports de la arquitectura HPI
-import ingestion.IDataLoader;
-import ingestion.CsvDataLoader;
+import ingestion.DeadLetterQueue;
+import ingestion.IncrementalCsvDataLoader;
+import ingestion.IncrementalCsvDataLoader.RefreshResult;
 import harmonization.IHarmonizer;
-import harmonization.RuleBasedHarmonizer;
+import harmonization.HarmonizationRules;
+import harmonization.RuleEngineHarmonizer;
+import analytics.AggregationEngine;
+import analytics.AggregationResult;
+import analytics.AnomalyDetector;
+import analytics.GroupBy;
 import analytics.IPredictiveModel;
+import analytics.ModelRouter;
 import analytics.SalesForecaster;
+import analytics.TimeSeriesForecaster;
+import metrics.MetricsDumper;
+import metrics.MetricsRegistry;
+import metrics.MetricsSnapshot;
 import model.RawDataRecord;
-import model.HarmonizedData;
-import model.PredictionResult;
+import model.RecordStore;
+import model.RecordStoreSnapshot;
+import model.SourceFingerprint;
 
+import config.ConfigSnapshot;
 import config.ConfigurationContext;
+import pipeline.AnalysisPipeline;
+import pipeline.PipelineOptions;
+import pipeline.PipelineSummary;
+import reporting.IReportWriter;
 import reporting.ReportExporter;
+import reporting.ReportFormat;
 
 public class Main {
 
+    private static final String METRICS_FILE = "hpi_metrics.prom";
+
     public static void main(String[] args) {
+        // Modo streaming sin menú: --watch <archivo|directorio>...
+        if (args.length > 0 && StreamingMode.WATCH_FLAG.equals(args[0])) {
+            System.exit(StreamingMode.run(args,
+                    new RuleEngineHarmonizer(loadHarmonizationRules("harmonization_rules.properties"))));
+        }
+        // Modo por lotes sin menú ni retardos: --batch <archivo|directorio>...
+        if (args.length > 0 && BatchMode.BATCH_FLAG.equals(args[0])) {
+            System.exit(BatchMode.run(args,
+                    new RuleEngineHarmonizer(loadHarmonizationRules("harmonization_rules.properties"))));
+        }
+
         printHeader();
         Scanner scanner = new Scanner(System.in);
         ConfigurationContext config = ConfigurationContext.getInstance();
         ReportExporter reportExporter = new ReportExporter();
+        AggregationEngine aggregationEngine = new AggregationEngine();
 
         // Inicialización de componentes
         String csvFilePath = "mock_data.csv";
-        IDataLoader dataLoader = new CsvDataLoader();
-        IHarmonizer harmonizer = new RuleBasedHarmonizer();
-        IPredictiveModel aiModel = new SalesForecaster();
+        IncrementalCsvDataLoader dataLoader = new IncrementalCsvDataLoader();
+        HarmonizationRules rules = loadHarmonizationRules("harmonization_rules.properties");
+        IHarmonizer harmonizer = new RuleEngineHarmonizer(rules);
+        // Identifica la armonización guardada en los snapshots (cambia si cambian las reglas)
+        String harmonizerId = "RuleEngineHarmonizer/" + Long.toHexString(rules.fingerprint());
+        // Motores de predicción disponibles; el activo se elige en Configuración
+        IPredictiveModel[] forecastEngines = { new SalesForecaster(), new TimeSeriesForecaster(),
+                CommandLine.sensorAnomalyRouter() };
+        IPredictiveModel aiModel = forecastEngines[0];
 
-        List<RawDataRecord> loadedKnowledgeBase = null;
-        List<PredictionResult> lastResults = null; // Para guardar reporte después
+        // Datos cargados y resultados del análisis, en formato columnar
+        RecordStore knowledgeBase = null;
+        // Volcado periódico de métricas (se activa desde la vista de métricas)
+        MetricsDumper metricsDumper = null;
 
         boolean running = true;
 
         while (running) {
-            boolean hasData = (loadedKnowledgeBase != null && !loadedKnowledgeBase.isEmpty());
-            boolean hasResults = (lastResults != null && !lastResults.isEmpty());
+            boolean hasData = (knowledgeBase != null && !knowledgeBase.isEmpty());
+            boolean hasResults = (hasData && knowledgeBase.getAnalyzedCount() > 0);
 
             printDynamicMenu(hasData, hasResults);
             System.out.print("\n>> Select option: ");
@@ -66,18 +109,22 @@ public class Main {
                 switch (input) {
                     case "1":
                         simulateLoading("Connecting to Data Lake");
-                        loadedKnowledgeBase = dataLoader.loadData(csvFilePath);
-                        if (!loadedKnowledgeBase.isEmpty()) {
+                        knowledgeBase = loadKnowledgeBase(dataLoader, csvFilePath, harmonizer, harmonizerId,
+                                aiModel, config);
+                        if (!knowledgeBase.isEmpty()) {
                             System.out
-                                    .println(" [OK] Ingestion successful: " + loadedKnowledgeBase.size() + " records.");
+                                    .println(" [OK] Ingestion successful: " + knowledgeBase.size() + " records.");
                         } else {
                             System.out.println(" [!] No data found.");
                         }
                         break;
                     case "2": // Ajustes
-                        openSettingsMenu(scanner, config);
+                        aiModel = openSettingsMenu(scanner, config, forecastEngines, aiModel);
                         break;
                     case "3":
+                        metricsDumper = openMetricsView(scanner, metricsDumper);
+                        break;
+                    case "4":
                         running = false;
                         break;
                     default:
@@ -86,28 +133,36 @@ public class Main {
             } else {
                 switch (input) {
                     case "1":
-                        inspectData(loadedKnowledgeBase);
+                        inspectData(knowledgeBase);
                         break;
-                    case "2": // Reload
+                    case "2": // Reload (incremental: solo las filas añadidas desde la última lectura)
                         simulateLoading("Refreshing Cache");
-                        loadedKnowledgeBase = dataLoader.loadData(csvFilePath);
-                        // Limpiamos resultados anteriores pues los datos cambiaron
-                        lastResults = null;
+                        knowledgeBase = refreshKnowledgeBase(dataLoader, csvFilePath, knowledgeBase, harmonizer,
+                                aiModel, config);
                         break;
                     case "3":
-                        simulateLoading("Running AI Models");
-                        lastResults = runAnalysisPipeline(loadedKnowledgeBase, harmonizer, aiModel, config);
-
-                        // Proactive export offer
+                        // Proactive export offer: el reporte se escribe mientras se analiza
                         System.out.print("\n>> Do you want to save detailed report to disk? (y/n): ");
-                        if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
-                            reportExporter.exportReport(loadedKnowledgeBase, lastResults);
-                        }
+                        ReportFormat reportFormat = scanner.nextLine().trim().equalsIgnoreCase("y")
+                                ? askReportFormat(scanner)
+                                : null;
+                        simulateLoading("Running AI Models");
+                        runAnalysisPipeline(knowledgeBase, harmonizer, aiModel, config, reportExporter, reportFormat);
                         break;
                     case "4":
-                        openSettingsMenu(scanner, config);
+                        aiModel = openSettingsMenu(scanner, config, forecastEngines, aiModel);
                         break;
                     case "5":
+                        metricsDumper = openMetricsView(scanner, metricsDumper);
+                        break;
+                    case "6":
+                        if (hasResults) {
+                            openAggregationView(scanner, knowledgeBase, aggregationEngine, reportExporter);
+                        } else {
+                            System.out.println(" [!] No results yet: run the AI engine first.");
+                        }
+                        break;
+                    case "7":
                         running = false;
                         break;
                     default:
@@ -120,6 +175,9 @@ public class Main {
             }
         }
 
+        if (metricsDumper != null) {
+            metricsDumper.close(); // Último volcado con el estado final
+        }
         scanner.close();
         System.out.println("\n=== SESSION TERMINATED ===");
     }
@@ -133,7 +191,8 @@ public class Main {
             System.out.println("├──────────────────────────────────────────┤");
             System.out.println("|  [1] Load Data (Ingestion)               |");
             System.out.println("|  [2] Global Configuration (AI Params)    |");
-            System.out.println("|  [3] Exit                                |");
+            System.out.println("|  [3] Pipeline Metrics                    |");
+            System.out.println("|  [4] Exit                                |");
         } else {
             System.out.println("|  STATUS: DATA IN MEMORY (" + (hasResults ? "ANALYZED" : "PENDING") + ")      |");
             System.out.println("├──────────────────────────────────────────┤");
@@ -141,12 +200,16 @@ public class Main {
             System.out.println("|  [2] Re-Load Data (Refresh)              |");
             System.out.println("|  [3] RUN AI ENGINE (Predict)             |");
             System.out.println("|  [4] Global Configuration (AI Params)    |");
-            System.out.println("|  [5] Exit                                |");
+            System.out.println("|  [5] Pipeline Metrics                    |");
+            System.out.println("|  [6] Summary Statistics (Group By)       |");
+            System.out.println("|  [7] Exit                                |");
         }
         System.out.println("└──────────────────────────────────────────┘");
     }
 
-    private static void openSettingsMenu(Scanner scanner, ConfigurationContext config) {
+    // Devuelve el motor de predicción activo tras los cambios
+    private static IPredictiveModel openSettingsMenu(Scanner scanner, ConfigurationContext config,
+            IPredictiveModel[] engines, IPredictiveModel current) {
         System.out.println("\n>>> SYSTEM CONFIGURATION <<<");
         System.out.println("Current Growth Factor: " + config.getGrowthFactor() + "x");
         System.out.print("Enter new factor (e.g., 1.5 for 50% growth), or ENTER to cancel: ");
@@ -160,41 +223,342 @@ public class Main {
                 System.out.println(" [!] Invalid value.");
             }
         }
+
+        ConfigSnapshot settings = config.snapshot();
+        System.out.println("\nConfidence: " + (settings.isDeterministicConfidence()
+                ? "deterministic (seed " + settings.getConfidenceSeed() + ")" : "random"));
+        System.out.print("Enter a seed for reproducible runs, 'random', or ENTER to keep: ");
+        String seed = scanner.nextLine().trim();
+        if (seed.equalsIgnoreCase("random")) {
+            config.setRandomConfidence();
+        } else if (!seed.isEmpty()) {
+            try {
+                config.setConfidenceSeed(Long.parseLong(seed));
+            } catch (NumberFormatException e) {
+                System.out.println(" [!] Invalid seed.");
+            }
+        }
+
+        System.out.println("\nForecast engine (current: " + engineName(current) + ")");
+        for (int i = 0; i < engines.length; i++) {
+            System.out.println("  [" + (i + 1) + "] " + engineName(engines[i]));
+        }
+        System.out.print("Select engine, or ENTER to keep: ");
+        String choice = scanner.nextLine().trim();
+        if (!choice.isEmpty()) {
+            try {
+                IPredictiveModel selected = engines[Integer.parseInt(choice) - 1];
+                System.out.println(" [OK] Forecast engine: " + engineName(selected));
+                return selected;
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                System.out.println(" [!] Invalid engine.");
+            }
+        }
+        return current;
+    }
+
+    // Devuelve el volcado periódico activo tras los cambios (o null)
+    private static MetricsDumper openMetricsView(Scanner scanner, MetricsDumper dumper) {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        System.out.println("\n>>> PIPELINE METRICS <<<");
+        System.out.print(metrics.snapshot());
+        System.out.println("Periodic dump: " + (dumper == null ? "off" : dumper.getFile()));
+        System.out.print("[E] Enable/disable  [D] Dump to " + METRICS_FILE + "  [A] Toggle periodic dump  [R] Reset"
+                + "  (ENTER to go back): ");
+        switch (scanner.nextLine().trim().toUpperCase()) {
+            case "E":
+                metrics.setEnabled(!metrics.isEnabled());
+                System.out.println(" [OK] Metrics " + (metrics.isEnabled() ? "enabled." : "disabled."));
+                break;
+            case "D":
+                try {
+                    MetricsDumper.dump(metrics.snapshot(), Paths.get(METRICS_FILE));
+                    System.out.println(" [OK] Metrics written to " + METRICS_FILE);
+                } catch (IOException e) {
+                    System.err.println("[Metrics Error] " + e.getMessage());
+                }
+                break;
+            case "A":
+                if (dumper != null) {
+                    dumper.close();
+                    System.out.println(" [OK] Periodic dump stopped.");
+                    return null;
+                }
+                dumper = new MetricsDumper(Paths.get(METRICS_FILE), MetricsDumper.DEFAULT_INTERVAL_MS);
+                System.out.println(" [OK] Dumping to " + dumper.getFile() + " every "
+                        + MetricsDumper.DEFAULT_INTERVAL_MS / 1000 + " s.");
+                break;
+            case "R":
+                metrics.reset();
+                System.out.println(" [OK] Metrics reset.");
+                break;
+            default:
+                break;
+        }
+        return dumper;
+    }
+
+    // Estadísticos de los resultados por categoría o por fuente, con exportación opcional
+    private static void openAggregationView(Scanner scanner, RecordStore knowledgeBase, AggregationEngine engine,
+            ReportExporter reportExporter) {
+        System.out.println("\n>>> SUMMARY STATISTICS <<<");
+        System.out.print(">> Group by: [1] Category  [2] Source (default 1): ");
+        GroupBy groupBy = "2".equals(scanner.nextLine().trim()) ? GroupBy.SOURCE : GroupBy.CATEGORY;
+
+        AggregationResult result = engine.aggregate(knowledgeBase, groupBy);
+        System.out.println();
+        System.out.print(result);
+
+        System.out.print("\n>> Do you want to save the summary to disk? (y/n): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+            System.out.print(">> Format: [1] Text  [2] CSV (default 1): ");
+            ReportFormat format = "2".equals(scanner.nextLine().trim()) ? ReportFormat.CSV : ReportFormat.TEXT;
+            reportExporter.exportAggregation(result, format);
+        }
+    }
+
+    private static String engineName(IPredictiveModel engine) {
+        if (engine instanceof ModelRouter) {
+            return "Sensor anomaly detection (rolling z-score) + growth projection";
+        }
+        return engine instanceof TimeSeriesForecaster ? "Time series per source (Holt smoothing)"
+                : "Growth projection (growth factor)";
     }
 
     // --- LÓGICA CORE ---
 
-    // Ahora retorna resultados para la exportación
-    private static List<PredictionResult> runAnalysisPipeline(List<RawDataRecord> rawRecords, IHarmonizer harmonizer,
-            IPredictiveModel aiModel, ConfigurationContext config) {
-        List<PredictionResult> results = new ArrayList<>();
-        int processed = 0;
+    /**
+     * Carga el CSV desde su snapshot (RecordStoreSnapshot) si sigue
+     * correspondiendo al archivo y a las reglas de armonización; si no, lo
+     * lee y armoniza entero y guarda un snapshot nuevo para la próxima sesión.
+     */
+    private static RecordStore loadKnowledgeBase(IncrementalCsvDataLoader dataLoader, String path,
+            IHarmonizer harmonizer, String harmonizerId, IPredictiveModel aiModel, ConfigurationContext config) {
+        Path snapshotFile = Paths.get(path + RecordStoreSnapshot.EXTENSION);
+        SourceFingerprint source;
+        try {
+            source = SourceFingerprint.of(Paths.get(path));
+        } catch (IOException e) {
+            System.err.println("[Ingestion Error] Could not read file: " + e.getMessage());
+            return new RecordStore();
+        }
 
-        System.out.println("\n>>> Real-time Results:");
-        System.out.println("----------------------------------------");
+        RecordStore warm = loadSnapshot(dataLoader, path, snapshotFile, source, harmonizer, harmonizerId);
+        if (warm != null) {
+            return warm;
+        }
 
-        for (RawDataRecord rawRecord : rawRecords) {
-            HarmonizedData cleanData = harmonizer.harmonize(rawRecord);
+        System.out.println("[Ingestion] Starting columnar load: " + path);
+        DeadLetterQueue deadLetters = newDeadLetterQueue();
+        try {
+            RefreshResult loaded = dataLoader.refresh(path, null, deadLetters);
+            RecordStore store = loaded.getStore();
+            System.out.printf("[Ingestion] Read complete. Records loaded: %d (%.1f MB in memory)%n", store.size(),
+                    store.estimatedBytes() / (1024.0 * 1024.0));
+            if (!store.isEmpty()) {
+                // Se armoniza ya para que el snapshot sirva a la próxima sesión
+                PipelineSummary harmonized = newPipeline(harmonizer, aiModel, config).harmonize(store);
+                System.out.printf("[Harmonization] %d of %d records valid (%.1f ms)%n",
+                        harmonized.getRecordsProcessed(), harmonized.getRecordsRead(),
+                        harmonized.getElapsedNanos() / 1e6);
+                writeSnapshot(store, source, loaded.getToOffset(), loaded.getLinesRead(), harmonizer, harmonizerId,
+                        snapshotFile);
+            }
+            return store;
+        } catch (IOException e) {
+            System.err.println("[Ingestion Error] Could not read file: " + e.getMessage());
+            return new RecordStore();
+        } finally {
+            closeDeadLetterQueue(deadLetters);
+        }
+    }
+
+    // Almacén del snapshot, o null si no existe, está desfasado o no se puede leer
+    private static RecordStore loadSnapshot(IncrementalCsvDataLoader dataLoader, String path, Path snapshotFile,
+            SourceFingerprint source, IHarmonizer harmonizer, String harmonizerId) {
+        long start = System.nanoTime();
+        try {
+            RecordStoreSnapshot snapshot = RecordStoreSnapshot.open(snapshotFile);
+            String staleReason = snapshot.staleReason(source, harmonizerId);
+            if (staleReason != null) {
+                System.out.println("[Ingestion] Snapshot is stale (" + staleReason + "), rebuilding.");
+                return null;
+            }
+            RecordStore store = snapshot.load(harmonizer);
+            dataLoader.resume(path, snapshot.getSourceOffset(), snapshot.getSourceLines());
+            System.out.printf("[Ingestion] Snapshot loaded: %d records (%d harmonized) from %s in %.1f ms%n",
+                    store.size(), snapshot.getHarmonizedRows(), snapshotFile, (System.nanoTime() - start) / 1e6);
+            return store;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[Ingestion] Ignoring unreadable snapshot (" + e.getMessage() + "), rebuilding.");
+            return null;
+        }
+    }
 
-            if (cleanData.isValid()) {
-                PredictionResult prediction = aiModel.predict(cleanData);
-                results.add(prediction);
+    private static void writeSnapshot(RecordStore store, SourceFingerprint source, long sourceOffset,
+            long sourceLines, IHarmonizer harmonizer, String harmonizerId, Path snapshotFile) {
+        long start = System.nanoTime();
+        try {
+            RecordStoreSnapshot.write(store, source, sourceOffset, sourceLines, harmonizer, harmonizerId,
+                    snapshotFile);
+            System.out.printf("[Ingestion] Snapshot written: %s (%.1f ms)%n", snapshotFile,
+                    (System.nanoTime() - start) / 1e6);
+        } catch (IOException e) {
+            System.err.println("[Ingestion Error] Could not write snapshot: " + e.getMessage());
+        }
+    }
 
-                // Mostrar solo resumen por pantalla para no saturar
-                System.out.printf(" > ID: %-10s | Predict: %8.2f | Conf: %4.1f%%\n",
-                        rawRecord.getSourceId(), prediction.getPredictedValue(), prediction.getConfidenceScore() * 100);
-                processed++;
+    /**
+     * Lee solo las filas nuevas del archivo. Si ya había resultados, analiza
+     * únicamente esas filas y las une a los existentes. Si desde el último
+     * análisis cambiaron los ajustes, el harmonizador o el motor de
+     * predicción, las filas anteriores se vuelven a analizar para no mezclar
+     * resultados de configuraciones distintas. Si el archivo fue rotado o
+     * truncado se recarga entero y los resultados se descartan, pues los datos
+     * cambiaron.
+     */
+    private static RecordStore refreshKnowledgeBase(IncrementalCsvDataLoader dataLoader, String path,
+            RecordStore current, IHarmonizer harmonizer, IPredictiveModel aiModel, ConfigurationContext config) {
+        boolean wasAnalyzed = current.getAnalyzedCount() > 0;
+        DeadLetterQueue deadLetters = newDeadLetterQueue();
+        try {
+            RefreshResult refresh = dataLoader.refresh(path, current, deadLetters);
+            System.out.println("[Ingestion] Refresh: " + refresh);
+            RecordStore store = refresh.getStore();
 
-                // Simular latencia de computación en modo 'Detailed'
-                try {
-                    Thread.sleep(50);
-                } catch (Exception e) {
+            if (wasAnalyzed && refresh.getMode() == RefreshResult.Mode.INCREMENTAL) {
+                AnalysisPipeline pipeline = newPipeline(harmonizer, aiModel, config, deadLetters);
+                int firstNewRow = refresh.getFirstNewRow();
+                if (store.isAnalysisCurrent(firstNewRow, config.snapshot().getVersion(), harmonizer, aiModel)) {
+                    PipelineSummary summary = pipeline.run(store, firstNewRow);
+                    System.out.println(" [OK] " + summary.getRecordsProcessed()
+                            + " new records analyzed and merged (" + store.getAnalyzedCount() + " total).");
+                } else {
+                    System.out.println(" [!] Settings or forecast engine changed since the last analysis. "
+                            + "Re-analyzing all " + store.size() + " records.");
+                    PipelineSummary summary = pipeline.run(store, 0);
+                    System.out.println(" [OK] " + summary.getRecordsProcessed() + " records analyzed.");
                 }
             }
+            return store;
+        } catch (IOException e) {
+            System.err.println("[Ingestion Error] Could not refresh file: " + e.getMessage());
+            return current;
+        } finally {
+            closeDeadLetterQueue(deadLetters);
+        }
+    }
+
+    private static AnalysisPipeline newPipeline(IHarmonizer harmonizer, IPredictiveModel aiModel,
+            ConfigurationContext config) {
+        return newPipeline(harmonizer, aiModel, config, null);
+    }
+
+    private static AnalysisPipeline newPipeline(IHarmonizer harmonizer, IPredictiveModel aiModel,
+            ConfigurationContext config, DeadLetterQueue deadLetters) {
+        return new AnalysisPipeline(harmonizer, aiModel, PipelineOptions.interactive(config.snapshot()),
+                deadLetters);
+    }
+
+    // Cuarentena de una carga o un análisis: el archivo solo se crea si hay algún registro
+    private static DeadLetterQueue newDeadLetterQueue() {
+        return new DeadLetterQueue(Paths.get(DeadLetterQueue.defaultFileName()));
+    }
+
+    private static void closeDeadLetterQueue(DeadLetterQueue deadLetters) {
+        try {
+            deadLetters.close();
+        } catch (IOException e) {
+            System.err.println("[Ingestion Error] Could not write dead-letter file: " + e.getMessage());
+        }
+        if (deadLetters.getTotal() > 0) {
+            System.out.println("[Ingestion] " + deadLetters);
+        }
+    }
+
+    /**
+     * Los resultados quedan en las columnas del propio almacén. Con
+     * reportFormat, cada lote analizado pasa a un reporte asíncrono
+     * (ReportExporter.openAsync) que se escribe en disco mientras se analizan
+     * los siguientes; un error de escritura detiene el análisis.
+     */
+    private static void runAnalysisPipeline(RecordStore knowledgeBase, IHarmonizer harmonizer,
+            IPredictiveModel aiModel, ConfigurationContext config, ReportExporter reportExporter,
+            ReportFormat reportFormat) {
+        String reportFile = reportFormat == null ? null : ReportExporter.defaultFileName(reportFormat);
+        if (reportFile != null) {
+            System.out.println("\n>>> Generating report on disk during the analysis: " + reportFile + "...");
         }
+        System.out.println("\n>>> Real-time Results:");
+        System.out.println("----------------------------------------");
+
+        // Progreso agregado por el motor en lugar de una línea por registro
+        MetricsSnapshot before = MetricsRegistry.getInstance().snapshot();
+        DeadLetterQueue deadLetters = newDeadLetterQueue();
+        PipelineSummary summary;
+        try (IReportWriter report = reportFile == null ? null
+                : reportExporter.openAsync(Paths.get(reportFile), reportFormat)) {
+            AnalysisPipeline pipeline = newPipeline(harmonizer, aiModel, config, deadLetters);
+            summary = report == null ? pipeline.run(knowledgeBase)
+                    : pipeline.run(knowledgeBase, report.asSink(knowledgeBase));
+        } catch (IOException | UncheckedIOException e) {
+            String message = e instanceof UncheckedIOException ? e.getCause().getMessage() : e.getMessage();
+            System.err.println(">>> [ERROR] Failed to write report: " + message);
+            return;
+        } finally {
+            closeDeadLetterQueue(deadLetters);
+        }
+        MetricsSnapshot after = MetricsRegistry.getInstance().snapshot();
+
         System.out.println("----------------------------------------");
-        System.out.println("Total processed: " + processed);
-        return results;
+        System.out.println("Total processed: " + summary.getRecordsProcessed());
+        if (after.isEnabled()) {
+            // Resultados de la armonización en esta ejecución (diferencia entre lecturas)
+            StringBuilder outcomes = new StringBuilder();
+            after.getCategoryCounts().forEach((category, count) -> {
+                long delta = count - before.getCategoryCounts().getOrDefault(category, 0L);
+                if (delta > 0) {
+                    outcomes.append(outcomes.length() == 0 ? "" : ", ").append(category).append(": ").append(delta);
+                }
+            });
+            long reused = after.getCacheHits(AnalysisPipeline.ANALYSIS_CACHE)
+                    - before.getCacheHits(AnalysisPipeline.ANALYSIS_CACHE);
+            System.out.println("Harmonization: " + (reused > 0 ? "previous results reused"
+                    : outcomes.length() == 0 ? "-" : outcomes));
+        }
+        AnomalyDetector detector = CommandLine.anomalyDetector(aiModel);
+        if (detector != null) {
+            System.out.println("Sensors: " + detector);
+        }
+        if (reportFile != null) {
+            System.out.println(">>> [OK] Report saved successfully.");
+        }
+    }
+
+    private static ReportFormat askReportFormat(Scanner scanner) {
+        System.out.print(">> Format: [1] Text  [2] CSV  [3] Binary (default 1): ");
+        switch (scanner.nextLine().trim()) {
+            case "2":
+                return ReportFormat.CSV;
+            case "3":
+                return ReportFormat.BINARY;
+            default:
+                return ReportFormat.TEXT;
+        }
+    }
+
+    // Reglas de armonización desde archivo; si no existe se usan las reglas por defecto
+    private static HarmonizationRules loadHarmonizationRules(String rulesPath) {
+        try {
+            HarmonizationRules rules = HarmonizationRules.load(rulesPath);
+            System.out.println("[Harmonization] Rules loaded: " + rules.getCategoryRules().size() + " category rules.");
+            return rules;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("[Harmonization] Using default rules (" + e.getMessage() + ")");
+            return HarmonizationRules.defaults();
+        }
     }
 
     // --- UTILIDADES VISUALES ---
@@ -211,14 +575,12 @@ public class Main {
         System.out.println("] 100%");
     }
 
-    private static void inspectData(List<RawDataRecord> records) {
+    private static void inspectData(RecordStore records) {
         System.out.println("\n>>> RAW DATA INSPECTOR (Top 5)");
-        int count = 0;
-        for (RawDataRecord r : records) {
-            if (count >= 5)
-                break;
+        // Solo se materializan como RawDataRecord las filas que se muestran
+        for (int count = 0; count < Math.min(5, records.size()); count++) {
+            RawDataRecord r = records.record(count);
             System.out.printf("#%d | ID: %-10s | RAW: %s\n", (count + 1), r.getSourceId(), r.getRawContent());
-            count++;
         }
     }
 
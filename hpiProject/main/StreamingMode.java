@@ -0,0 +1,310 @@
+package main;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import analytics.AnomalyDetector;
+import analytics.IPredictiveModel;
+import analytics.SalesForecaster;
+import harmonization.CachingHarmonizer;
+import harmonization.IHarmonizer;
+import ingestion.CsvTailWatcher;
+import ingestion.DeadLetterQueue;
+import metrics.MetricsDumper;
+import model.PredictionResult;
+import model.RawDataRecord;
+import pipeline.StreamOptions;
+import pipeline.StreamProcessor;
+import reporting.IReportWriter;
+import reporting.ReportExporter;
+import reporting.ReportFormat;
+
+/**
+ * Modo streaming sin menú: vigila archivos o directorios CSV y emite una
+ * predicción por cada línea nueva en cuanto llega.
+ *
+ * Uso: --watch <ruta>... [--from-beginning] [--batch-size N]
+ *      [--max-latency-ms N] [--queue N] [--out archivo.{txt|csv|hpir}]
+ *      [--duration-sec N] [--model growth|timeseries|anomaly] [--metrics archivo.prom]
+ *      [--harmonization-cache N] [--dead-letters archivo.csv]
+ *
+ * Sin --out las predicciones se escriben por consola. Con --metrics las
+ * métricas del pipeline se vuelcan a ese archivo cada pocos segundos. Con
+ * --harmonization-cache los valores repetidos se armonizan una sola vez
+ * (CachingHarmonizer de N entradas). Las líneas mal formadas y los valores
+ * vacíos o ilegibles van a --dead-letters (por defecto
+ * Dead_Letters_&lt;fecha&gt;.csv), que se vuelca tras cada micro-lote que
+ * aparta alguno. Termina con Ctrl+C o tras --duration-sec, después de
+ * procesar lo ya leído.
+ */
+final class StreamingMode {
+
+    static final String WATCH_FLAG = "--watch";
+
+    private static final long SHUTDOWN_GRACE_MS = 5000;
+
+    private StreamingMode() {
+    }
+
+    /**
+     * @return Código de salida del proceso.
+     */
+    static int run(String[] args, IHarmonizer harmonizer) {
+        Arguments arguments;
+        try {
+            arguments = Arguments.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[Stream] " + e.getMessage());
+            System.err.println("Usage: " + WATCH_FLAG + " <file|dir>... [--from-beginning] [--batch-size N]"
+                    + " [--max-latency-ms N] [--queue N] [--out FILE] [--duration-sec N]"
+                    + " [--model growth|timeseries|anomaly] [--metrics FILE] [--harmonization-cache N]"
+                    + " [--dead-letters FILE]");
+            return CommandLine.EXIT_USAGE;
+        }
+
+        CachingHarmonizer cache = arguments.harmonizationCache > 0
+                ? new CachingHarmonizer(harmonizer, arguments.harmonizationCache)
+                : null;
+        DeadLetterQueue deadLetters = new DeadLetterQueue(Paths.get(arguments.deadLettersFile != null
+                ? arguments.deadLettersFile : DeadLetterQueue.defaultFileName()));
+        StreamProcessor processor = new StreamProcessor(cache != null ? cache : harmonizer, arguments.model,
+                arguments.options, deadLetters);
+        CountDownLatch finished = new CountDownLatch(1);
+        Thread shutdownHook = null;
+        MetricsDumper metricsDumper = arguments.metricsFile == null ? null
+                : new MetricsDumper(Paths.get(arguments.metricsFile), MetricsDumper.DEFAULT_INTERVAL_MS);
+
+        try (deadLetters; Output output = Output.open(arguments.outFile)) {
+            try (CsvTailWatcher watcher = new CsvTailWatcher(arguments.paths, arguments.fromBeginning,
+                    deadLetters)) {
+                shutdownHook = new Thread(() -> {
+                    closeQuietly(watcher);
+                    try {
+                        finished.await(SHUTDOWN_GRACE_MS, TimeUnit.MILLISECONDS); // Dejar vaciar la cola
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "hpi-stream-shutdown");
+                Runtime.getRuntime().addShutdownHook(shutdownHook);
+                if (arguments.durationSec > 0) {
+                    stopAfter(watcher, arguments.durationSec);
+                }
+
+                System.out.println("[Stream] Micro-batches of up to " + arguments.options.getMaxBatchSize()
+                        + " records, max latency " + arguments.options.getMaxLatencyMs() + " ms. Output: "
+                        + (arguments.outFile == null ? "console" : arguments.outFile));
+                processor.start(output.sink, output::flush);
+                watcher.run(processor.input());
+            } finally {
+                processor.close(); // Procesa lo ya encolado antes de cerrar la salida
+            }
+
+            System.out.println("[Stream] Stopped. " + processor.stats());
+            System.out.println("[Stream] " + deadLetters);
+            if (cache != null) {
+                System.out.println("[Stream] " + cache);
+            }
+            AnomalyDetector detector = CommandLine.anomalyDetector(arguments.model);
+            if (detector != null) {
+                System.out.println("[Stream] " + detector);
+            }
+            return processor.getFailure() == null ? CommandLine.EXIT_OK : CommandLine.EXIT_FAILURE;
+
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[Stream Error] " + e.getMessage());
+            return CommandLine.EXIT_FAILURE;
+        } finally {
+            if (metricsDumper != null) {
+                metricsDumper.close();
+            }
+            finished.countDown();
+            removeShutdownHook(shutdownHook);
+        }
+    }
+
+    private static void stopAfter(CsvTailWatcher watcher, long seconds) {
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+                closeQuietly(watcher);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "hpi-stream-timer");
+        stopper.setDaemon(true);
+        stopper.start();
+    }
+
+    private static void closeQuietly(CsvTailWatcher watcher) {
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            System.err.println("[Stream Error] " + e.getMessage());
+        }
+    }
+
+    private static void removeShutdownHook(Thread hook) {
+        if (hook == null) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // Ya se está apagando la JVM (Ctrl+C): el propio hook está esperando
+        }
+    }
+
+    /**
+     * Destino de las predicciones: un reporte en disco o la consola, con un
+     * volcado al final de cada micro-lote.
+     */
+    private static final class Output implements AutoCloseable {
+        private final BiConsumer<RawDataRecord, PredictionResult> sink;
+        private final Target target;
+
+        private Output(BiConsumer<RawDataRecord, PredictionResult> sink, Target target) {
+            this.sink = sink;
+            this.target = target;
+        }
+
+        static Output open(String outFile) throws IOException {
+            if (outFile != null) {
+                IReportWriter writer = new ReportExporter().open(Paths.get(outFile),
+                        CommandLine.formatOf(outFile, ReportFormat.TEXT));
+                return new Output(writer.asSink(), new Target() {
+                    @Override
+                    public void flush() throws IOException {
+                        writer.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        writer.close();
+                    }
+                });
+            }
+
+            Writer console = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            return new Output((rawRecord, prediction) -> {
+                try {
+                    console.write(String.format("[Stream] %s -> %s: %.2f (%.1f%%)%n", rawRecord.getSourceId(),
+                            prediction.getTargetVariable(), prediction.getPredictedValue(),
+                            prediction.getConfidenceScore() * 100));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, new Target() {
+                @Override
+                public void flush() throws IOException {
+                    console.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    console.flush(); // System.out no se cierra
+                }
+            });
+        }
+
+        void flush() {
+            try {
+                target.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.close();
+        }
+
+        private interface Target extends AutoCloseable {
+            void flush() throws IOException;
+
+            @Override
+            void close() throws IOException;
+        }
+    }
+
+    /**
+     * Argumentos de la línea de comandos del modo streaming.
+     */
+    private static final class Arguments {
+        private final List<String> paths = new ArrayList<>();
+        private boolean fromBeginning = false;
+        private String outFile;
+        private String metricsFile;
+        private long durationSec = 0;
+        private int harmonizationCache = 0;
+        private String deadLettersFile;
+        private IPredictiveModel model = new SalesForecaster();
+        private StreamOptions options;
+
+        static Arguments parse(String[] args) {
+            Arguments parsed = new Arguments();
+            StreamOptions defaults = StreamOptions.defaults();
+            int batchSize = defaults.getMaxBatchSize();
+            long maxLatencyMs = defaults.getMaxLatencyMs();
+            int queueCapacity = defaults.getQueueCapacity();
+
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case WATCH_FLAG:
+                        break;
+                    case "--from-beginning":
+                        parsed.fromBeginning = true;
+                        break;
+                    case "--batch-size":
+                        batchSize = (int) CommandLine.number(args, ++i);
+                        break;
+                    case "--max-latency-ms":
+                        maxLatencyMs = CommandLine.number(args, ++i);
+                        break;
+                    case "--queue":
+                        queueCapacity = (int) CommandLine.number(args, ++i);
+                        break;
+                    case "--out":
+                        parsed.outFile = CommandLine.value(args, ++i);
+                        break;
+                    case "--duration-sec":
+                        parsed.durationSec = CommandLine.number(args, ++i);
+                        break;
+                    case "--model":
+                        parsed.model = CommandLine.model(CommandLine.value(args, ++i));
+                        break;
+                    case "--metrics":
+                        parsed.metricsFile = CommandLine.value(args, ++i);
+                        break;
+                    case "--harmonization-cache":
+                        parsed.harmonizationCache = CommandLine.cacheEntries(args, ++i);
+                        break;
+                    case "--dead-letters":
+                        parsed.deadLettersFile = CommandLine.value(args, ++i);
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+                        parsed.paths.add(args[i]);
+                }
+            }
+            if (parsed.paths.isEmpty()) {
+                throw new IllegalArgumentException("No file or directory to watch");
+            }
+            parsed.options = new StreamOptions(batchSize, maxLatencyMs, queueCapacity,
+                    defaults.getStatsIntervalMs());
+            return parsed;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vuelca periódicamente las métricas a un archivo en formato de texto de
+ * Prometheus desde un hilo daemon propio.
+ *
+ * Cada volcado se escribe en un archivo temporal y se renombra sobre el
+ * destino, de modo que quien lo lea nunca ve un archivo a medio escribir.
+ * close() hace un último volcado.
+ */
+public class MetricsDumper implements Closeable {
+
+    public static final long DEFAULT_INTERVAL_MS = 5000;
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsDumper(Path file, long intervalMs) {
+        this(MetricsRegistry.getInstance(), file, intervalMs);
+    }
+
+    public MetricsDumper(MetricsRegistry registry, Path file, long intervalMs) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("Dump interval must be positive");
+        }
+        this.registry = registry;
+        this.file = file.toAbsolutePath();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hpi-metrics-dumper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::dumpQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Escribe las métricas actuales en el archivo indicado (reemplazo atómico).
+     *
+     * @throws IOException Si el archivo no puede escribirse.
+     */
+    public static void dump(MetricsSnapshot snapshot, Path file) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, snapshot.toPrometheusText().getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dumpQuietly();
+    }
+
+    private void dumpQuietly() {
+        try {
+            dump(registry.snapshot(), file);
+        } catch (IOException e) {
+            System.err.println("[Metrics Error] Could not write " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package metrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.HarmonizedBatch;
+import model.LabelDictionary;
+
+/**
+ * Métricas de proceso de toda la aplicación (singleton, como
+ * ConfigurationContext).
+ *
+ * Por cada etapa (Stage) se acumulan registros, bytes, tiempo ocupado y un
+ * histograma de la duración de cada muestra (un lote, una lectura o un
+ * volcado). Además se cuentan los registros por categoría de armonización.
+ *
+ * Todo son contadores sin bloqueos (LongAdder, incrementos atómicos) que se
+ * actualizan una vez por lote, nunca por registro. También se cuentan los
+ * aciertos y fallos de las cachés de resultados (recordCacheLookups).
+ * Desactivadas, cada punto de medida cuesta una lectura volátil:
+ *
+ *     long started = metrics.startTimer();
+ *     ...trabajo...
+ *     metrics.record(Stage.PREDICTION, started, records);
+ */
+public final class MetricsRegistry {
+
+    /** Valor de startTimer() con las métricas desactivadas: record() lo ignora. */
+    public static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final class Holder {
+        private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    }
+
+    private final StageMetrics[] stages = new StageMetrics[Stage.values().length];
+    private final Map<String, LongAdder> categories = new ConcurrentHashMap<>();
+    private final LongAdder invalidRecords = new LongAdder();
+    private final Map<String, CacheMetrics> caches = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    private volatile long sinceNanos = System.nanoTime();
+
+    private MetricsRegistry() {
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()] = new StageMetrics();
+        }
+    }
+
+    public static MetricsRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Inicio de una muestra, o NOT_TIMED si las métricas están desactivadas.
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    public void record(Stage stage, long startNanos, long records) {
+        record(stage, startNanos, records, 0);
+    }
+
+    /**
+     * Cierra una muestra iniciada con startTimer().
+     *
+     * @param records Registros procesados en la muestra.
+     * @param bytes   Bytes leídos o escritos en la muestra.
+     */
+    public void record(Stage stage, long startNanos, long records, long bytes) {
+        if (startNanos == NOT_TIMED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        StageMetrics metrics = stages[stage.ordinal()];
+        metrics.latency.record(elapsed);
+        metrics.busyNanos.add(elapsed);
+        metrics.records.add(records);
+        metrics.bytes.add(bytes);
+    }
+
+    /**
+     * Cuenta las categorías de un lote recién armonizado.
+     *
+     * @param rejected Registros del lote descartados por no ser válidos.
+     */
+    public void countCategories(HarmonizedBatch batch, int rejected) {
+        if (!enabled) {
+            return;
+        }
+        // Conteo local por id y una actualización por categoría del lote
+        LabelDictionary labels = batch.getCategories();
+        int[] ids = batch.getCategoryIds();
+        int[] perId = new int[16];
+        for (int i = 0; i < batch.size(); i++) {
+            if (ids[i] >= perId.length) {
+                perId = Arrays.copyOf(perId, Math.max(ids[i] + 1, perId.length * 2));
+            }
+            perId[ids[i]]++;
+        }
+        for (int id = 0; id < perId.length; id++) {
+            if (perId[id] > 0) {
+                categories.computeIfAbsent(labels.label(id), label -> new LongAdder()).add(perId[id]);
+            }
+        }
+        if (rejected > 0) {
+            invalidRecords.add(rejected);
+        }
+    }
+
+    /**
+     * Suma el resultado de una o varias búsquedas en una caché de resultados.
+     *
+     * @param cache  Nombre de la caché (etiqueta de la métrica).
+     * @param hits   Registros resueltos desde la caché.
+     * @param misses Registros que hubo que calcular.
+     */
+    public void recordCacheLookups(String cache, long hits, long misses) {
+        if (!enabled) {
+            return;
+        }
+        CacheMetrics metrics = caches.computeIfAbsent(cache, name -> new CacheMetrics());
+        metrics.hits.add(hits);
+        metrics.misses.add(misses);
+    }
+
+    /**
+     * Lectura de todos los contadores (aproximada si hay escritores activos).
+     */
+    public MetricsSnapshot snapshot() {
+        MetricsSnapshot.StageSnapshot[] stageSnapshots = new MetricsSnapshot.StageSnapshot[stages.length];
+        for (Stage stage : Stage.values()) {
+            StageMetrics metrics = stages[stage.ordinal()];
+            Histogram latency = metrics.latency;
+            stageSnapshots[stage.ordinal()] = new MetricsSnapshot.StageSnapshot(stage, latency.getCount(),
+                    metrics.records.sum(), metrics.bytes.sum(), metrics.busyNanos.sum(),
+                    latency.getPercentileNanos(0.50), latency.getPercentileNanos(0.99), latency.getMaxNanos());
+        }
+        Map<String, Long> categoryCounts = new TreeMap<>();
+        categories.forEach((label, count) -> categoryCounts.put(label, count.sum()));
+        Map<String, long[]> cacheCounts = new TreeMap<>();
+        caches.forEach((name, metrics) -> cacheCounts.put(name,
+                new long[] { metrics.hits.sum(), metrics.misses.sum() }));
+        return new MetricsSnapshot(System.nanoTime() - sinceNanos, enabled, stageSnapshots, categoryCounts,
+                invalidRecords.sum(), cacheCounts);
+    }
+
+    /**
+     * Pone todos los contadores a cero.
+     */
+    public void reset() {
+        for (StageMetrics metrics : stages) {
+            metrics.latency.reset();
+            metrics.busyNanos.reset();
+            metrics.records.reset();
+            metrics.bytes.reset();
+        }
+        categories.clear();
+        invalidRecords.reset();
+        caches.clear();
+        sinceNanos = System.nanoTime();
+    }
+
+    private static final class StageMetrics {
+        private final Histogram latency = new Histogram();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder records = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+    }
+
+    private static final class CacheMetrics {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+}
@@ -0,0 +1,240 @@
+package metrics;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lectura inmutable de las métricas en un instante (ver MetricsRegistry).
+ */
+public final class MetricsSnapshot {
+
+    private final long uptimeNanos;
+    private final boolean enabled;
+    private final StageSnapshot[] stages;
+    private final Map<String, Long> categoryCounts;
+    private final long invalidRecords;
+    private final Map<String, long[]> cacheCounts;
+
+    MetricsSnapshot(long uptimeNanos, boolean enabled, StageSnapshot[] stages, Map<String, Long> categoryCounts,
+            long invalidRecords, Map<String, long[]> cacheCounts) {
+        this.uptimeNanos = uptimeNanos;
+        this.enabled = enabled;
+        this.stages = stages;
+        this.categoryCounts = Collections.unmodifiableMap(categoryCounts);
+        this.invalidRecords = invalidRecords;
+        this.cacheCounts = Collections.unmodifiableMap(cacheCounts);
+    }
+
+    /**
+     * Tiempo desde el arranque o el último reset().
+     */
+    public long getUptimeNanos() {
+        return uptimeNanos;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public StageSnapshot getStage(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    /**
+     * Registros armonizados por categoría, en orden alfabético.
+     */
+    public Map<String, Long> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    public long getInvalidRecords() {
+        return invalidRecords;
+    }
+
+    /**
+     * Aciertos de la caché indicada (0 si no se ha usado).
+     */
+    public long getCacheHits(String cache) {
+        long[] counts = cacheCounts.get(cache);
+        return counts == null ? 0 : counts[0];
+    }
+
+    /**
+     * Fallos de la caché indicada (0 si no se ha usado).
+     */
+    public long getCacheMisses(String cache) {
+        long[] counts = cacheCounts.get(cache);
+        return counts == null ? 0 : counts[1];
+    }
+
+    /**
+     * Formato de exposición de texto de Prometheus (apto, p. ej., para el
+     * textfile collector de node_exporter).
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(2048);
+        metricHeader(out, "hpi_stage_records_total", "counter", "Records processed per stage");
+        for (StageSnapshot stage : stages) {
+            stageSample(out, "hpi_stage_records_total", stage, null, stage.records);
+        }
+        metricHeader(out, "hpi_stage_bytes_total", "counter", "Bytes read (ingestion) or written (export)");
+        for (StageSnapshot stage : stages) {
+            stageSample(out, "hpi_stage_bytes_total", stage, null, stage.bytes);
+        }
+        metricHeader(out, "hpi_stage_busy_seconds_total", "counter", "Time spent in each stage, summed over threads");
+        for (StageSnapshot stage : stages) {
+            stageSample(out, "hpi_stage_busy_seconds_total", stage, null, stage.busyNanos / 1e9);
+        }
+        metricHeader(out, "hpi_stage_sample_seconds", "summary", "Duration of each batch, read or flush");
+        for (StageSnapshot stage : stages) {
+            stageSample(out, "hpi_stage_sample_seconds", stage, "0.5", stage.p50Nanos / 1e9);
+            stageSample(out, "hpi_stage_sample_seconds", stage, "0.99", stage.p99Nanos / 1e9);
+            stageSample(out, "hpi_stage_sample_seconds", stage, "1", stage.maxNanos / 1e9);
+            stageSample(out, "hpi_stage_sample_seconds_count", stage, null, stage.samples);
+            stageSample(out, "hpi_stage_sample_seconds_sum", stage, null, stage.busyNanos / 1e9);
+        }
+        metricHeader(out, "hpi_harmonized_records_total", "counter", "Harmonized records per category");
+        for (Map.Entry<String, Long> entry : categoryCounts.entrySet()) {
+            out.append("hpi_harmonized_records_total{category=\"").append(escape(entry.getKey())).append("\"} ")
+                    .append(entry.getValue()).append('\n');
+        }
+        metricHeader(out, "hpi_invalid_records_total", "counter", "Records rejected by harmonization");
+        out.append("hpi_invalid_records_total ").append(invalidRecords).append('\n');
+        metricHeader(out, "hpi_cache_hits_total", "counter", "Records served from a result cache");
+        for (Map.Entry<String, long[]> entry : cacheCounts.entrySet()) {
+            out.append("hpi_cache_hits_total{cache=\"").append(escape(entry.getKey())).append("\"} ")
+                    .append(entry.getValue()[0]).append('\n');
+        }
+        metricHeader(out, "hpi_cache_misses_total", "counter", "Records recomputed on a result cache miss");
+        for (Map.Entry<String, long[]> entry : cacheCounts.entrySet()) {
+            out.append("hpi_cache_misses_total{cache=\"").append(escape(entry.getKey())).append("\"} ")
+                    .append(entry.getValue()[1]).append('\n');
+        }
+        metricHeader(out, "hpi_metrics_uptime_seconds", "gauge", "Seconds since start or last reset");
+        out.append("hpi_metrics_uptime_seconds ").append(format(uptimeNanos / 1e9)).append('\n');
+        return out.toString();
+    }
+
+    /**
+     * Tabla legible para consola (vista del menú).
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(1024);
+        out.append(String.format(Locale.ROOT, "Metrics %s | uptime %.1f s%n", enabled ? "ENABLED" : "DISABLED",
+                uptimeNanos / 1e9));
+        out.append(String.format(Locale.ROOT, "%-14s %12s %10s %12s %10s %10s %10s %10s%n", "Stage", "Records",
+                "MB", "rec/s busy", "Samples", "p50 ms", "p99 ms", "max ms"));
+        for (StageSnapshot stage : stages) {
+            out.append(String.format(Locale.ROOT, "%-14s %12d %10.2f %12.0f %10d %10.3f %10.3f %10.3f%n",
+                    stage.stage.getLabel(), stage.records, stage.bytes / (1024.0 * 1024.0), stage.getThroughput(),
+                    stage.samples, stage.p50Nanos / 1e6, stage.p99Nanos / 1e6, stage.maxNanos / 1e6));
+        }
+        out.append("Harmonization outcomes:").append(System.lineSeparator());
+        if (categoryCounts.isEmpty() && invalidRecords == 0) {
+            out.append("  (none yet)").append(System.lineSeparator());
+        }
+        for (Map.Entry<String, Long> entry : categoryCounts.entrySet()) {
+            out.append(String.format(Locale.ROOT, "  %-32s %12d%n", entry.getKey(), entry.getValue()));
+        }
+        if (invalidRecords > 0) {
+            out.append(String.format(Locale.ROOT, "  %-32s %12d%n", "(invalid, skipped)", invalidRecords));
+        }
+        for (Map.Entry<String, long[]> entry : cacheCounts.entrySet()) {
+            long hits = entry.getValue()[0];
+            long total = hits + entry.getValue()[1];
+            out.append(String.format(Locale.ROOT, "Cache %-26s %12d hits %12d misses (%.1f%% hit rate)%n",
+                    entry.getKey(), hits, entry.getValue()[1], total == 0 ? 0.0 : 100.0 * hits / total));
+        }
+        return out.toString();
+    }
+
+    private static void metricHeader(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void stageSample(StringBuilder out, String name, StageSnapshot stage, String quantile,
+            double value) {
+        out.append(name).append("{stage=\"").append(stage.stage.getLabel()).append('"');
+        if (quantile != null) {
+            out.append(",quantile=\"").append(quantile).append('"');
+        }
+        out.append("} ").append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value)
+                : Double.toString(value);
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Métricas de una etapa.
+     */
+    public static final class StageSnapshot {
+        private final Stage stage;
+        private final long samples;
+        private final long records;
+        private final long bytes;
+        private final long busyNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        StageSnapshot(Stage stage, long samples, long records, long bytes, long busyNanos, long p50Nanos,
+                long p99Nanos, long maxNanos) {
+            this.stage = stage;
+            this.samples = samples;
+            this.records = records;
+            this.bytes = bytes;
+            this.busyNanos = busyNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public Stage getStage() {
+            return stage;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        /**
+         * Registros por segundo de tiempo ocupado (con varios hilos, por hilo).
+         */
+        public double getThroughput() {
+            return busyNanos == 0 ? 0.0 : records / (busyNanos / 1e9);
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package metrics;
+
+/**
+ * Etapas instrumentadas del flujo de datos.
+ */
+public enum Stage {
+    /** Lectura y tokenizado de la fuente (incluye el tiempo del sink que recibe las filas). */
+    INGESTION("ingestion"),
+    /** Armonización de un lote de registros crudos. */
+    HARMONIZATION("harmonization"),
+    /** predictBatch sobre un lote armonizado. */
+    PREDICTION("prediction"),
+    /** Volcado del buffer de un reporte al archivo. */
+    EXPORT("export");
+
+    private final String label;
+
+    Stage(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,177 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Tiempo de evento de un registro (la columna timestamp del CSV) como epoch
+ * en milisegundos.
+ *
+ * Las fechas sin zona ("2024-03-01T08:05:00") se interpretan como UTC, de modo
+ * que el valor no depende de la zona horaria de la máquina y
+ * toLocalDateTime() devuelve exactamente la fecha leída. Si el texto incluye
+ * 'Z' o un desplazamiento (+01:00) se convierte a UTC.
+ *
+ * El análisis se hace carácter a carácter, sin DateTimeFormatter ni objetos
+ * intermedios, porque se ejecuta una vez por fila en la ingesta.
+ */
+public final class EventTime {
+
+    /** Valor de las filas sin timestamp o con un timestamp ilegible. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int[] DAYS_IN_MONTH = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    private EventTime() {
+    }
+
+    /**
+     * Acepta yyyy-MM-dd, opcionalmente seguido de 'T' o espacio y HH:mm,
+     * :ss, fracción de segundo y 'Z' o ±HH:mm. Ignora espacios y comillas
+     * alrededor.
+     *
+     * @return Epoch en ms, o NONE si el texto no es una fecha válida.
+     */
+    public static long parse(CharSequence text) {
+        return text == null ? NONE : parse(text::charAt, 0, text.length());
+    }
+
+    /**
+     * Igual que parse(CharSequence), sobre bytes ASCII/UTF-8 en [start, end).
+     */
+    public static long parse(ByteBuffer buf, int start, int end) {
+        return parse(i -> buf.get(i) & 0xFF, start, end);
+    }
+
+    public static boolean isPresent(long epochMillis) {
+        return epochMillis != NONE;
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        if (epochMillis == NONE) {
+            return null;
+        }
+        long seconds = Math.floorDiv(epochMillis, 1000L);
+        int nanos = (int) Math.floorMod(epochMillis, 1000L) * 1_000_000;
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    public static long fromLocalDateTime(LocalDateTime timestamp) {
+        return timestamp == null ? NONE : timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private interface Chars {
+        int at(int index);
+    }
+
+    private static long parse(Chars text, int start, int end) {
+        while (start < end && (text.at(start) <= ' ' || text.at(start) == '"')) {
+            start++;
+        }
+        while (end > start && (text.at(end - 1) <= ' ' || text.at(end - 1) == '"')) {
+            end--;
+        }
+        if (end - start < 10 || text.at(start + 4) != '-' || text.at(start + 7) != '-') {
+            return NONE;
+        }
+
+        int year = digits(text, start, 4);
+        int month = digits(text, start + 5, 2);
+        int day = digits(text, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]
+                || (month == 2 && day == 29 && !isLeap(year))) {
+            return NONE;
+        }
+        long millis = daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+
+        int pos = start + 10;
+        if (pos < end && (text.at(pos) == 'T' || text.at(pos) == ' ')) {
+            if (end - pos < 6 || text.at(pos + 3) != ':') {
+                return NONE;
+            }
+            int hour = digits(text, pos + 1, 2);
+            int minute = digits(text, pos + 4, 2);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return NONE;
+            }
+            millis += hour * 3_600_000L + minute * MILLIS_PER_MINUTE;
+            pos += 6;
+
+            if (pos < end && text.at(pos) == ':') {
+                int second = end - pos >= 3 ? digits(text, pos + 1, 2) : -1;
+                if (second < 0 || second > 59) {
+                    return NONE;
+                }
+                millis += second * 1000L;
+                pos += 3;
+
+                if (pos < end && (text.at(pos) == '.' || text.at(pos) == ',')) {
+                    pos++;
+                    int fractionStart = pos;
+                    int fraction = 0;
+                    while (pos < end && isDigit(text.at(pos))) {
+                        if (pos - fractionStart < 3) {
+                            fraction = fraction * 10 + (text.at(pos) - '0');
+                        }
+                        pos++;
+                    }
+                    if (pos == fractionStart) {
+                        return NONE;
+                    }
+                    for (int n = pos - fractionStart; n < 3; n++) {
+                        fraction *= 10;
+                    }
+                    millis += fraction;
+                }
+            }
+
+            if (pos < end && text.at(pos) == 'Z') {
+                pos++;
+            } else if (pos < end && (text.at(pos) == '+' || text.at(pos) == '-')) {
+                int sign = text.at(pos) == '+' ? 1 : -1;
+                int offsetHours = end - pos >= 6 && text.at(pos + 3) == ':' ? digits(text, pos + 1, 2) : -1;
+                int offsetMinutes = offsetHours < 0 ? -1 : digits(text, pos + 4, 2);
+                if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+                    return NONE;
+                }
+                millis -= sign * (offsetHours * 60L + offsetMinutes) * MILLIS_PER_MINUTE;
+                pos += 6;
+            }
+        }
+        return pos == end ? millis : NONE;
+    }
+
+    // Número decimal de longitud fija, o -1 si algún carácter no es un dígito
+    private static int digits(Chars text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int c = text.at(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLeap(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    // Días desde 1970-01-01 del calendario gregoriano proléptico (algoritmo de H. Hinnant)
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
@@ -0,0 +1,174 @@
+package model;
+
+import config.ConfigSnapshot;
+import config.ConfigurationContext;
+
+/**
+ * Lote columnar de datos armonizados.
+ * Guarda los valores en un double[] y la categoría como id de un
+ * LabelDictionary, evitando un objeto HarmonizedData por registro.
+ * Solo admite datos válidos (los inválidos no llegan al motor predictivo).
+ *
+ * Cada lote lleva el ConfigSnapshot de la ejecución que lo creó, de modo que
+ * el modelo usa la misma configuración para todos los lotes de una ejecución.
+ *
+ * Opcionalmente guarda también la fuente y el tiempo de evento de cada dato
+ * (ver add(HarmonizedData, RawDataRecord)), que usan los modelos por serie
+ * temporal. La fuente va, como la categoría, como id de un LabelDictionary
+ * (getSources()): los modelos indexan su estado por serie con ese id y el
+ * texto solo se resuelve al escribir la salida.
+ *
+ * Se reutiliza entre lotes con clear(); no es thread-safe.
+ */
+public class HarmonizedBatch {
+    private final double[] values;
+    private final int[] categoryIds;
+    private final int[] sourceIds;
+    private final long[] eventTimes;
+    private final LabelDictionary categories;
+    private final LabelDictionary sources;
+    private final ConfigSnapshot config;
+    private int size = 0;
+
+    /** Id de fuente de un dato añadido sin origen. */
+    public static final int NO_SOURCE = -1;
+
+    /**
+     * Lote con la configuración vigente en este momento.
+     */
+    public HarmonizedBatch(int capacity, LabelDictionary categories, LabelDictionary sources) {
+        this(capacity, categories, sources, ConfigurationContext.getInstance().snapshot());
+    }
+
+    /**
+     * @param sources Diccionario de los ids de fuente. Los lotes de una misma
+     *                ejecución deben compartirlo: los modelos con estado
+     *                identifican cada serie por su id.
+     */
+    public HarmonizedBatch(int capacity, LabelDictionary categories, LabelDictionary sources,
+            ConfigSnapshot config) {
+        this.values = new double[capacity];
+        this.categoryIds = new int[capacity];
+        this.sourceIds = new int[capacity];
+        this.eventTimes = new long[capacity];
+        this.categories = categories;
+        this.sources = sources;
+        this.config = config;
+    }
+
+    /**
+     * Añade un dato al lote.
+     *
+     * @return false si el dato no es válido o el lote está lleno.
+     */
+    public boolean add(HarmonizedData data) {
+        return add(data, data.getSourceId(), data.getEventEpochMillis());
+    }
+
+    /**
+     * Añade un dato junto con la fuente y el tiempo de evento del registro
+     * del que procede.
+     *
+     * @return false si el dato no es válido o el lote está lleno.
+     */
+    public boolean add(HarmonizedData data, RawDataRecord origin) {
+        return add(data, origin.getSourceId(), origin.getEventEpochMillis());
+    }
+
+    /**
+     * Añade un dato con la fuente como id de getSources() (p. ej. el de la
+     * fila de un RecordStore) y su tiempo de evento.
+     *
+     * @return false si el dato no es válido o el lote está lleno.
+     */
+    public boolean add(HarmonizedData data, int sourceId, long eventEpochMillis) {
+        if (!data.isValid()) {
+            return false;
+        }
+        return add(data.getValue(), categories.intern(data.getCategory()), sourceId, eventEpochMillis);
+    }
+
+    private boolean add(HarmonizedData data, String sourceId, long eventEpochMillis) {
+        if (!data.isValid() || isFull()) {
+            return false;
+        }
+        return add(data, sourceId == null ? NO_SOURCE : sources.intern(sourceId), eventEpochMillis);
+    }
+
+    /**
+     * Añade un dato válido ya armonizado, con la categoría y la fuente como
+     * ids de los diccionarios del lote (p. ej. leídos de un RecordStore).
+     *
+     * @return false si el lote está lleno.
+     */
+    public boolean add(double value, int categoryId, int sourceId, long eventEpochMillis) {
+        if (isFull()) {
+            return false;
+        }
+        values[size] = value;
+        categoryIds[size] = categoryId;
+        sourceIds[size] = sourceId;
+        eventTimes[size] = eventEpochMillis;
+        size++;
+        return true;
+    }
+
+    /**
+     * Vista de objeto de la posición i (para adaptadores y depuración).
+     */
+    public HarmonizedData get(int i) {
+        String sourceId = sourceIds[i] == NO_SOURCE ? null : sources.label(sourceIds[i]);
+        return new HarmonizedData(values[i], categories.label(categoryIds[i]), true, sourceId, eventTimes[i]);
+    }
+
+    public boolean isFull() {
+        return size == values.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public int[] getCategoryIds() {
+        return categoryIds;
+    }
+
+    /**
+     * Id de fuente de cada posición en getSources() (NO_SOURCE si se añadió
+     * sin origen).
+     */
+    public int[] getSourceIds() {
+        return sourceIds;
+    }
+
+    /**
+     * Tiempo de evento de cada posición (EventTime.NONE si no se conoce).
+     */
+    public long[] getEventTimes() {
+        return eventTimes;
+    }
+
+    public LabelDictionary getCategories() {
+        return categories;
+    }
+
+    public LabelDictionary getSources() {
+        return sources;
+    }
+
+    public ConfigSnapshot getConfig() {
+        return config;
+    }
+}
@@ -8,11 +8,27 @@ public class HarmonizedData {
     private final double value; // El valor numérico limpio
     private final String category; // Ej: "Ventas", "Churn", "Tráfico"
     private final boolean isValid; // Flag de validación de calidad
+    // Origen del dato, para modelos por serie temporal (opcional)
+    private final String sourceId;
+    private final long eventEpochMillis;
 
     public HarmonizedData(double value, String category, boolean isValid) {
+        this(value, category, isValid, null, EventTime.NONE);
+    }
+
+    public HarmonizedData(double value, String category, boolean isValid, String sourceId, long eventEpochMillis) {
         this.value = value;
         this.category = category;
         this.isValid = isValid;
+        this.sourceId = sourceId;
+        this.eventEpochMillis = eventEpochMillis;
+    }
+
+    /**
+     * Copia con la fuente y el tiempo de evento del registro de origen.
+     */
+    public HarmonizedData withOrigin(RawDataRecord origin) {
+        return new HarmonizedData(value, category, isValid, origin.getSourceId(), origin.getEventEpochMillis());
     }
 
     public double getValue() {
@@ -26,4 +42,18 @@ public class HarmonizedData {
     public boolean isValid() {
         return isValid;
     }
+
+    /**
+     * Fuente del registro de origen, o null si no se conoce.
+     */
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    /**
+     * Tiempo de evento del registro de origen (EventTime.NONE si no se conoce).
+     */
+    public long getEventEpochMillis() {
+        return eventEpochMillis;
+    }
 }
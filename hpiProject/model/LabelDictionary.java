@@ -0,0 +1,161 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
+/**
+ * Diccionario de etiquetas de baja cardinalidad (categorías, sourceIds).
+ * Asigna a cada texto un identificador entero compacto y estable, de forma que
+ * las estructuras columnares puedan guardar un int en lugar de un String.
+ *
+ * Las lecturas no bloquean. Una etiqueta nueva se registra con
+ * ConcurrentHashMap.computeIfAbsent, que solo bloquea su cubeta de la tabla:
+ * varios hilos de lectura (p. ej. los bloques de ParallelCsvDataLoader)
+ * registran etiquetas distintas a la vez. Los textos se guardan en segmentos
+ * de SEGMENT_SIZE ids; solo reservar un segmento nuevo toma el monitor.
+ *
+ * Opcionalmente cada etiqueta tiene una derivada (p. ej. el target
+ * "Future_" + categoría de un PredictionResult), calculada una sola vez al
+ * registrarla en lugar de una vez por registro.
+ */
+public class LabelDictionary {
+
+    /** Etiquetas a partir de las cuales canonical() devuelve el propio texto. */
+    public static final int CANONICAL_LIMIT = 1 << 16;
+
+    private static final int SEGMENT_SHIFT = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final long PUBLISH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final UnaryOperator<String> derivation;
+    private final AtomicInteger next = new AtomicInteger();
+    // Segmento s: ids [s * SEGMENT_SIZE, (s + 1) * SEGMENT_SIZE)
+    private volatile Segment[] segments = new Segment[1];
+
+    public LabelDictionary() {
+        this(null);
+    }
+
+    /**
+     * @param derivation Etiqueta derivada de cada texto (ver derivedLabel), o null.
+     */
+    public LabelDictionary(UnaryOperator<String> derivation) {
+        this.derivation = derivation;
+    }
+
+    /**
+     * Devuelve el id de la etiqueta, registrándola si es nueva.
+     */
+    public int intern(String label) {
+        Integer id = ids.get(label);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(label, this::register);
+    }
+
+    /**
+     * Devuelve la instancia registrada del texto, registrándolo si es nuevo,
+     * para que todos los registros con la misma etiqueta compartan un solo
+     * String. Con CANONICAL_LIMIT etiquetas ya registradas devuelve el propio
+     * texto: con ids casi únicos por fila no hay nada que compartir.
+     */
+    public String canonical(String label) {
+        Integer id = ids.get(label);
+        if (id != null) {
+            return label(id);
+        }
+        return next.get() < CANONICAL_LIMIT ? label(intern(label)) : label;
+    }
+
+    /**
+     * Devuelve el texto asociado a un id previamente obtenido con intern().
+     */
+    public String label(int id) {
+        return published(id, 0);
+    }
+
+    /**
+     * Etiqueta derivada del id, o null si el diccionario no tiene derivación.
+     */
+    public String derivedLabel(int id) {
+        return derivation == null ? null : published(id, 1);
+    }
+
+    public int size() {
+        return next.get();
+    }
+
+    // Se ejecuta dentro de computeIfAbsent: un solo registro por etiqueta.
+    // La derivada se calcula antes de reservar el id: si lanza, ningún id
+    // queda contado en size() sin llegar a publicarse.
+    private Integer register(String label) {
+        String derived = derivation == null ? null : derivation.apply(label);
+        int id = next.getAndIncrement();
+        Segment segment = segment(id >>> SEGMENT_SHIFT);
+        int slot = (id & SEGMENT_MASK) << 1;
+        segment.set(slot + 1, derived);
+        segment.set(slot, label); // Publica la etiqueta después de su derivada
+        return id;
+    }
+
+    private Segment segment(int index) {
+        Segment[] current = segments;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = segments;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) {
+                current[index] = new Segment();
+            }
+            segments = current;
+            return current[index];
+        }
+    }
+
+    private String published(int id, int offset) {
+        if (id < 0 || id >= next.get()) {
+            throw new IndexOutOfBoundsException("Unknown label id: " + id);
+        }
+        int slot = ((id & SEGMENT_MASK) << 1) + offset;
+        long deadline = 0;
+        while (true) {
+            // Un id ya asignado (p. ej. visto en size()) puede estar aún publicándose
+            Segment[] current = segments;
+            int index = id >>> SEGMENT_SHIFT;
+            Segment segment = index < current.length ? current[index] : null;
+            if (segment != null && segment.get(slot - offset) != null) {
+                return segment.get(slot);
+            }
+            // La publicación son unas pocas instrucciones; si no llega, el
+            // registro falló (p. ej. sin memoria para el segmento) y no se espera más
+            if (deadline == 0) {
+                deadline = System.nanoTime() + PUBLISH_TIMEOUT_NANOS;
+            } else if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Label id " + id + " was never published");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * SEGMENT_SIZE pares (etiqueta, derivada).
+     */
+    private static final class Segment extends AtomicReferenceArray<String> {
+        private static final long serialVersionUID = 1L;
+
+        Segment() {
+            super(SEGMENT_SIZE * 2);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Resultado columnar de una predicción por lotes.
+ * Los arrays se reservan una sola vez y el modelo escribe en ellos
+ * directamente; los PredictionResult solo se crean bajo demanda.
+ *
+ * El modelo usado es normalmente uno por lote (setModelUsed(String)); un
+ * modelo compuesto como ModelRouter lo anota por fila con
+ * setModelUsed(int, String).
+ */
+public class PredictionBatch {
+    private final double[] predictedValues;
+    private final double[] confidences;
+    private String modelUsed = "Unknown";
+    private String[] rowModels; // Solo si alguna fila tiene un modelo distinto del lote
+    private int size = 0;
+
+    public PredictionBatch(int capacity) {
+        this.predictedValues = new double[capacity];
+        this.confidences = new double[capacity];
+    }
+
+    /**
+     * Vista de objeto de la posición i, con el mismo formato que
+     * IPredictiveModel.predict (target "Future_" + categoría).
+     */
+    public PredictionResult toResult(int i, HarmonizedBatch source) {
+        LabelDictionary categories = source.getCategories();
+        int categoryId = source.getCategoryIds()[i];
+        String target = categories.derivedLabel(categoryId); // Calculado una vez por categoría
+        if (target == null) {
+            target = PredictionResult.targetOf(categories.label(categoryId));
+        }
+        return new PredictionResult(target, predictedValues[i], confidences[i], getModelUsed(i));
+    }
+
+    public double[] getPredictedValues() {
+        return predictedValues;
+    }
+
+    public double[] getConfidences() {
+        return confidences;
+    }
+
+    public String getModelUsed() {
+        return modelUsed;
+    }
+
+    /**
+     * Modelo de todo el lote; descarta los anotados por fila.
+     */
+    public void setModelUsed(String modelUsed) {
+        this.modelUsed = modelUsed;
+        if (rowModels != null) {
+            Arrays.fill(rowModels, null);
+        }
+    }
+
+    /**
+     * Modelo de la posición i, o el del lote si no tiene uno propio.
+     */
+    public String getModelUsed(int i) {
+        return rowModels == null || rowModels[i] == null ? modelUsed : rowModels[i];
+    }
+
+    public void setModelUsed(int i, String modelUsed) {
+        if (rowModels == null) {
+            rowModels = new String[predictedValues.length];
+        }
+        rowModels[i] = modelUsed;
+    }
+
+    /**
+     * Indica si alguna fila tiene un modelo anotado por separado.
+     */
+    public boolean hasRowModels() {
+        return rowModels != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        if (size > predictedValues.length) {
+            throw new IllegalArgumentException("Batch size " + size + " exceeds capacity " + predictedValues.length);
+        }
+        this.size = size;
+    }
+
+    public int capacity() {
+        return predictedValues.length;
+    }
+}
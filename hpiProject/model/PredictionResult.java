@@ -5,6 +5,9 @@ package model;
  * predictivo.
  */
 public class PredictionResult {
+    /** Prefijo del target de cada categoría (ver targetOf). */
+    public static final String TARGET_PREFIX = "Future_";
+
     private final String targetVariable; // Qué estamos prediciendo (ej. "Ingresos Q3")
     private final double predictedValue; // El resultado numérico
     private final double confidenceScore; // Nivel de confianza (0.0 a 1.0)
@@ -17,8 +20,21 @@ public class PredictionResult {
         this.modelUsed = modelUsed;
     }
 
+    /**
+     * Target de la predicción de una categoría, p. ej. "Future_Sales_Revenue".
+     * Los lotes lo toman ya calculado del diccionario de categorías
+     * (LabelDictionary.derivedLabel) en lugar de concatenar por registro.
+     */
+    public static String targetOf(String category) {
+        return TARGET_PREFIX + category;
+    }
+
     // --- GETTERS (Necesarios para que el Main pueda leer los datos) ---
 
+    public String getTargetVariable() {
+        return targetVariable;
+    }
+
     public double getPredictedValue() {
         return predictedValue;
     }
@@ -3,14 +3,61 @@ package model;
 import java.time.LocalDateTime;
 
 public class RawDataRecord {
+
+    /** Línea de la fuente de un registro que no procede de un archivo o cuya posición no se conoce. */
+    public static final long UNKNOWN_LINE = 0;
+
     private final String sourceId; // Ej: "CRM_001", "IoT_Sensor_X"
     private final String rawContent; // El dato sin procesar (puede ser texto sucio)
     private final LocalDateTime ingestionTimestamp;
+    private final long eventEpochMillis; // Columna timestamp de la fuente (EventTime.NONE si no hay)
+    private final String sourceFile; // Archivo de origen (null si no se conoce)
+    private final long sourceLine; // Línea del archivo, la cabecera es la 1 (UNKNOWN_LINE si no se conoce)
 
     public RawDataRecord(String sourceId, String rawContent) {
+        this(sourceId, rawContent, EventTime.NONE);
+    }
+
+    /**
+     * Registro con el tiempo de evento leído de la fuente.
+     *
+     * @param eventEpochMillis Epoch en ms (ver EventTime) o EventTime.NONE.
+     */
+    public RawDataRecord(String sourceId, String rawContent, long eventEpochMillis) {
+        this(sourceId, rawContent, LocalDateTime.now(), eventEpochMillis);
+    }
+
+    /**
+     * Registro leído de un archivo, con su posición (para la cuarentena).
+     *
+     * @param sourceFile Archivo de origen.
+     * @param sourceLine Línea del archivo (la cabecera es la 1).
+     */
+    public RawDataRecord(String sourceId, String rawContent, long eventEpochMillis, String sourceFile,
+            long sourceLine) {
+        this(sourceId, rawContent, LocalDateTime.now(), eventEpochMillis, sourceFile, sourceLine);
+    }
+
+    /**
+     * Registro con un timestamp de ingesta ya conocido (p. ej. vistas de RecordStore).
+     */
+    public RawDataRecord(String sourceId, String rawContent, LocalDateTime ingestionTimestamp) {
+        this(sourceId, rawContent, ingestionTimestamp, EventTime.NONE);
+    }
+
+    public RawDataRecord(String sourceId, String rawContent, LocalDateTime ingestionTimestamp,
+            long eventEpochMillis) {
+        this(sourceId, rawContent, ingestionTimestamp, eventEpochMillis, null, UNKNOWN_LINE);
+    }
+
+    public RawDataRecord(String sourceId, String rawContent, LocalDateTime ingestionTimestamp,
+            long eventEpochMillis, String sourceFile, long sourceLine) {
         this.sourceId = sourceId;
         this.rawContent = rawContent;
-        this.ingestionTimestamp = LocalDateTime.now();
+        this.ingestionTimestamp = ingestionTimestamp;
+        this.eventEpochMillis = eventEpochMillis;
+        this.sourceFile = sourceFile;
+        this.sourceLine = sourceLine;
     }
 
     public String getSourceId() {
@@ -25,6 +72,31 @@ public class RawDataRecord {
         return ingestionTimestamp;
     }
 
+    /**
+     * Momento del evento según la fuente, o null si la fila no lo trae.
+     */
+    public LocalDateTime getEventTimestamp() {
+        return EventTime.toLocalDateTime(eventEpochMillis);
+    }
+
+    public long getEventEpochMillis() {
+        return eventEpochMillis;
+    }
+
+    /**
+     * Archivo del que se leyó el registro, o null si no se conoce.
+     */
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    /**
+     * Línea del archivo (la cabecera es la 1), o UNKNOWN_LINE.
+     */
+    public long getSourceLine() {
+        return sourceLine;
+    }
+
     @Override
     public String toString() {
         return "RawDataRecord{source='" + sourceId + "', content='" + rawContent + "'}";
@@ -0,0 +1,675 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Almacén columnar de registros cargados y analizados.
+ *
+ * En lugar de un RawDataRecord (dos Strings y un LocalDateTime) más un
+ * HarmonizedData y un PredictionResult por fila, cada columna se guarda como
+ * un array primitivo:
+ * - sourceId y categoría: ids de LabelDictionary (int)
+ * - timestamp de ingesta y tiempo de evento de la fuente: epoch en ms (long)
+ * - línea del archivo de origen (long, para la cuarentena)
+ * - valor crudo: bytes UTF-8 en páginas compartidas (referencia long + longitud int)
+ * - valor armonizado, predicción y confianza: double
+ *
+ * Las columnas se reservan por bloques de CHUNK_ROWS filas y el texto crudo en
+ * páginas de PAGE_BYTES, de modo que el almacén crece sin copiar arrays
+ * gigantes y el GC no tiene que recorrer un objeto por fila.
+ *
+ * Los modelos de siempre (RawDataRecord, HarmonizedData, PredictionResult) se
+ * obtienen como vistas bajo demanda con record(), harmonized() y prediction().
+ *
+ * La armonización (valor y categoría) se guarda aparte de la predicción: un
+ * nuevo análisis con el mismo harmonizador solo vuelve a predecir (ver
+ * isHarmonizedBy), y RecordStoreSnapshot la persiste entre sesiones.
+ *
+ * Concurrencia: las inserciones (append) son de un solo hilo. Durante el
+ * análisis varios hilos pueden escribir resultados a la vez siempre que lo
+ * hagan sobre rangos de filas disjuntos (ver writeAnalysis).
+ */
+public class RecordStore {
+
+    /** Id de categoría de una fila todavía no armonizada. */
+    public static final int NOT_ANALYZED = -1;
+    /** Id de categoría de una fila armonizada y descartada por no ser válida. */
+    public static final int REJECTED = -2;
+
+    static final int CHUNK_SHIFT = 16;
+    static final int CHUNK_ROWS = 1 << CHUNK_SHIFT; // 65.536 filas por bloque
+    static final int CHUNK_MASK = CHUNK_ROWS - 1;
+    static final int PAGE_BYTES = 1 << 20; // 1 MB por página de texto
+
+    private final LabelDictionary sourceIds = new LabelDictionary();
+    private final LabelDictionary categories = new LabelDictionary(PredictionResult::targetOf);
+    private final LabelDictionary modelNames = new LabelDictionary();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final List<byte[]> pages = new ArrayList<>();
+    private byte[] currentPage;
+    private int pageOffset;
+    private int size = 0;
+
+    private final AtomicInteger analyzedRows = new AtomicInteger();
+
+    // Clave del análisis vigente de las filas [0, keyedRows): versión de la
+    // configuración, harmonizador y modelo con que se calcularon
+    private long analysisConfigVersion;
+    private Object analysisHarmonizer;
+    private Object analysisModel;
+    private int keyedRows = 0;
+
+    // Harmonizador con que se armonizaron las filas [0, harmonizedRows)
+    private Object harmonizationOwner;
+    private int harmonizedRows = 0;
+
+    /**
+     * Añade una fila con el texto tal como llega de la fuente.
+     *
+     * @param ingestionEpochMillis Momento de ingesta (epoch en ms).
+     * @return Índice de la fila.
+     */
+    public int append(String sourceId, String rawContent, long ingestionEpochMillis) {
+        return append(sourceId, rawContent, ingestionEpochMillis, EventTime.NONE);
+    }
+
+    /**
+     * Añade una fila con su tiempo de evento (columna timestamp de la fuente).
+     *
+     * @param eventEpochMillis Epoch en ms (ver EventTime) o EventTime.NONE.
+     * @return Índice de la fila.
+     */
+    public int append(String sourceId, String rawContent, long ingestionEpochMillis, long eventEpochMillis) {
+        return append(sourceId, rawContent, ingestionEpochMillis, eventEpochMillis, RawDataRecord.UNKNOWN_LINE);
+    }
+
+    /**
+     * Añade una fila con su línea en el archivo de origen.
+     *
+     * @param sourceLine Línea del archivo (la cabecera es la 1) o RawDataRecord.UNKNOWN_LINE.
+     * @return Índice de la fila.
+     */
+    public int append(String sourceId, String rawContent, long ingestionEpochMillis, long eventEpochMillis,
+            long sourceLine) {
+        int row = size;
+        Chunk chunk = chunkForAppend(row);
+        int i = row & CHUNK_MASK;
+
+        chunk.sourceIds[i] = sourceIds.intern(sourceId);
+        chunk.timestamps[i] = ingestionEpochMillis;
+        chunk.eventTimes[i] = eventEpochMillis;
+        chunk.lines[i] = sourceLine;
+        appendText(rawContent, chunk, i);
+        if (chunk.categoryIds != null) {
+            chunk.categoryIds[i] = NOT_ANALYZED;
+            chunk.modelIds[i] = NOT_ANALYZED;
+        }
+        size++;
+        return row;
+    }
+
+    /**
+     * Añade una fila a partir de un registro ya construido (cargadores genéricos).
+     */
+    public int append(RawDataRecord record) {
+        LocalDateTime timestamp = record.getIngestionTimestamp();
+        long millis = timestamp == null ? System.currentTimeMillis()
+                : timestamp.atZone(zone).toInstant().toEpochMilli();
+        return append(record.getSourceId(), record.getRawContent(), millis, record.getEventEpochMillis(),
+                record.getSourceLine());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // --- Columnas ---
+
+    public int getSourceIdCode(int row) {
+        return chunk(row).sourceIds[row & CHUNK_MASK];
+    }
+
+    public String getSourceId(int row) {
+        return sourceIds.label(getSourceIdCode(row));
+    }
+
+    public long getIngestionEpochMillis(int row) {
+        return chunk(row).timestamps[row & CHUNK_MASK];
+    }
+
+    /**
+     * Tiempo de evento de la fila (EventTime.NONE si la fuente no lo trae).
+     */
+    public long getEventEpochMillis(int row) {
+        return chunk(row).eventTimes[row & CHUNK_MASK];
+    }
+
+    /**
+     * Línea de la fila en el archivo de origen, o RawDataRecord.UNKNOWN_LINE.
+     */
+    public long getSourceLine(int row) {
+        return chunk(row).lines[row & CHUNK_MASK];
+    }
+
+    public String getRawContent(int row) {
+        Chunk chunk = chunk(row);
+        int i = row & CHUNK_MASK;
+        int length = chunk.rawLengths[i];
+        if (length < 0) {
+            return null;
+        }
+        long ref = chunk.rawRefs[i];
+        return new String(pages.get((int) (ref >>> 32)), (int) ref, length, StandardCharsets.UTF_8);
+    }
+
+    public LabelDictionary getSourceIds() {
+        return sourceIds;
+    }
+
+    public LabelDictionary getCategories() {
+        return categories;
+    }
+
+    // --- Vistas ---
+
+    /**
+     * Vista RawDataRecord de la fila (se crea en cada llamada).
+     */
+    public RawDataRecord record(int row) {
+        LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(getIngestionEpochMillis(row)), zone);
+        return new RawDataRecord(getSourceId(row), getRawContent(row), timestamp, getEventEpochMillis(row), null,
+                getSourceLine(row));
+    }
+
+    /**
+     * Vista HarmonizedData de la fila, o null si no se ha armonizado o se
+     * descartó.
+     */
+    public HarmonizedData harmonized(int row) {
+        Chunk chunk = chunk(row);
+        int i = row & CHUNK_MASK;
+        if ((row >= harmonizedRows && !isAnalyzed(chunk, i)) || chunk.categoryIds[i] < 0) {
+            return null;
+        }
+        return new HarmonizedData(chunk.values[i], categories.label(chunk.categoryIds[i]), true,
+                sourceIds.label(chunk.sourceIds[i]), chunk.eventTimes[i]);
+    }
+
+    /**
+     * Vista PredictionResult de la fila (target "Future_" + categoría, como
+     * IPredictiveModel.predict), o null si no se ha analizado.
+     */
+    public PredictionResult prediction(int row) {
+        Chunk chunk = chunk(row);
+        int i = row & CHUNK_MASK;
+        if (!isAnalyzed(chunk, i)) {
+            return null;
+        }
+        return new PredictionResult(categories.derivedLabel(chunk.categoryIds[i]), chunk.predicted[i],
+                chunk.confidences[i], modelNames.label(chunk.modelIds[i]));
+    }
+
+    public boolean isAnalyzed(int row) {
+        return isAnalyzed(chunk(row), row & CHUNK_MASK);
+    }
+
+    /**
+     * Filas con resultado del último análisis.
+     */
+    public int getAnalyzedCount() {
+        return analyzedRows.get();
+    }
+
+    // Columnas de resultados sin crear vistas; solo válidas si isAnalyzed(row)
+
+    /**
+     * Id de categoría de una fila analizada (ver getCategories()). En una
+     * fila armonizada sin analizar es su categoría o REJECTED.
+     */
+    public int getCategoryId(int row) {
+        return chunk(row).categoryIds[row & CHUNK_MASK];
+    }
+
+    public double getHarmonizedValue(int row) {
+        return chunk(row).values[row & CHUNK_MASK];
+    }
+
+    public double getPredictedValue(int row) {
+        return chunk(row).predicted[row & CHUNK_MASK];
+    }
+
+    public double getConfidence(int row) {
+        return chunk(row).confidences[row & CHUNK_MASK];
+    }
+
+    /**
+     * Target de la predicción ("Future_" + categoría), compartido por todas
+     * las filas de la categoría.
+     */
+    public String getTargetVariable(int row) {
+        return categories.derivedLabel(getCategoryId(row));
+    }
+
+    public String getModelName(int row) {
+        return modelNames.label(chunk(row).modelIds[row & CHUNK_MASK]);
+    }
+
+    // --- Análisis ---
+
+    /**
+     * Reserva las columnas de resultados y descarta el análisis anterior.
+     * Debe llamarse desde un solo hilo antes de writeAnalysis.
+     */
+    public void prepareAnalysis() {
+        prepareAnalysis(0);
+    }
+
+    /**
+     * Igual que prepareAnalysis(), pero conserva el análisis de las filas
+     * anteriores a fromRow (p. ej. al analizar solo las filas nuevas de una
+     * recarga incremental).
+     */
+    public void prepareAnalysis(int fromRow) {
+        prepareAnalysis(fromRow, null);
+    }
+
+    /**
+     * Igual que prepareAnalysis(fromRow), pero si el análisis se hará con el
+     * mismo harmonizador que armonizó las filas, su armonización se conserva
+     * para reutilizarla (readHarmonization).
+     */
+    public void prepareAnalysis(int fromRow, Object harmonizer) {
+        int kept = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            Chunk chunk = chunks.get(c);
+            chunk.ensureAnalysisColumns();
+            int base = c << CHUNK_SHIFT;
+            for (int i = 0; i < CHUNK_ROWS; i++) {
+                if (base + i >= fromRow) {
+                    chunk.modelIds[i] = NOT_ANALYZED;
+                } else if (base + i < size && chunk.modelIds[i] != NOT_ANALYZED) {
+                    kept++;
+                }
+            }
+        }
+        analyzedRows.set(kept);
+        keyedRows = Math.min(keyedRows, fromRow);
+        if (harmonizer != harmonizationOwner) {
+            // Otro harmonizador sobrescribirá las filas desde fromRow
+            harmonizedRows = Math.min(harmonizedRows, fromRow);
+        }
+    }
+
+    // --- Armonización ---
+
+    /**
+     * Indica si las filas [from, to) ya están armonizadas por este
+     * harmonizador (comparado por identidad).
+     */
+    public boolean isHarmonizedBy(Object harmonizer, int from, int to) {
+        return harmonizer != null && harmonizer == harmonizationOwner && from >= 0 && to <= harmonizedRows;
+    }
+
+    /**
+     * Filas armonizadas, desde la primera, por el harmonizador actual.
+     */
+    public int getHarmonizedRows() {
+        return harmonizedRows;
+    }
+
+    /**
+     * Lee la armonización guardada de las filas [from, to) en un lote, con
+     * la misma forma que si se acabaran de armonizar: solo las filas válidas,
+     * con su fuente y tiempo de evento.
+     *
+     * @param acceptedRows Recibe la fila de origen de cada posición del lote.
+     * @return Filas añadidas al lote.
+     */
+    public int readHarmonization(int from, int to, int[] acceptedRows, HarmonizedBatch batch) {
+        if (batch.getCategories() != categories || batch.getSources() != sourceIds) {
+            throw new IllegalArgumentException("Batch labels must come from this store's dictionaries");
+        }
+        for (int row = from; row < to; row++) {
+            Chunk chunk = chunk(row);
+            int i = row & CHUNK_MASK;
+            int categoryId = chunk.categoryIds[i];
+            if (categoryId >= 0 && batch.add(chunk.values[i], categoryId, chunk.sourceIds[i], chunk.eventTimes[i])) {
+                acceptedRows[batch.size() - 1] = row;
+            }
+        }
+        return batch.size();
+    }
+
+    /**
+     * Prepara una armonización completa del almacén (sin predicción): se
+     * descartan los resultados anteriores. Debe llamarse desde un solo hilo
+     * antes de writeHarmonization.
+     */
+    public void prepareHarmonization() {
+        for (Chunk chunk : chunks) {
+            chunk.ensureAnalysisColumns();
+            Arrays.fill(chunk.modelIds, NOT_ANALYZED);
+        }
+        analyzedRows.set(0);
+        keyedRows = 0;
+        harmonizationOwner = null;
+        harmonizedRows = 0;
+    }
+
+    /**
+     * Guarda la armonización de las filas [from, to); las que no aparecen en
+     * acceptedRows quedan como REJECTED. Hilos distintos pueden llamar a la
+     * vez con rangos disjuntos.
+     */
+    public void writeHarmonization(int from, int to, int[] acceptedRows, HarmonizedBatch harmonized) {
+        if (harmonized.getCategories() != categories) {
+            throw new IllegalArgumentException("Batch categories must come from this store's dictionary");
+        }
+        for (int row = from; row < to; row++) {
+            chunk(row).categoryIds[row & CHUNK_MASK] = REJECTED;
+        }
+        writeHarmonized(acceptedRows, harmonized);
+    }
+
+    /**
+     * Guarda valor y categoría de filas armonizadas que no pasan a la
+     * predicción (p. ej. en cuarentena) después del writeAnalysis de su
+     * rango: quedan armonizadas pero sin analizar, y un análisis posterior
+     * con el mismo harmonizador las vuelve a ver tal cual.
+     *
+     * @param rows Fila de origen de cada posición del lote.
+     */
+    public void writeHarmonized(int[] rows, HarmonizedBatch harmonized) {
+        if (harmonized.getCategories() != categories) {
+            throw new IllegalArgumentException("Batch categories must come from this store's dictionary");
+        }
+        double[] values = harmonized.getValues();
+        int[] categoryIds = harmonized.getCategoryIds();
+        for (int k = 0; k < harmonized.size(); k++) {
+            int row = rows[k];
+            Chunk chunk = chunk(row);
+            int i = row & CHUNK_MASK;
+            chunk.values[i] = values[k];
+            chunk.categoryIds[i] = categoryIds[k];
+        }
+    }
+
+    /**
+     * Registra que todas las filas quedaron armonizadas por este harmonizador.
+     */
+    public void completeHarmonization(Object harmonizer) {
+        harmonizationOwner = harmonizer;
+        harmonizedRows = size;
+    }
+
+    /**
+     * Indica si todas las filas tienen ya el resultado de un análisis hecho
+     * con esta misma versión de configuración, harmonizador y modelo
+     * (comparados por identidad), de modo que repetirlo daría lo mismo.
+     */
+    public boolean isAnalysisCurrent(long configVersion, Object harmonizer, Object model) {
+        return isAnalysisCurrent(size, configVersion, harmonizer, model);
+    }
+
+    /**
+     * Igual que isAnalysisCurrent(configVersion, harmonizer, model), pero solo
+     * para las filas [0, rows) (p. ej. las cargadas antes de una recarga
+     * incremental, antes de analizar únicamente las nuevas).
+     */
+    public boolean isAnalysisCurrent(int rows, long configVersion, Object harmonizer, Object model) {
+        return rows > 0 && keyedRows >= rows && analysisConfigVersion == configVersion
+                && analysisHarmonizer == harmonizer && analysisModel == model;
+    }
+
+    /**
+     * Registra con qué se analizaron las filas [fromRow, size) al terminar un
+     * análisis completo. Si las filas anteriores a fromRow se analizaron con
+     * otra clave, el análisis del almacén deja de considerarse vigente.
+     */
+    public void completeAnalysis(int fromRow, long configVersion, Object harmonizer, Object model) {
+        if (fromRow == 0 || (harmonizationOwner == harmonizer && harmonizedRows >= fromRow)) {
+            completeHarmonization(harmonizer);
+        } else {
+            harmonizationOwner = null;
+            harmonizedRows = 0;
+        }
+        boolean sameKey = analysisConfigVersion == configVersion && analysisHarmonizer == harmonizer
+                && analysisModel == model;
+        if (fromRow == 0 || (keyedRows == fromRow && sameKey)) {
+            analysisConfigVersion = configVersion;
+            analysisHarmonizer = harmonizer;
+            analysisModel = model;
+            keyedRows = size;
+        } else {
+            analysisHarmonizer = null;
+            analysisModel = null;
+            keyedRows = 0;
+        }
+    }
+
+    /**
+     * Guarda el resultado de un lote que cubre las filas [from, to).
+     * Hilos distintos pueden llamar a la vez con rangos disjuntos.
+     *
+     * @param acceptedRows Fila de origen de cada posición del lote armonizado;
+     *                     las filas del rango que no aparecen quedan como REJECTED.
+     * @param harmonized   Valores y categorías (ids de getCategories()).
+     * @param predictions  Salida de predictBatch para ese lote.
+     */
+    public void writeAnalysis(int from, int to, int[] acceptedRows, HarmonizedBatch harmonized,
+            PredictionBatch predictions) {
+        if (harmonized.getCategories() != categories) {
+            throw new IllegalArgumentException("Batch categories must come from this store's dictionary");
+        }
+        for (int row = from; row < to; row++) {
+            Chunk chunk = chunk(row);
+            chunk.categoryIds[row & CHUNK_MASK] = REJECTED;
+            chunk.modelIds[row & CHUNK_MASK] = NOT_ANALYZED;
+        }
+
+        int modelId = modelNames.intern(predictions.getModelUsed());
+        boolean rowModels = predictions.hasRowModels(); // Lote de un modelo compuesto (ModelRouter)
+        double[] values = harmonized.getValues();
+        int[] categoryIds = harmonized.getCategoryIds();
+        double[] predicted = predictions.getPredictedValues();
+        double[] confidences = predictions.getConfidences();
+        int n = predictions.size();
+
+        for (int k = 0; k < n; k++) {
+            int row = acceptedRows[k];
+            Chunk chunk = chunk(row);
+            int i = row & CHUNK_MASK;
+            chunk.values[i] = values[k];
+            chunk.categoryIds[i] = categoryIds[k];
+            chunk.predicted[i] = predicted[k];
+            chunk.confidences[i] = confidences[k];
+            chunk.modelIds[i] = rowModels ? modelNames.intern(predictions.getModelUsed(k)) : modelId;
+        }
+        analyzedRows.addAndGet(n);
+    }
+
+    /**
+     * Memoria aproximada ocupada por columnas y páginas de texto (bytes).
+     */
+    public long estimatedBytes() {
+        long total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.bytes();
+        }
+        for (byte[] page : pages) {
+            total += page.length;
+        }
+        return total;
+    }
+
+    // --- Acceso para RecordStoreSnapshot ---
+
+    int chunkCount() {
+        return chunks.size();
+    }
+
+    Chunk chunkAt(int index) {
+        return chunks.get(index);
+    }
+
+    byte[] page(int index) {
+        return pages.get(index);
+    }
+
+    /**
+     * Añade un bloque vacío al final (restauración desde un snapshot).
+     */
+    Chunk addChunk() {
+        Chunk chunk = new Chunk();
+        chunks.add(chunk);
+        return chunk;
+    }
+
+    /**
+     * Añade una página de texto como página actual (ver restorePageOffset).
+     *
+     * @return Índice de la página.
+     */
+    int addPage(byte[] page) {
+        pages.add(page);
+        currentPage = page;
+        pageOffset = page.length;
+        return pages.size() - 1;
+    }
+
+    /**
+     * Bytes ocupados de la página actual; las siguientes inserciones
+     * continúan a partir de ahí.
+     */
+    void restorePageOffset(int used) {
+        pageOffset = used;
+    }
+
+    void restoreSize(int rows) {
+        size = rows;
+    }
+
+    Object getHarmonizationOwner() {
+        return harmonizationOwner;
+    }
+
+    /**
+     * Declara las filas [0, rows) armonizadas por este harmonizador (sus
+     * columnas ya se restauraron).
+     */
+    void bindHarmonization(Object harmonizer, int rows) {
+        harmonizationOwner = harmonizer;
+        harmonizedRows = rows;
+    }
+
+    // --- Internos ---
+
+    private Chunk chunk(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range [0, " + size + ")");
+        }
+        return chunks.get(row >>> CHUNK_SHIFT);
+    }
+
+    private Chunk chunkForAppend(int row) {
+        int index = row >>> CHUNK_SHIFT;
+        if (index == chunks.size()) {
+            chunks.add(new Chunk());
+        }
+        return chunks.get(index);
+    }
+
+    private static boolean isAnalyzed(Chunk chunk, int i) {
+        return chunk.modelIds != null && chunk.modelIds[i] != NOT_ANALYZED;
+    }
+
+    /**
+     * Copia el texto en UTF-8 a la página actual y guarda en la fila su
+     * referencia (índice de página en los 32 bits altos, offset en los bajos)
+     * y su longitud (-1 = null). El texto nunca se parte entre páginas; uno
+     * mayor que PAGE_BYTES ocupa una página propia.
+     */
+    private void appendText(String text, Chunk chunk, int slot) {
+        if (text == null) {
+            chunk.rawLengths[slot] = -1;
+            return;
+        }
+        int length = text.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        byte[] encoded = ascii ? null : text.getBytes(StandardCharsets.UTF_8);
+        int bytes = ascii ? length : encoded.length;
+
+        if (currentPage == null || pageOffset + bytes > currentPage.length) {
+            currentPage = new byte[Math.max(PAGE_BYTES, bytes)];
+            pages.add(currentPage);
+            pageOffset = 0;
+        }
+
+        if (ascii) {
+            for (int i = 0; i < length; i++) {
+                currentPage[pageOffset + i] = (byte) text.charAt(i);
+            }
+        } else {
+            System.arraycopy(encoded, 0, currentPage, pageOffset, bytes);
+        }
+
+        chunk.rawRefs[slot] = ((long) (pages.size() - 1) << 32) | pageOffset;
+        chunk.rawLengths[slot] = bytes;
+        pageOffset += bytes;
+    }
+
+    /**
+     * Bloque de CHUNK_ROWS filas. Las columnas de análisis se reservan solo
+     * cuando se analiza el almacén.
+     */
+    static final class Chunk {
+        final int[] sourceIds = new int[CHUNK_ROWS];
+        final long[] timestamps = new long[CHUNK_ROWS];
+        final long[] eventTimes = new long[CHUNK_ROWS];
+        final long[] lines = new long[CHUNK_ROWS];
+        final long[] rawRefs = new long[CHUNK_ROWS];
+        final int[] rawLengths = new int[CHUNK_ROWS];
+
+        double[] values;
+        int[] categoryIds;
+        private double[] predicted;
+        private double[] confidences;
+        private int[] modelIds;
+
+        void ensureAnalysisColumns() {
+            if (categoryIds == null) {
+                values = new double[CHUNK_ROWS];
+                predicted = new double[CHUNK_ROWS];
+                confidences = new double[CHUNK_ROWS];
+                modelIds = new int[CHUNK_ROWS];
+                categoryIds = new int[CHUNK_ROWS];
+                Arrays.fill(modelIds, NOT_ANALYZED);
+                Arrays.fill(categoryIds, NOT_ANALYZED);
+            }
+        }
+
+        long bytes() {
+            long perRow = Integer.BYTES + Long.BYTES * 4 + Integer.BYTES;
+            if (categoryIds != null) {
+                perRow += Double.BYTES * 3 + Integer.BYTES * 2;
+            }
+            return perRow * CHUNK_ROWS;
+        }
+    }
+}
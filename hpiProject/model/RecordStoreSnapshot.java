@@ -0,0 +1,575 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Copia binaria en disco de un RecordStore cargado y armonizado, para
+ * arrancar la siguiente sesión sin volver a leer el CSV ni a armonizarlo.
+ *
+ * <pre>
+ * cabecera : int MAGIC ("HPIS"), int VERSION
+ *            long tamaño, long modificación (ms), long checksum de la fuente (SourceFingerprint)
+ *            long bytes de la fuente ya leídos (punto de control de la carga incremental)
+ *            long líneas de la fuente ya leídas, cabecera incluida
+ *            texto id del harmonizador ("" si no se guarda armonización)
+ *            int filas, int filas armonizadas
+ *            int n + n textos: diccionario de sourceIds; ídem de categorías
+ * columnas : int[filas] sourceId, long[filas] ingesta, long[filas] evento, long[filas] línea,
+ *            int[filas] bytes del valor crudo (-1 = null)
+ *            long total + UTF-8 de todos los valores crudos seguidos
+ *            double[armonizadas] valor, int[armonizadas] categoría (RecordStore.REJECTED = descartada)
+ * texto    : int bytes + UTF-8
+ * </pre>
+ *
+ * Los números van en little-endian (el orden nativo de x86 y ARM), de modo
+ * que al cargar cada columna se copia del archivo proyectado en memoria al
+ * array con una copia en bloque, sin convertir fila a fila. El archivo se
+ * proyecta por ventanas de WINDOW_BYTES, así que no hay límite de 2 GB.
+ *
+ * Las predicciones no se guardan: dependen de la configuración de cada
+ * sesión. Quien use el snapshot comprueba con staleReason() que la fuente y
+ * el harmonizador no cambiaron; si cambiaron, se reconstruye.
+ */
+public final class RecordStoreSnapshot {
+
+    public static final String EXTENSION = ".hpis";
+
+    static final int MAGIC = 0x48504953; // "HPIS"
+    static final int VERSION = 2;
+    private static final int WINDOW_BYTES = 64 << 20;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private final Path file;
+    private final SourceFingerprint source;
+    private final long sourceOffset;
+    private final long sourceLines;
+    private final String harmonizerId;
+    private final int rows;
+    private final int harmonizedRows;
+
+    private RecordStoreSnapshot(Path file, SourceFingerprint source, long sourceOffset, long sourceLines,
+            String harmonizerId, int rows, int harmonizedRows) {
+        this.file = file;
+        this.source = source;
+        this.sourceOffset = sourceOffset;
+        this.sourceLines = sourceLines;
+        this.harmonizerId = harmonizerId;
+        this.rows = rows;
+        this.harmonizedRows = harmonizedRows;
+    }
+
+    /**
+     * Lee solo la cabecera del snapshot.
+     *
+     * @throws IOException Si el archivo no existe o no es un snapshot de esta versión.
+     */
+    public static RecordStoreSnapshot open(Path file) throws IOException {
+        try (MappedInput in = new MappedInput(file)) {
+            return readHeader(file, in);
+        }
+    }
+
+    private static RecordStoreSnapshot readHeader(Path file, MappedInput in) throws IOException {
+        if (in.size() < 8 || in.readInt() != MAGIC) {
+            throw new IOException("Not a record store snapshot: " + file);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        SourceFingerprint source = new SourceFingerprint(in.readLong(), in.readLong(), in.readLong());
+        long sourceOffset = in.readLong();
+        long sourceLines = in.readLong();
+        String harmonizerId = in.readText();
+        int rows = in.readInt();
+        int harmonizedRows = in.readInt();
+        if (rows < 0 || harmonizedRows < 0 || harmonizedRows > rows) {
+            throw new IOException("Corrupt snapshot header: " + file);
+        }
+        return new RecordStoreSnapshot(file, source, sourceOffset, sourceLines, harmonizerId, rows, harmonizedRows);
+    }
+
+    /**
+     * Motivo por el que el snapshot ya no corresponde a la fuente o al
+     * harmonizador actuales, o null si sigue siendo válido.
+     */
+    public String staleReason(SourceFingerprint current, String currentHarmonizerId) {
+        String change = current.describeChange(source);
+        if (change != null) {
+            return "source " + change;
+        }
+        if (harmonizedRows > 0 && !harmonizerId.equals(currentHarmonizerId)) {
+            return "harmonization rules changed";
+        }
+        return null;
+    }
+
+    /**
+     * Reconstruye el almacén. Si el snapshot incluye armonización, queda
+     * asociada al harmonizador indicado (el análisis solo tendrá que predecir).
+     *
+     * @throws IOException Si el archivo no puede leerse o está truncado.
+     */
+    public RecordStore load(Object harmonizer) throws IOException {
+        try (MappedInput in = new MappedInput(file)) {
+            readHeader(file, in);
+            RecordStore store = new RecordStore();
+            readLabels(in, store.getSourceIds());
+            readLabels(in, store.getCategories());
+
+            int chunkCount = (rows + RecordStore.CHUNK_ROWS - 1) >>> RecordStore.CHUNK_SHIFT;
+            for (int c = 0; c < chunkCount; c++) {
+                store.addChunk();
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                in.readInts(store.chunkAt(c).sourceIds, rowsIn(c, rows));
+                checkIds(store.chunkAt(c).sourceIds, rowsIn(c, rows), 0, store.getSourceIds().size());
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                in.readLongs(store.chunkAt(c).timestamps, rowsIn(c, rows));
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                in.readLongs(store.chunkAt(c).eventTimes, rowsIn(c, rows));
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                in.readLongs(store.chunkAt(c).lines, rowsIn(c, rows));
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                in.readInts(store.chunkAt(c).rawLengths, rowsIn(c, rows));
+            }
+            readTexts(in, store, chunkCount, rows);
+            store.restoreSize(rows);
+
+            if (harmonizedRows > 0) {
+                int harmonizedChunks = (harmonizedRows + RecordStore.CHUNK_ROWS - 1) >>> RecordStore.CHUNK_SHIFT;
+                for (int c = 0; c < chunkCount; c++) {
+                    store.chunkAt(c).ensureAnalysisColumns();
+                }
+                for (int c = 0; c < harmonizedChunks; c++) {
+                    in.readDoubles(store.chunkAt(c).values, rowsIn(c, harmonizedRows));
+                }
+                for (int c = 0; c < harmonizedChunks; c++) {
+                    in.readInts(store.chunkAt(c).categoryIds, rowsIn(c, harmonizedRows));
+                    checkIds(store.chunkAt(c).categoryIds, rowsIn(c, harmonizedRows), RecordStore.REJECTED,
+                            store.getCategories().size());
+                }
+                store.bindHarmonization(harmonizer, harmonizedRows);
+            }
+            return store;
+        }
+    }
+
+    // Reparte los textos en páginas sin partir ninguno, como RecordStore.appendText
+    private static void readTexts(MappedInput in, RecordStore store, int chunkCount, int rows) throws IOException {
+        long remaining = in.readLong();
+        byte[] page = null;
+        int pageIndex = -1;
+        int used = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            RecordStore.Chunk chunk = store.chunkAt(c);
+            for (int i = 0, n = rowsIn(c, rows); i < n; i++) {
+                int length = chunk.rawLengths[i];
+                if (length < 0) {
+                    continue;
+                }
+                if (page == null || used + length > page.length) {
+                    if (page != null) {
+                        in.readBytes(page, 0, used); // Página completa: una sola copia
+                    }
+                    page = new byte[Math.max(RecordStore.PAGE_BYTES, length)];
+                    pageIndex = store.addPage(page);
+                    used = 0;
+                }
+                chunk.rawRefs[i] = ((long) pageIndex << 32) | used;
+                used += length;
+                remaining -= length;
+            }
+        }
+        if (remaining != 0) {
+            throw new IOException("Corrupt snapshot: raw text size does not match row lengths");
+        }
+        if (page != null) {
+            in.readBytes(page, 0, used);
+            store.restorePageOffset(used);
+        }
+    }
+
+    // Un id fuera del diccionario indicaría un archivo dañado
+    private static void checkIds(int[] ids, int length, int min, int limit) throws IOException {
+        for (int i = 0; i < length; i++) {
+            if (ids[i] < min || ids[i] >= limit) {
+                throw new IOException("Corrupt snapshot: label id " + ids[i] + " out of range");
+            }
+        }
+    }
+
+    private static int rowsIn(int chunk, int rows) {
+        return Math.min(RecordStore.CHUNK_ROWS, rows - (chunk << RecordStore.CHUNK_SHIFT));
+    }
+
+    private static void readLabels(MappedInput in, LabelDictionary dictionary) throws IOException {
+        int n = in.readInt();
+        for (int id = 0; id < n; id++) {
+            if (dictionary.intern(in.readText()) != id) {
+                throw new IOException("Corrupt snapshot: duplicate label");
+            }
+        }
+    }
+
+    /**
+     * Escribe el almacén en un archivo temporal y lo renombra sobre el
+     * destino, de modo que un snapshot a medias nunca se confunde con uno
+     * válido. La armonización solo se incluye si la hizo 'harmonizer'.
+     *
+     * @param source       Huella de la fuente tal como se leyó.
+     * @param sourceOffset Bytes de la fuente incluidos en el almacén.
+     * @param sourceLines  Líneas de la fuente en esos bytes, cabecera incluida.
+     * @throws IOException Si el archivo no puede escribirse.
+     */
+    public static void write(RecordStore store, SourceFingerprint source, long sourceOffset, long sourceLines,
+            Object harmonizer, String harmonizerId, Path file) throws IOException {
+        int rows = store.size();
+        int harmonizedRows = store.getHarmonizationOwner() == harmonizer && harmonizer != null
+                ? store.getHarmonizedRows()
+                : 0;
+        Path target = file.toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (Output out = new Output(temp)) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(source.getSize());
+            out.putLong(source.getLastModifiedMillis());
+            out.putLong(source.getChecksum());
+            out.putLong(sourceOffset);
+            out.putLong(sourceLines);
+            out.putText(harmonizedRows > 0 ? harmonizerId : "");
+            out.putInt(rows);
+            out.putInt(harmonizedRows);
+            writeLabels(out, store.getSourceIds());
+            writeLabels(out, store.getCategories());
+
+            int chunkCount = (rows + RecordStore.CHUNK_ROWS - 1) >>> RecordStore.CHUNK_SHIFT;
+            for (int c = 0; c < chunkCount; c++) {
+                out.putInts(store.chunkAt(c).sourceIds, rowsIn(c, rows));
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                out.putLongs(store.chunkAt(c).timestamps, rowsIn(c, rows));
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                out.putLongs(store.chunkAt(c).eventTimes, rowsIn(c, rows));
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                out.putLongs(store.chunkAt(c).lines, rowsIn(c, rows));
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                out.putInts(store.chunkAt(c).rawLengths, rowsIn(c, rows));
+            }
+            writeTexts(out, store, chunkCount, rows);
+
+            int harmonizedChunks = (harmonizedRows + RecordStore.CHUNK_ROWS - 1) >>> RecordStore.CHUNK_SHIFT;
+            for (int c = 0; c < harmonizedChunks; c++) {
+                out.putDoubles(store.chunkAt(c).values, rowsIn(c, harmonizedRows));
+            }
+            for (int c = 0; c < harmonizedChunks; c++) {
+                out.putInts(store.chunkAt(c).categoryIds, rowsIn(c, harmonizedRows));
+            }
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Total de bytes y luego los textos, copiando tramos contiguos de cada página de una vez
+    private static void writeTexts(Output out, RecordStore store, int chunkCount, int rows) throws IOException {
+        long total = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            int[] lengths = store.chunkAt(c).rawLengths;
+            for (int i = 0, n = rowsIn(c, rows); i < n; i++) {
+                total += Math.max(0, lengths[i]);
+            }
+        }
+        out.putLong(total);
+
+        int runPage = -1;
+        int runStart = 0;
+        int runEnd = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            RecordStore.Chunk chunk = store.chunkAt(c);
+            for (int i = 0, n = rowsIn(c, rows); i < n; i++) {
+                int length = chunk.rawLengths[i];
+                if (length <= 0) {
+                    continue;
+                }
+                int page = (int) (chunk.rawRefs[i] >>> 32);
+                int offset = (int) chunk.rawRefs[i];
+                if (page != runPage || offset != runEnd) {
+                    if (runPage >= 0) {
+                        out.putBytes(store.page(runPage), runStart, runEnd - runStart);
+                    }
+                    runPage = page;
+                    runStart = offset;
+                }
+                runEnd = offset + length;
+            }
+        }
+        if (runPage >= 0) {
+            out.putBytes(store.page(runPage), runStart, runEnd - runStart);
+        }
+    }
+
+    private static void writeLabels(Output out, LabelDictionary dictionary) throws IOException {
+        int n = dictionary.size();
+        out.putInt(n);
+        for (int id = 0; id < n; id++) {
+            out.putText(dictionary.label(id));
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public SourceFingerprint getSource() {
+        return source;
+    }
+
+    /**
+     * Bytes de la fuente incluidos en el snapshot (hasta la última línea completa).
+     */
+    public long getSourceOffset() {
+        return sourceOffset;
+    }
+
+    /**
+     * Líneas de la fuente en getSourceOffset() bytes, cabecera incluida.
+     */
+    public long getSourceLines() {
+        return sourceLines;
+    }
+
+    public String getHarmonizerId() {
+        return harmonizerId;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getHarmonizedRows() {
+        return harmonizedRows;
+    }
+
+    /**
+     * Salida secuencial a un FileChannel a través de un buffer directo.
+     */
+    private static final class Output implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        Output(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putText(String text) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        void putInts(int[] values, int length) throws IOException {
+            for (int done = 0; done < length;) {
+                ensure(Integer.BYTES);
+                int n = Math.min(length - done, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                done += n;
+            }
+        }
+
+        void putLongs(long[] values, int length) throws IOException {
+            for (int done = 0; done < length;) {
+                ensure(Long.BYTES);
+                int n = Math.min(length - done, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Long.BYTES);
+                done += n;
+            }
+        }
+
+        void putDoubles(double[] values, int length) throws IOException {
+            for (int done = 0; done < length;) {
+                ensure(Double.BYTES);
+                int n = Math.min(length - done, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Double.BYTES);
+                done += n;
+            }
+        }
+
+        void putBytes(byte[] bytes, int offset, int length) throws IOException {
+            for (int done = 0; done < length;) {
+                ensure(1);
+                int n = Math.min(length - done, buffer.remaining());
+                buffer.put(bytes, offset + done, n);
+                done += n;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Lectura secuencial de un archivo proyectado en memoria por ventanas.
+     */
+    private static final class MappedInput implements Closeable {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+
+        MappedInput(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        long size() {
+            return size;
+        }
+
+        int readInt() throws IOException {
+            return require(Integer.BYTES).getInt(advance(Integer.BYTES));
+        }
+
+        long readLong() throws IOException {
+            return require(Long.BYTES).getLong(advance(Long.BYTES));
+        }
+
+        String readText() throws IOException {
+            int length = readInt();
+            if (length < 0 || length > size - position) {
+                throw new IOException("Corrupt snapshot: text length " + length);
+            }
+            byte[] bytes = new byte[length];
+            readBytes(bytes, 0, length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void readInts(int[] values, int length) throws IOException {
+            for (int done = 0; done < length;) {
+                ByteBuffer view = require(Integer.BYTES);
+                int n = (int) Math.min(length - done, (windowStart + view.limit() - position) / Integer.BYTES);
+                view.position((int) (position - windowStart));
+                view.asIntBuffer().get(values, done, n);
+                position += (long) n * Integer.BYTES;
+                done += n;
+            }
+        }
+
+        void readLongs(long[] values, int length) throws IOException {
+            for (int done = 0; done < length;) {
+                ByteBuffer view = require(Long.BYTES);
+                int n = (int) Math.min(length - done, (windowStart + view.limit() - position) / Long.BYTES);
+                view.position((int) (position - windowStart));
+                view.asLongBuffer().get(values, done, n);
+                position += (long) n * Long.BYTES;
+                done += n;
+            }
+        }
+
+        void readDoubles(double[] values, int length) throws IOException {
+            for (int done = 0; done < length;) {
+                ByteBuffer view = require(Double.BYTES);
+                int n = (int) Math.min(length - done, (windowStart + view.limit() - position) / Double.BYTES);
+                view.position((int) (position - windowStart));
+                view.asDoubleBuffer().get(values, done, n);
+                position += (long) n * Double.BYTES;
+                done += n;
+            }
+        }
+
+        void readBytes(byte[] bytes, int offset, int length) throws IOException {
+            for (int done = 0; done < length;) {
+                ByteBuffer view = require(1);
+                int n = (int) Math.min(length - done, windowStart + view.limit() - position);
+                view.position((int) (position - windowStart));
+                view.get(bytes, offset + done, n);
+                position += n;
+                done += n;
+            }
+        }
+
+        // Índice dentro de la ventana del valor en la posición actual, y avanza
+        private int advance(int bytes) {
+            int index = (int) (position - windowStart);
+            position += bytes;
+            return index;
+        }
+
+        // Ventana que contiene al menos 'bytes' bytes desde la posición actual
+        private ByteBuffer require(int bytes) throws IOException {
+            if (position + bytes > size) {
+                throw new IOException("Snapshot truncated at byte " + position);
+            }
+            if (window == null || position + bytes > windowStart + window.limit()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+                window.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return window;
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Identidad de un archivo de origen en un momento dado: tamaño, fecha de
+ * modificación y una suma de comprobación de su contenido.
+ *
+ * Para que calcularla no cueste una lectura completa de un feed de varios GB,
+ * la suma (CRC32C) cubre el inicio y el final del archivo y SAMPLES bloques
+ * repartidos por el medio; los archivos de hasta FULL_CHECKSUM_BYTES se
+ * leen enteros. Tamaño y fecha detectan las modificaciones normales; las
+ * muestras detectan reescrituras que conservan ambos.
+ */
+public final class SourceFingerprint {
+
+    static final long FULL_CHECKSUM_BYTES = 1 << 20;
+    private static final int EDGE_BYTES = 64 * 1024;
+    private static final int SAMPLE_BYTES = 4096;
+    private static final int SAMPLES = 64;
+
+    private final long size;
+    private final long lastModifiedMillis;
+    private final long checksum;
+
+    public SourceFingerprint(long size, long lastModifiedMillis, long checksum) {
+        this.size = size;
+        this.lastModifiedMillis = lastModifiedMillis;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Huella actual del archivo.
+     *
+     * @throws IOException Si el archivo no existe o no puede leerse.
+     */
+    public static SourceFingerprint of(Path file) throws IOException {
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            CRC32C crc = new CRC32C();
+            ByteBuffer block = ByteBuffer.allocate(EDGE_BYTES);
+            if (size <= FULL_CHECKSUM_BYTES) {
+                for (long position = 0; position < size; position += EDGE_BYTES) {
+                    update(crc, channel, block, position, (int) Math.min(EDGE_BYTES, size - position));
+                }
+            } else {
+                update(crc, channel, block, 0, EDGE_BYTES);
+                long step = (size - 2L * EDGE_BYTES) / (SAMPLES + 1);
+                for (int i = 1; i <= SAMPLES; i++) {
+                    update(crc, channel, block, EDGE_BYTES + i * step, SAMPLE_BYTES);
+                }
+                update(crc, channel, block, size - EDGE_BYTES, EDGE_BYTES);
+            }
+            return new SourceFingerprint(size, lastModified, crc.getValue());
+        }
+    }
+
+    private static void update(CRC32C crc, FileChannel channel, ByteBuffer block, long position, int length)
+            throws IOException {
+        block.clear().limit(length);
+        while (block.hasRemaining()) {
+            if (channel.read(block, position + block.position()) < 0) {
+                break; // El archivo se acortó mientras se leía
+            }
+        }
+        block.flip();
+        crc.update(block);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModifiedMillis() {
+        return lastModifiedMillis;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Qué cambió respecto a otra huella del mismo archivo, o null si nada.
+     */
+    public String describeChange(SourceFingerprint previous) {
+        if (size != previous.size) {
+            return "size changed (" + previous.size + " -> " + size + " bytes)";
+        }
+        if (lastModifiedMillis != previous.lastModifiedMillis) {
+            return "modification time changed";
+        }
+        if (checksum != previous.checksum) {
+            return "content changed";
+        }
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SourceFingerprint)) {
+            return false;
+        }
+        SourceFingerprint that = (SourceFingerprint) other;
+        return size == that.size && lastModifiedMillis == that.lastModifiedMillis && checksum == that.checksum;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(size) * 31 + Long.hashCode(checksum);
+    }
+
+    @Override
+    public String toString() {
+        return "SourceFingerprint{size=" + size + ", modified=" + lastModifiedMillis + ", crc32c="
+                + Long.toHexString(checksum) + "}";
+    }
+}
@@ -0,0 +1,686 @@
+package pipeline;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import analytics.IPredictiveModel;
+import config.ConfigSnapshot;
+import config.ConfigurationContext;
+import harmonization.IHarmonizer;
+import ingestion.DeadLetterQueue;
+import ingestion.IStreamingDataLoader;
+import ingestion.QuarantineReason;
+import metrics.MetricsRegistry;
+import metrics.Stage;
+import model.HarmonizedBatch;
+import model.HarmonizedData;
+import model.LabelDictionary;
+import model.PredictionBatch;
+import model.PredictionResult;
+import model.RawDataRecord;
+import model.RecordStore;
+
+/**
+ * Motor del pipeline de análisis (armonizar -> predecir), reutilizable fuera
+ * del menú interactivo.
+ *
+ * Etapas:
+ * 1. Lectura: un hilo lector agrupa los registros en lotes y los encola.
+ * 2. Cálculo: un pool de workers armoniza cada lote y lo pasa al modelo con
+ *    predictBatch (datos columnares).
+ * 3. Emisión: el hilo que llama a run() entrega los resultados al sink en el
+ *    orden original del archivo.
+ *
+ * La cola entre lectura y emisión está acotada (queueCapacity lotes), de modo
+ * que una lectura rápida no puede adelantarse indefinidamente al cálculo.
+ * El IHarmonizer y el IPredictiveModel deben ser thread-safe.
+ *
+ * Con un modelo con estado (IPredictiveModel.isStateful(), p. ej. series
+ * temporales) los workers solo armonizan y la predicción se hace en la etapa
+ * de emisión, en el orden de la fuente: el resultado es el mismo con
+ * cualquier número de workers. Un análisis completo empieza con reset().
+ *
+ * Cada lote deja en MetricsRegistry su tiempo de armonización y de
+ * predicción y el recuento de categorías.
+ *
+ * Con una DeadLetterQueue, los registros cuyo valor el harmonizador marca
+ * como vacío o ilegible (Missing_Value, Unreadable_Data) no llegan al modelo
+ * ni al sink: los workers los apartan y la etapa de emisión los pone en
+ * cuarentena, en el orden de la fuente. Cuentan como descartados en el
+ * PipelineSummary. En un RecordStore quedan armonizados pero sin analizar.
+ */
+public class AnalysisPipeline {
+
+    /** Nombre en MetricsRegistry de la reutilización de resultados de un RecordStore. */
+    public static final String ANALYSIS_CACHE = "analysis";
+
+    // Marcador de fin de datos en la cola de lotes pendientes
+    private static final Future<ResultChunk> END_OF_DATA = CompletableFuture.completedFuture(null);
+
+    private final IHarmonizer harmonizer;
+    private final IPredictiveModel aiModel;
+    private final PipelineOptions options;
+    private final DeadLetterQueue deadLetters;
+    private final LabelDictionary categories = new LabelDictionary(PredictionResult::targetOf);
+    // Fuentes de los lotes armados desde registros (las de un RecordStore usan su diccionario)
+    private final LabelDictionary sources = new LabelDictionary();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    public AnalysisPipeline(IHarmonizer harmonizer, IPredictiveModel aiModel, PipelineOptions options) {
+        this(harmonizer, aiModel, options, null);
+    }
+
+    /**
+     * @param deadLetters Cola de cuarentena (null = los registros vacíos o
+     *                    ilegibles se analizan como el resto).
+     */
+    public AnalysisPipeline(IHarmonizer harmonizer, IPredictiveModel aiModel, PipelineOptions options,
+            DeadLetterQueue deadLetters) {
+        this.harmonizer = harmonizer;
+        this.aiModel = aiModel;
+        this.options = options;
+        this.deadLetters = deadLetters;
+    }
+
+    /**
+     * Procesa una fuente en streaming sin materializarla en memoria.
+     */
+    public PipelineSummary run(IStreamingDataLoader loader, String sourcePath,
+            BiConsumer<RawDataRecord, PredictionResult> sink) throws IOException {
+        return execute(consumer -> loader.streamData(sourcePath, consumer, deadLetters), sink);
+    }
+
+    /**
+     * Procesa varias fuentes una tras otra como una sola ejecución: los
+     * resultados salen en el orden de la lista y un modelo con estado conserva
+     * sus series de una fuente a la siguiente.
+     */
+    public PipelineSummary run(IStreamingDataLoader loader, List<String> sourcePaths,
+            BiConsumer<RawDataRecord, PredictionResult> sink) throws IOException {
+        return execute(consumer -> {
+            for (String sourcePath : sourcePaths) {
+                loader.streamData(sourcePath, consumer, deadLetters);
+            }
+        }, sink);
+    }
+
+    /**
+     * Procesa registros ya cargados en memoria (modo menú).
+     */
+    public PipelineSummary run(List<RawDataRecord> records, BiConsumer<RawDataRecord, PredictionResult> sink) {
+        try {
+            return execute(consumer -> records.forEach(consumer), sink);
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory source cannot fail with I/O", e);
+        }
+    }
+
+    /**
+     * Analiza un almacén columnar ya cargado y escribe el resultado de cada
+     * fila en sus propias columnas (RecordStore.writeAnalysis), sin crear un
+     * PredictionResult por registro. Cada lote cubre un rango de filas
+     * disjunto, de modo que los workers escriben en paralelo sin bloqueos.
+     */
+    public PipelineSummary run(RecordStore store) {
+        return run(store, 0);
+    }
+
+    /**
+     * Analiza solo las filas [fromRow, size) del almacén y conserva los
+     * resultados de las anteriores (recarga incremental).
+     *
+     * Si el almacén ya tiene el resultado de todas sus filas con la misma
+     * versión de configuración, harmonizador y modelo, no se recalcula nada
+     * (ver RecordStore.isAnalysisCurrent).
+     */
+    public PipelineSummary run(RecordStore store, int fromRow) {
+        return run(store, fromRow, null);
+    }
+
+    /**
+     * Igual que run(store), y además entrega a analyzedRows cada fila
+     * analizada, en orden de filas, en cuanto su lote sale de la etapa de
+     * emisión (p. ej. a un reporte asíncrono, que se escribe mientras el
+     * resto del almacén se sigue analizando).
+     */
+    public PipelineSummary run(RecordStore store, IntConsumer analyzedRows) {
+        return run(store, 0, analyzedRows);
+    }
+
+    /**
+     * @param analyzedRows Recibe las filas analizadas de [fromRow, size), o
+     *                     null. Con resultados reutilizados las recibe todas
+     *                     al final.
+     */
+    public PipelineSummary run(RecordStore store, int fromRow, IntConsumer analyzedRows) {
+        if (fromRow < 0 || fromRow > store.size()) {
+            throw new IllegalArgumentException("fromRow " + fromRow + " out of range [0, " + store.size() + "]");
+        }
+        long start = System.nanoTime();
+        ConfigSnapshot config = ConfigurationContext.getInstance().snapshot();
+        if (store.isAnalysisCurrent(config.getVersion(), harmonizer, aiModel)) {
+            // Mismos datos, configuración, harmonizador y modelo: el resultado sería idéntico
+            return reuseAnalysis(store, fromRow, config, start, analyzedRows);
+        }
+        store.prepareAnalysis(fromRow, harmonizer);
+        if (fromRow == 0) {
+            aiModel.reset();
+        }
+
+        int rows = store.size();
+        ExecutorService workers = Executors.newFixedThreadPool(options.getWorkerThreads(),
+                daemonThreads("hpi-pipeline-worker-"));
+        Deque<Future<RangeChunk>> inFlight = new ArrayDeque<>();
+        ProgressReporter progress = new ProgressReporter(options.getProgressIntervalMs(), start);
+        long processed = 0;
+        int next = fromRow;
+
+        try {
+            while (next < rows || !inFlight.isEmpty()) {
+                // Como máximo queueCapacity lotes en vuelo; se completan en orden
+                while (next < rows && inFlight.size() < options.getQueueCapacity()) {
+                    int from = next;
+                    int to = (int) Math.min(rows, (long) from + options.getBatchSize());
+                    inFlight.add(workers.submit(() -> processRange(store, from, to, config)));
+                    next = to;
+                }
+
+                RangeChunk chunk = inFlight.poll().get();
+                if (aiModel.isStateful()) {
+                    predictRange(store, chunk); // En orden de filas, desde este hilo
+                }
+                quarantine(store, chunk);
+                if (analyzedRows != null) {
+                    emitAnalyzed(store, chunk.from, chunk.to, analyzedRows);
+                }
+                processed += chunk.predictions.size();
+                progress.update(next - fromRow, processed);
+
+                if (options.getSimulatedDelayMs() > 0) {
+                    Thread.sleep(options.getSimulatedDelayMs());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pipeline interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pipeline worker failed: " + e.getCause(), e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        store.completeAnalysis(fromRow, config.getVersion(), harmonizer, aiModel);
+        metrics.recordCacheLookups(ANALYSIS_CACHE, 0, rows - fromRow);
+        PipelineSummary summary = new PipelineSummary(rows - fromRow, processed, System.nanoTime() - start);
+        progress.finish(summary);
+        return summary;
+    }
+
+    /**
+     * Solo armoniza el almacén, sin predecir, y deja el valor y la categoría
+     * de cada fila en sus columnas (p. ej. para guardarlo en un
+     * RecordStoreSnapshot). Un run() posterior con este mismo pipeline, o
+     * con otro del mismo harmonizador, ya no vuelve a armonizar.
+     *
+     * @return Resumen con las filas leídas y las válidas.
+     */
+    public PipelineSummary harmonize(RecordStore store) {
+        long start = System.nanoTime();
+        int rows = store.size();
+        if (store.isHarmonizedBy(harmonizer, 0, rows)) {
+            return new PipelineSummary(rows, countHarmonized(store), System.nanoTime() - start);
+        }
+        ConfigSnapshot config = ConfigurationContext.getInstance().snapshot();
+        store.prepareHarmonization();
+
+        ExecutorService workers = Executors.newFixedThreadPool(options.getWorkerThreads(),
+                daemonThreads("hpi-pipeline-worker-"));
+        List<Future<Integer>> ranges = new ArrayList<>();
+        long accepted = 0;
+        try {
+            for (int from = 0; from < rows; from += options.getBatchSize()) {
+                int first = from;
+                int to = (int) Math.min(rows, (long) from + options.getBatchSize());
+                ranges.add(workers.submit(() -> {
+                    int n = to - first;
+                    HarmonizedBatch harmonized = new HarmonizedBatch(n, store.getCategories(), store.getSourceIds(),
+                            config);
+                    int[] acceptedRows = new int[n];
+                    long started = metrics.startTimer();
+                    harmonizeRange(store, first, to, harmonized, acceptedRows);
+                    store.writeHarmonization(first, to, acceptedRows, harmonized);
+                    metrics.record(Stage.HARMONIZATION, started, n);
+                    metrics.countCategories(harmonized, n - harmonized.size());
+                    return harmonized.size();
+                }));
+            }
+            for (Future<Integer> range : ranges) {
+                accepted += range.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pipeline interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pipeline worker failed: " + e.getCause(), e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        store.completeHarmonization(harmonizer);
+        return new PipelineSummary(rows, accepted, System.nanoTime() - start);
+    }
+
+    private static long countHarmonized(RecordStore store) {
+        long valid = 0;
+        for (int row = 0; row < store.size(); row++) {
+            if (store.harmonized(row) != null) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private PipelineSummary reuseAnalysis(RecordStore store, int fromRow, ConfigSnapshot config, long start,
+            IntConsumer analyzedRows) {
+        int rows = store.size();
+        long analyzed = 0;
+        for (int row = fromRow; row < rows; row++) {
+            if (store.isAnalyzed(row)) {
+                analyzed++;
+            }
+        }
+        if (analyzedRows != null) {
+            emitAnalyzed(store, fromRow, rows, analyzedRows);
+        }
+        PipelineSummary summary = new PipelineSummary(rows - fromRow, analyzed, System.nanoTime() - start);
+        metrics.recordCacheLookups(ANALYSIS_CACHE, rows - fromRow, 0);
+        System.out.println("[Pipeline] Data and configuration (v" + config.getVersion()
+                + ") unchanged since the last analysis: reusing " + analyzed + " stored results.");
+        return summary;
+    }
+
+    private static void emitAnalyzed(RecordStore store, int from, int to, IntConsumer analyzedRows) {
+        for (int row = from; row < to; row++) {
+            if (store.isAnalyzed(row)) {
+                analyzedRows.accept(row);
+            }
+        }
+    }
+
+    private PipelineSummary execute(RecordSource source, BiConsumer<RawDataRecord, PredictionResult> sink)
+            throws IOException {
+        long start = System.nanoTime();
+        // Una sola configuración para toda la ejecución; los cambios aplican a la siguiente
+        ConfigSnapshot config = ConfigurationContext.getInstance().snapshot();
+        aiModel.reset();
+        ExecutorService workers = Executors.newFixedThreadPool(options.getWorkerThreads(),
+                daemonThreads("hpi-pipeline-worker-"));
+        BlockingQueue<Future<ResultChunk>> pending = new ArrayBlockingQueue<>(options.getQueueCapacity());
+
+        Reader reader = new Reader(source, workers, pending, config);
+        Thread readerThread = new Thread(reader, "hpi-pipeline-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        ProgressReporter progress = new ProgressReporter(options.getProgressIntervalMs(), start);
+        long processed = 0;
+        boolean completed = false;
+
+        try {
+            while (true) {
+                Future<ResultChunk> next = pending.take();
+                if (next == END_OF_DATA) {
+                    break;
+                }
+
+                ResultChunk chunk = next.get();
+                if (aiModel.isStateful()) {
+                    predict(chunk.harmonized, chunk.predictions); // En orden de llegada
+                }
+                for (int i = 0; i < chunk.quarantined.size(); i++) {
+                    deadLetters.quarantine(chunk.reasons.get(i), chunk.quarantined.get(i));
+                }
+                for (int i = 0; i < chunk.predictions.size(); i++) {
+                    sink.accept(chunk.records.get(i), chunk.predictions.toResult(i, chunk.harmonized));
+                }
+                processed += chunk.predictions.size();
+                progress.update(reader.recordsRead(), processed);
+
+                if (options.getSimulatedDelayMs() > 0) {
+                    Thread.sleep(options.getSimulatedDelayMs());
+                }
+            }
+            readerThread.join();
+            completed = true;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Pipeline interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pipeline worker failed: " + e.getCause(), e.getCause());
+        } finally {
+            if (!completed) {
+                readerThread.interrupt(); // Desbloquea al lector si espera espacio en la cola
+            }
+            workers.shutdownNow();
+        }
+
+        if (reader.failure != null) {
+            if (reader.failure instanceof IOException) {
+                throw (IOException) reader.failure;
+            }
+            throw new IllegalStateException("Pipeline reader failed: " + reader.failure, reader.failure);
+        }
+
+        PipelineSummary summary = new PipelineSummary(reader.recordsRead(), processed, System.nanoTime() - start);
+        progress.finish(summary);
+        return summary;
+    }
+
+    // Etapa de cálculo: se ejecuta en un worker
+    private ResultChunk process(List<RawDataRecord> records, ConfigSnapshot config) {
+        int n = records.size();
+        HarmonizedBatch harmonized = new HarmonizedBatch(n, categories, sources, config);
+        List<RawDataRecord> accepted = new ArrayList<>(n);
+        List<RawDataRecord> quarantined = new ArrayList<>(0);
+        List<QuarantineReason> reasons = new ArrayList<>(0);
+
+        long started = metrics.startTimer();
+        for (RawDataRecord record : records) {
+            HarmonizedData data = harmonizer.harmonize(record);
+            QuarantineReason reason = deadLetters == null || !data.isValid() ? null
+                    : QuarantineReason.forCategory(data.getCategory());
+            if (reason != null) {
+                quarantined.add(record);
+                reasons.add(reason);
+            } else if (harmonized.add(data, record)) {
+                accepted.add(record);
+            }
+        }
+        metrics.record(Stage.HARMONIZATION, started, n);
+        metrics.countCategories(harmonized, n - harmonized.size() - quarantined.size());
+
+        PredictionBatch predictions = new PredictionBatch(n);
+        if (!aiModel.isStateful()) {
+            predict(harmonized, predictions);
+        }
+        return new ResultChunk(accepted, harmonized, predictions, quarantined, reasons);
+    }
+
+    // Etapa de cálculo sobre el almacén: se ejecuta en un worker
+    private RangeChunk processRange(RecordStore store, int from, int to, ConfigSnapshot config) {
+        int n = to - from;
+        HarmonizedBatch harmonized = new HarmonizedBatch(n, store.getCategories(), store.getSourceIds(), config);
+        int[] acceptedRows = new int[n];
+
+        long started = metrics.startTimer();
+        if (store.isHarmonizedBy(harmonizer, from, to)) {
+            store.readHarmonization(from, to, acceptedRows, harmonized); // Ya armonizadas (p. ej. snapshot)
+        } else {
+            harmonizeRange(store, from, to, harmonized, acceptedRows);
+        }
+        RangeChunk chunk = new RangeChunk(from, to, acceptedRows, harmonized, new PredictionBatch(n));
+        if (deadLetters != null) {
+            chunk = separateQuarantined(chunk);
+        }
+        metrics.record(Stage.HARMONIZATION, started, n);
+        int quarantined = chunk.quarantined == null ? 0 : chunk.quarantined.size();
+        metrics.countCategories(chunk.harmonized, n - chunk.harmonized.size() - quarantined);
+        if (!aiModel.isStateful()) {
+            predictRange(store, chunk);
+        }
+        return chunk;
+    }
+
+    private void harmonizeRange(RecordStore store, int from, int to, HarmonizedBatch harmonized, int[] acceptedRows) {
+        for (int row = from; row < to; row++) {
+            RawDataRecord record = store.record(row);
+            HarmonizedData data = harmonizer.harmonize(record);
+            if (harmonized.add(data, store.getSourceIdCode(row), record.getEventEpochMillis())) {
+                acceptedRows[harmonized.size() - 1] = row;
+            }
+        }
+    }
+
+    // Aparta las filas que van a cuarentena en un lote propio que no pasa por el modelo
+    private RangeChunk separateQuarantined(RangeChunk chunk) {
+        HarmonizedBatch harmonized = chunk.harmonized;
+        int n = harmonized.size();
+        int[] categoryIds = harmonized.getCategoryIds();
+
+        // Una consulta por categoría, no por registro
+        LabelDictionary labels = harmonized.getCategories();
+        boolean[] apartOf = new boolean[labels.size()];
+        for (int id = 0; id < apartOf.length; id++) {
+            apartOf[id] = QuarantineReason.forCategory(labels.label(id)) != null;
+        }
+        int quarantined = 0;
+        for (int k = 0; k < n; k++) {
+            if (apartOf[categoryIds[k]]) {
+                quarantined++;
+            }
+        }
+        if (quarantined == 0) {
+            return chunk;
+        }
+
+        int total = chunk.to - chunk.from;
+        HarmonizedBatch kept = new HarmonizedBatch(total, labels, harmonized.getSources(), harmonized.getConfig());
+        HarmonizedBatch apart = new HarmonizedBatch(quarantined, labels, harmonized.getSources(),
+                harmonized.getConfig());
+        int[] keptRows = new int[total];
+        int[] apartRows = new int[quarantined];
+        double[] values = harmonized.getValues();
+        int[] sourceIds = harmonized.getSourceIds();
+        long[] eventTimes = harmonized.getEventTimes();
+        for (int k = 0; k < n; k++) {
+            boolean apartRow = apartOf[categoryIds[k]];
+            HarmonizedBatch target = apartRow ? apart : kept;
+            target.add(values[k], categoryIds[k], sourceIds[k], eventTimes[k]);
+            (apartRow ? apartRows : keptRows)[target.size() - 1] = chunk.acceptedRows[k];
+        }
+        RangeChunk separated = new RangeChunk(chunk.from, chunk.to, keptRows, kept, chunk.predictions);
+        separated.quarantinedRows = apartRows;
+        separated.quarantined = apart;
+        return separated;
+    }
+
+    private void predictRange(RecordStore store, RangeChunk chunk) {
+        predict(chunk.harmonized, chunk.predictions);
+        store.writeAnalysis(chunk.from, chunk.to, chunk.acceptedRows, chunk.harmonized, chunk.predictions);
+        if (chunk.quarantined != null) {
+            store.writeHarmonized(chunk.quarantinedRows, chunk.quarantined);
+        }
+    }
+
+    // Etapa de emisión: pone en cuarentena las filas apartadas, en orden de filas
+    private void quarantine(RecordStore store, RangeChunk chunk) {
+        if (chunk.quarantined == null) {
+            return;
+        }
+        LabelDictionary labels = chunk.quarantined.getCategories();
+        int[] categoryIds = chunk.quarantined.getCategoryIds();
+        for (int k = 0; k < chunk.quarantined.size(); k++) {
+            QuarantineReason reason = QuarantineReason.forCategory(labels.label(categoryIds[k]));
+            deadLetters.quarantine(reason, store.record(chunk.quarantinedRows[k]));
+        }
+    }
+
+    private void predict(HarmonizedBatch harmonized, PredictionBatch predictions) {
+        long started = metrics.startTimer();
+        aiModel.predictBatch(harmonized, predictions);
+        metrics.record(Stage.PREDICTION, started, predictions.size());
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Fuente de registros en modo push.
+     */
+    private interface RecordSource {
+        void feed(Consumer<RawDataRecord> consumer) throws IOException;
+    }
+
+    /**
+     * Etapa de lectura: agrupa registros en lotes y los envía a los workers.
+     * Bloquea cuando la cola de lotes pendientes está llena.
+     */
+    private final class Reader implements Runnable {
+        private final RecordSource source;
+        private final ExecutorService workers;
+        private final BlockingQueue<Future<ResultChunk>> pending;
+        private final ConfigSnapshot config;
+        private volatile long recordsRead = 0;
+        private volatile Throwable failure;
+        private List<RawDataRecord> batch;
+
+        Reader(RecordSource source, ExecutorService workers, BlockingQueue<Future<ResultChunk>> pending,
+                ConfigSnapshot config) {
+            this.source = source;
+            this.workers = workers;
+            this.pending = pending;
+            this.config = config;
+            this.batch = new ArrayList<>(options.getBatchSize());
+        }
+
+        @Override
+        public void run() {
+            try {
+                source.feed(record -> {
+                    batch.add(record);
+                    recordsRead++;
+                    if (batch.size() == options.getBatchSize()) {
+                        dispatch();
+                    }
+                });
+                if (!batch.isEmpty()) {
+                    dispatch();
+                }
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                // Si el emisor ya abortó no hay nadie esperando: offer evita bloquear
+                if (!pending.offer(END_OF_DATA) && !Thread.currentThread().isInterrupted()) {
+                    try {
+                        pending.put(END_OF_DATA);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+
+        long recordsRead() {
+            return recordsRead;
+        }
+
+        private void dispatch() {
+            List<RawDataRecord> full = batch;
+            batch = new ArrayList<>(options.getBatchSize());
+            try {
+                pending.put(workers.submit(() -> process(full, config)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reader interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * Resultado de un lote, listo para emitirse en orden.
+     */
+    private static final class ResultChunk {
+        private final List<RawDataRecord> records;
+        private final HarmonizedBatch harmonized;
+        private final PredictionBatch predictions;
+        private final List<RawDataRecord> quarantined;
+        private final List<QuarantineReason> reasons;
+
+        ResultChunk(List<RawDataRecord> records, HarmonizedBatch harmonized, PredictionBatch predictions,
+                List<RawDataRecord> quarantined, List<QuarantineReason> reasons) {
+            this.records = records;
+            this.harmonized = harmonized;
+            this.predictions = predictions;
+            this.quarantined = quarantined;
+            this.reasons = reasons;
+        }
+    }
+
+    /**
+     * Lote de filas [from, to) de un RecordStore.
+     */
+    private static final class RangeChunk {
+        private final int from;
+        private final int to;
+        private final int[] acceptedRows;
+        private final HarmonizedBatch harmonized;
+        private final PredictionBatch predictions;
+        // Filas en cuarentena: armonizadas pero fuera del lote del modelo (null = ninguna)
+        private int[] quarantinedRows;
+        private HarmonizedBatch quarantined;
+
+        RangeChunk(int from, int to, int[] acceptedRows, HarmonizedBatch harmonized, PredictionBatch predictions) {
+            this.from = from;
+            this.to = to;
+            this.acceptedRows = acceptedRows;
+            this.harmonized = harmonized;
+            this.predictions = predictions;
+        }
+    }
+
+    /**
+     * Progreso agregado por consola en lugar de una línea por registro.
+     */
+    private static final class ProgressReporter {
+        private final long intervalNanos;
+        private final long start;
+        private long lastReport;
+
+        ProgressReporter(long intervalMs, long start) {
+            this.intervalNanos = intervalMs * 1_000_000L;
+            this.start = start;
+            this.lastReport = start;
+        }
+
+        void update(long read, long processed) {
+            if (intervalNanos <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - lastReport >= intervalNanos) {
+                lastReport = now;
+                System.out.printf("[Pipeline] Read: %d | Processed: %d | %.0f rec/s%n",
+                        read, processed, processed / ((now - start) / 1e9));
+            }
+        }
+
+        void finish(PipelineSummary summary) {
+            if (intervalNanos > 0) {
+                System.out.printf("[Pipeline] Done. Read: %d | Processed: %d | Skipped: %d | %.1f ms (%.0f rec/s)%n",
+                        summary.getRecordsRead(), summary.getRecordsProcessed(), summary.getRecordsSkipped(),
+                        summary.getElapsedNanos() / 1e6, summary.getThroughput());
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package pipeline;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import metrics.Histogram;
+
+/**
+ * Histograma de latencias en nanosegundos con buckets log-lineales: cada
+ * potencia de dos se divide en 16 sub-buckets, de modo que el error relativo
+ * de un percentil es como máximo ~6% en todo el rango y el tamaño es fijo
+ * (sin asignaciones al registrar).
+ *
+ * Un único hilo escribe (record); cualquier hilo puede leer percentiles
+ * mientras tanto. Usa los mismos buckets que metrics.Histogram, la variante
+ * con varios escritores, sin su coste de incrementos atómicos.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = Histogram.BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private volatile long count = 0;
+    private volatile long sum = 0;
+    private volatile long max = 0;
+
+    /**
+     * Registra una latencia (solo desde el hilo escritor).
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int index = Histogram.bucketOf(value);
+        counts.lazySet(index, counts.get(index) + 1);
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+        count = count + 1; // Se publica al final: los lectores ven buckets al menos tan recientes
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxNanos() {
+        return max;
+    }
+
+    public double getMeanNanos() {
+        long n = count;
+        return n == 0 ? 0.0 : (double) sum / n;
+    }
+
+    /**
+     * Latencia por debajo de la cual está la fracción indicada de registros
+     * (límite superior del bucket, acotado al máximo observado).
+     *
+     * @param quantile Valor entre 0 y 1 (p. ej. 0.99).
+     */
+    public long getPercentileNanos(double quantile) {
+        long n = count;
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(Histogram.upperBound(i), max);
+            }
+        }
+        return max;
+    }
+}
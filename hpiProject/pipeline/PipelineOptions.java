@@ -0,0 +1,89 @@
+package pipeline;
+
+import config.ConfigSnapshot;
+
+/**
+ * Parámetros de ejecución del AnalysisPipeline.
+ */
+public class PipelineOptions {
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final int QUEUED_BATCHES_PER_WORKER = 4;
+    private static final long DEFAULT_PROGRESS_INTERVAL_MS = 1000;
+
+    private final int workerThreads;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final boolean productionMode;
+    private final int simulatedDelayMs;
+    private final long progressIntervalMs;
+
+    /**
+     * @param workerThreads      Hilos que armonizan y predicen en paralelo.
+     * @param batchSize          Registros por lote de trabajo.
+     * @param queueCapacity      Lotes en vuelo como máximo (back-pressure sobre la lectura).
+     * @param productionMode     Si es true no se aplica ningún retardo simulado.
+     * @param simulatedDelayMs   Retardo visual por lote en modo interactivo.
+     * @param progressIntervalMs Cada cuánto se imprime el progreso agregado (0 = nunca).
+     */
+    public PipelineOptions(int workerThreads, int batchSize, int queueCapacity, boolean productionMode,
+            int simulatedDelayMs, long progressIntervalMs) {
+        if (workerThreads < 1 || batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Workers, batch size and queue capacity must be at least 1");
+        }
+        this.workerThreads = workerThreads;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.productionMode = productionMode;
+        this.simulatedDelayMs = simulatedDelayMs;
+        this.progressIntervalMs = progressIntervalMs;
+    }
+
+    /**
+     * Ejecución sin retardos simulados, un hilo por núcleo.
+     */
+    public static PipelineOptions production() {
+        return production(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Ejecución sin retardos simulados con el número de workers indicado.
+     */
+    public static PipelineOptions production(int workers) {
+        return new PipelineOptions(workers, DEFAULT_BATCH_SIZE, workers * QUEUED_BATCHES_PER_WORKER, true, 0,
+                DEFAULT_PROGRESS_INTERVAL_MS);
+    }
+
+    /**
+     * Ejecución desde el menú: mantiene el "efecto visual" configurado en
+     * la configuración (simulationDelayMs por lote).
+     */
+    public static PipelineOptions interactive(ConfigSnapshot config) {
+        int workers = Runtime.getRuntime().availableProcessors();
+        return new PipelineOptions(workers, DEFAULT_BATCH_SIZE, workers * QUEUED_BATCHES_PER_WORKER, false,
+                config.getSimulationDelayMs(), DEFAULT_PROGRESS_INTERVAL_MS);
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public boolean isProductionMode() {
+        return productionMode;
+    }
+
+    public int getSimulatedDelayMs() {
+        return productionMode ? 0 : simulatedDelayMs;
+    }
+
+    public long getProgressIntervalMs() {
+        return progressIntervalMs;
+    }
+}
@@ -0,0 +1,43 @@
+package pipeline;
+
+/**
+ * Resumen de una ejecución del AnalysisPipeline.
+ */
+public class PipelineSummary {
+    private final long recordsRead;
+    private final long recordsProcessed;
+    private final long elapsedNanos;
+
+    public PipelineSummary(long recordsRead, long recordsProcessed, long elapsedNanos) {
+        this.recordsRead = recordsRead;
+        this.recordsProcessed = recordsProcessed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    public long getRecordsProcessed() {
+        return recordsProcessed;
+    }
+
+    // Registros descartados por no superar la validación de calidad
+    public long getRecordsSkipped() {
+        return recordsRead - recordsProcessed;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0.0 : recordsProcessed / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PipelineSummary{read=%d, processed=%d, skipped=%d, elapsed=%.1f ms, %.0f rec/s}",
+                recordsRead, recordsProcessed, getRecordsSkipped(), elapsedNanos / 1e6, getThroughput());
+    }
+}
@@ -0,0 +1,61 @@
+package pipeline;
+
+/**
+ * Parámetros del StreamProcessor (modo streaming).
+ */
+public class StreamOptions {
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    private static final long DEFAULT_MAX_LATENCY_MS = 5;
+    private static final int DEFAULT_QUEUE_CAPACITY = 16 * 1024;
+    private static final long DEFAULT_STATS_INTERVAL_MS = 5000;
+
+    private final int maxBatchSize;
+    private final long maxLatencyMs;
+    private final int queueCapacity;
+    private final long statsIntervalMs;
+
+    /**
+     * @param maxBatchSize    Registros por micro-lote como máximo.
+     * @param maxLatencyMs    Espera máxima desde que llega el primer registro de
+     *                        un micro-lote hasta que se procesa (0 = sin espera).
+     * @param queueCapacity   Registros pendientes como máximo; con la cola llena
+     *                        quien entrega registros se bloquea (back-pressure).
+     * @param statsIntervalMs Cada cuánto se imprimen las métricas (0 = nunca).
+     */
+    public StreamOptions(int maxBatchSize, long maxLatencyMs, int queueCapacity, long statsIntervalMs) {
+        if (maxBatchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Batch size and queue capacity must be at least 1");
+        }
+        if (maxLatencyMs < 0 || statsIntervalMs < 0) {
+            throw new IllegalArgumentException("Latency and stats interval cannot be negative");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyMs = maxLatencyMs;
+        this.queueCapacity = queueCapacity;
+        this.statsIntervalMs = statsIntervalMs;
+    }
+
+    /**
+     * Micro-lotes de hasta 256 registros con una espera máxima de 5 ms.
+     */
+    public static StreamOptions defaults() {
+        return new StreamOptions(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LATENCY_MS, DEFAULT_QUEUE_CAPACITY,
+                DEFAULT_STATS_INTERVAL_MS);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getStatsIntervalMs() {
+        return statsIntervalMs;
+    }
+}
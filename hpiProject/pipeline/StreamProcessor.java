@@ -0,0 +1,342 @@
+package pipeline;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import analytics.IPredictiveModel;
+import config.ConfigSnapshot;
+import config.ConfigurationContext;
+import harmonization.IHarmonizer;
+import ingestion.DeadLetterQueue;
+import ingestion.QuarantineReason;
+import metrics.MetricsRegistry;
+import metrics.Stage;
+import model.HarmonizedBatch;
+import model.HarmonizedData;
+import model.LabelDictionary;
+import model.PredictionBatch;
+import model.PredictionResult;
+import model.RawDataRecord;
+
+/**
+ * Procesador continuo (armonizar -> predecir) para registros que llegan de
+ * uno en uno, p. ej. las líneas nuevas de un CSV vigilado.
+ *
+ * Los registros se encolan en una cola acotada; un hilo propio los agrupa en
+ * micro-lotes que se procesan en cuanto se llenan (maxBatchSize) o cuando el
+ * primer registro del lote lleva maxLatencyMs esperando, lo que ocurra antes.
+ * Con tráfico alto los lotes se llenan y se aprovecha predictBatch; con
+ * tráfico bajo cada registro sale en pocos milisegundos.
+ *
+ * Con la cola llena, submit() bloquea al productor (back-pressure): el lector
+ * deja de avanzar en el archivo y los datos esperan en disco, no en memoria.
+ *
+ * Cada micro-lote usa el ConfigSnapshot vigente, de modo que los cambios de
+ * configuración se aplican sin reiniciar el stream. El sink se llama siempre
+ * desde el hilo del procesador, en orden de llegada.
+ *
+ * Con una DeadLetterQueue, los registros vacíos o ilegibles van a cuarentena
+ * en lugar de al modelo (cuentan como descartados) y la cola se vuelca al
+ * final de cada micro-lote que haya apartado alguno.
+ */
+public class StreamProcessor implements AutoCloseable {
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final IHarmonizer harmonizer;
+    private final IPredictiveModel aiModel;
+    private final StreamOptions options;
+    private final DeadLetterQueue deadLetters;
+    private final BlockingQueue<Pending> queue;
+    private final LabelDictionary categories = new LabelDictionary(PredictionResult::targetOf);
+    // Ids de fuente de los micro-lotes: los modelos con estado guardan cada serie por su id
+    private final LabelDictionary sources = new LabelDictionary();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final AtomicLong recordsReceived = new AtomicLong();
+    private final AtomicLong backPressureWaits = new AtomicLong();
+
+    // Solo los escribe el hilo del procesador
+    private volatile long recordsProcessed = 0;
+    private volatile long recordsSkipped = 0;
+    private volatile long batches = 0;
+
+    private volatile boolean closing = false;
+    private volatile Throwable failure;
+    private Thread worker;
+    private long start;
+
+    public StreamProcessor(IHarmonizer harmonizer, IPredictiveModel aiModel, StreamOptions options) {
+        this(harmonizer, aiModel, options, null);
+    }
+
+    /**
+     * @param deadLetters Cola de cuarentena (null = los registros vacíos o
+     *                    ilegibles se analizan como el resto).
+     */
+    public StreamProcessor(IHarmonizer harmonizer, IPredictiveModel aiModel, StreamOptions options,
+            DeadLetterQueue deadLetters) {
+        this.harmonizer = harmonizer;
+        this.aiModel = aiModel;
+        this.options = options;
+        this.deadLetters = deadLetters;
+        this.queue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+    }
+
+    /**
+     * Arranca el hilo del procesador.
+     *
+     * @param sink       Recibe cada predicción.
+     * @param onBatchEnd Se ejecuta tras emitir cada micro-lote (p. ej. flush de la salida).
+     */
+    public synchronized void start(BiConsumer<RawDataRecord, PredictionResult> sink, Runnable onBatchEnd) {
+        if (worker != null) {
+            throw new IllegalStateException("Stream processor already started");
+        }
+        start = System.nanoTime();
+        worker = new Thread(() -> runLoop(sink, onBatchEnd), "hpi-stream-processor");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Encola un registro. Bloquea mientras la cola esté llena.
+     *
+     * @throws InterruptedException  Si el hilo se interrumpe esperando espacio.
+     * @throws IllegalStateException Si el procesador está cerrado o ha fallado.
+     */
+    public void submit(RawDataRecord record) throws InterruptedException {
+        checkAccepting();
+        Pending item = new Pending(record, System.nanoTime());
+        if (!queue.offer(item)) {
+            backPressureWaits.incrementAndGet();
+            while (!queue.offer(item, IDLE_POLL_MS, TimeUnit.MILLISECONDS)) {
+                checkAccepting(); // No esperar indefinidamente a un procesador caído
+            }
+        }
+        recordsReceived.incrementAndGet();
+    }
+
+    /**
+     * Adaptador de submit() para usar el procesador como sink de un cargador.
+     */
+    public Consumer<RawDataRecord> input() {
+        return record -> {
+            try {
+                submit(record);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Stream input interrupted", e);
+            }
+        };
+    }
+
+    /**
+     * Métricas acumuladas desde start().
+     */
+    public StreamStats stats() {
+        return new StreamStats(recordsReceived.get(), recordsProcessed, recordsSkipped, batches,
+                backPressureWaits.get(), queue.size(), latency, System.nanoTime() - start);
+    }
+
+    /**
+     * Error que detuvo el procesador, o null.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Deja de aceptar registros, procesa los ya encolados y espera al hilo.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        Thread thread;
+        synchronized (this) {
+            thread = worker;
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkAccepting() {
+        if (failure != null) {
+            throw new IllegalStateException("Stream processor failed: " + failure, failure);
+        }
+        if (closing) {
+            throw new IllegalStateException("Stream processor closed");
+        }
+    }
+
+    private void runLoop(BiConsumer<RawDataRecord, PredictionResult> sink, Runnable onBatchEnd) {
+        int maxBatch = options.getMaxBatchSize();
+        long maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(options.getMaxLatencyMs());
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        MicroBatch work = new MicroBatch(maxBatch);
+        StatsReporter reporter = new StatsReporter(options.getStatsIntervalMs());
+
+        try {
+            while (true) {
+                Pending first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closing) {
+                        break;
+                    }
+                    reporter.update();
+                    continue;
+                }
+
+                // Se completa el lote con lo ya encolado y, si no basta, se espera
+                // como mucho hasta que el primer registro cumpla maxLatencyMs
+                batch.add(first);
+                long deadline = first.arrivalNanos + maxLatencyNanos;
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                work.process(batch, sink, onBatchEnd);
+                batch.clear();
+                reporter.update();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            System.err.println("[Stream Error] " + e);
+            queue.clear(); // Los productores bloqueados ven el fallo en su siguiente intento
+        }
+    }
+
+    /**
+     * Registro encolado con su instante de llegada.
+     */
+    private static final class Pending {
+        private final RawDataRecord record;
+        private final long arrivalNanos;
+
+        Pending(RawDataRecord record, long arrivalNanos) {
+            this.record = record;
+            this.arrivalNanos = arrivalNanos;
+        }
+    }
+
+    /**
+     * Buffers columnares reutilizados entre micro-lotes.
+     */
+    private final class MicroBatch {
+        private final Pending[] accepted;
+        private final PredictionBatch predictions;
+        private HarmonizedBatch harmonized;
+
+        MicroBatch(int capacity) {
+            this.accepted = new Pending[capacity];
+            this.predictions = new PredictionBatch(capacity);
+        }
+
+        void process(List<Pending> batch, BiConsumer<RawDataRecord, PredictionResult> sink, Runnable onBatchEnd) {
+            ConfigSnapshot config = ConfigurationContext.getInstance().snapshot();
+            if (harmonized == null || harmonized.getConfig() != config) {
+                harmonized = new HarmonizedBatch(accepted.length, categories, sources, config);
+            } else {
+                harmonized.clear();
+            }
+
+            int n = 0;
+            int quarantined = 0;
+            long started = metrics.startTimer();
+            for (Pending item : batch) {
+                HarmonizedData data = harmonizer.harmonize(item.record);
+                QuarantineReason reason = deadLetters == null || !data.isValid() ? null
+                        : QuarantineReason.forCategory(data.getCategory());
+                if (reason != null) {
+                    deadLetters.quarantine(reason, item.record);
+                    quarantined++;
+                } else if (harmonized.add(data, item.record)) {
+                    accepted[n++] = item;
+                }
+            }
+            metrics.record(Stage.HARMONIZATION, started, batch.size());
+            metrics.countCategories(harmonized, batch.size() - n - quarantined);
+            if (quarantined > 0) {
+                flushDeadLetters();
+            }
+
+            if (n > 0) {
+                started = metrics.startTimer();
+                aiModel.predictBatch(harmonized, predictions);
+                metrics.record(Stage.PREDICTION, started, n);
+                for (int i = 0; i < predictions.size(); i++) {
+                    sink.accept(accepted[i].record, predictions.toResult(i, harmonized));
+                }
+                onBatchEnd.run();
+
+                long emitted = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    latency.record(emitted - accepted[i].arrivalNanos);
+                    accepted[i] = null;
+                }
+            }
+
+            recordsProcessed += n;
+            recordsSkipped += batch.size() - n;
+            batches++;
+        }
+
+        private void flushDeadLetters() {
+            try {
+                deadLetters.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Métricas periódicas por consola (solo si hubo actividad desde la última).
+     */
+    private final class StatsReporter {
+        private final long intervalNanos;
+        private long lastReport = System.nanoTime();
+        private long lastBatches = 0;
+
+        StatsReporter(long intervalMs) {
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        }
+
+        void update() {
+            if (intervalNanos <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - lastReport >= intervalNanos && batches != lastBatches) {
+                lastReport = now;
+                lastBatches = batches;
+                System.out.println("[Stream] " + stats());
+            }
+        }
+    }
+}
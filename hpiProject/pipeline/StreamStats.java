@@ -0,0 +1,92 @@
+package pipeline;
+
+/**
+ * Métricas de un StreamProcessor en un instante dado.
+ *
+ * La latencia es extremo a extremo dentro del proceso: desde que la línea se
+ * lee del archivo y se entrega al procesador hasta que su predicción se emite.
+ */
+public class StreamStats {
+    private final long recordsReceived;
+    private final long recordsProcessed;
+    private final long recordsSkipped;
+    private final long batches;
+    private final long backPressureWaits;
+    private final int queueDepth;
+    private final long latencyP50Nanos;
+    private final long latencyP99Nanos;
+    private final long latencyMaxNanos;
+    private final long elapsedNanos;
+
+    public StreamStats(long recordsReceived, long recordsProcessed, long recordsSkipped, long batches,
+            long backPressureWaits, int queueDepth, LatencyHistogram latency, long elapsedNanos) {
+        this.recordsReceived = recordsReceived;
+        this.recordsProcessed = recordsProcessed;
+        this.recordsSkipped = recordsSkipped;
+        this.batches = batches;
+        this.backPressureWaits = backPressureWaits;
+        this.queueDepth = queueDepth;
+        this.latencyP50Nanos = latency.getPercentileNanos(0.50);
+        this.latencyP99Nanos = latency.getPercentileNanos(0.99);
+        this.latencyMaxNanos = latency.getMaxNanos();
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRecordsReceived() {
+        return recordsReceived;
+    }
+
+    public long getRecordsProcessed() {
+        return recordsProcessed;
+    }
+
+    // Registros descartados por no superar la validación de calidad
+    public long getRecordsSkipped() {
+        return recordsSkipped;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public double getAverageBatchSize() {
+        return batches == 0 ? 0.0 : (double) (recordsProcessed + recordsSkipped) / batches;
+    }
+
+    // Veces que un productor encontró la cola llena y tuvo que esperar
+    public long getBackPressureWaits() {
+        return backPressureWaits;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getLatencyP50Nanos() {
+        return latencyP50Nanos;
+    }
+
+    public long getLatencyP99Nanos() {
+        return latencyP99Nanos;
+    }
+
+    public long getLatencyMaxNanos() {
+        return latencyMaxNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0.0 : recordsProcessed / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Received: %d | Processed: %d | Skipped: %d | Batches: %d (avg %.1f)"
+                + " | Latency p50 %.2f ms, p99 %.2f ms, max %.2f ms | Queue: %d | Back-pressure waits: %d",
+                recordsReceived, recordsProcessed, recordsSkipped, batches, getAverageBatchSize(),
+                latencyP50Nanos / 1e6, latencyP99Nanos / 1e6, latencyMaxNanos / 1e6, queueDepth, backPressureWaits);
+    }
+}
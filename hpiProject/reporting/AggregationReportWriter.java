@@ -0,0 +1,106 @@
+package reporting;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import analytics.AggregationResult;
+import analytics.SummaryStatistics;
+
+/**
+ * Reporte de una agregación (AggregationResult). Ocupa una línea por grupo y
+ * medida, así que se escribe con un BufferedWriter normal:
+ * - TEXT: la tabla de consola con la cabecera del reporte clásico.
+ * - CSV: una fila por grupo y medida, valores en precisión completa:
+ *
+ * <pre>
+ * group_by,group,measure,count,sum,min,max,mean,variance,p50,p90,p99
+ * category,Sales_Revenue,projected,1200,1656690.0,...
+ * </pre>
+ *
+ * El formato binario no tiene equivalente para agregados.
+ */
+final class AggregationReportWriter {
+
+    static final String CSV_HEADER = "group_by,group,measure,count,sum,min,max,mean,variance,p50,p90,p99";
+
+    private AggregationReportWriter() {
+    }
+
+    static void write(AggregationResult result, Path file, ReportFormat format) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            switch (format) {
+                case CSV:
+                    writeCsv(result, out);
+                    break;
+                case TEXT:
+                    writeText(result, out);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Aggregation reports support text and CSV only");
+            }
+        }
+    }
+
+    private static void writeText(AggregationResult result, BufferedWriter out) throws IOException {
+        String separator = "==================================================";
+        out.write(separator);
+        out.newLine();
+        out.write("          ARTIFICIAL SOCIETY - AGGREGATION REPORT");
+        out.newLine();
+        out.write("          Generated: " + LocalDateTime.now());
+        out.newLine();
+        out.write(separator);
+        out.newLine();
+        out.newLine();
+        out.write(result.toString());
+        out.newLine();
+        out.write("[END OF REPORT]");
+        out.newLine();
+    }
+
+    private static void writeCsv(AggregationResult result, BufferedWriter out) throws IOException {
+        out.write(CSV_HEADER);
+        out.write('\n');
+        for (AggregationResult.Group group : result.getGroups()) {
+            writeCsvGroup(result, group, out);
+        }
+        writeCsvGroup(result, result.getTotal(), out);
+    }
+
+    private static void writeCsvGroup(AggregationResult result, AggregationResult.Group group, BufferedWriter out)
+            throws IOException {
+        writeCsvRow(result, group.getName(), "projected", group.getProjected(), out);
+        writeCsvRow(result, group.getName(), "value", group.getValue(), out);
+    }
+
+    private static void writeCsvRow(AggregationResult result, String name, String measure, SummaryStatistics stats,
+            BufferedWriter out) throws IOException {
+        StringBuilder row = new StringBuilder(160);
+        row.append(result.getGroupBy().getLabel()).append(',').append(field(name)).append(',').append(measure)
+                .append(',').append(stats.getCount())
+                .append(',').append(stats.getSum())
+                .append(',').append(stats.getMin())
+                .append(',').append(stats.getMax())
+                .append(',').append(stats.getMean())
+                .append(',').append(stats.getVariance());
+        for (double quantile : AggregationResult.QUANTILES) {
+            row.append(',').append(stats.getQuantile(quantile));
+        }
+        out.write(row.append('\n').toString());
+    }
+
+    // Entre comillas solo si contiene separador, comillas o salto de línea
+    private static String field(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,279 @@
+package reporting;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import model.PredictionResult;
+import model.RawDataRecord;
+import model.RecordStore;
+
+/**
+ * Escritor asíncrono con doble buffer (o más) delante de otro IReportWriter.
+ *
+ * El hilo que produce los resultados (p. ej. la etapa de emisión del
+ * AnalysisPipeline) solo los anota en un buffer; al llenarse lo entrega a un
+ * hilo escritor propio, que lo vuelca al escritor real mientras el productor
+ * sigue llenando otro. El cálculo y la escritura a disco se solapan, de modo
+ * que el tiempo total se acerca al mayor de los dos y no a su suma. Con
+ * todos los buffers en manos del escritor el productor espera: el disco
+ * marca el ritmo sin que la memoria crezca.
+ *
+ * De una fila de un RecordStore solo se anota el número de fila; el hilo
+ * escritor lee sus columnas al volcarla. Las filas no deben cambiar hasta
+ * close().
+ *
+ * Un error del hilo escritor se relanza en el productor en la siguiente
+ * entrega, en flush() o en close(). close() espera a que el escritor termine:
+ * el reporte queda completo, con su pie, y forzado a disco.
+ *
+ * Como el resto de escritores, se usa desde un único hilo productor.
+ */
+final class AsyncReportWriter implements IReportWriter {
+
+    static final int DEFAULT_BUFFERS = 2;
+    static final int DEFAULT_BUFFER_RECORDS = 4096;
+
+    // Marcador de fin en la cola de buffers llenos
+    private static final ResultBuffer END = new ResultBuffer(0);
+
+    private final IReportWriter target;
+    private final int buffers;
+    private final int bufferRecords;
+    private final BlockingQueue<ResultBuffer> free;
+    private final BlockingQueue<ResultBuffer> filled = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile Exception failure;
+
+    // Estado del productor
+    private ResultBuffer current;
+    private long recordsWritten = 0;
+    private long handOffs = 0;
+    private long waitNanos = 0;
+    private boolean closed = false;
+
+    /**
+     * @param target        Escritor real; pasa a usarse solo desde el hilo escritor.
+     * @param buffers       Buffers que se alternan productor y escritor (al menos 2).
+     * @param bufferRecords Resultados por buffer.
+     */
+    AsyncReportWriter(IReportWriter target, int buffers, int bufferRecords) {
+        if (buffers < 2) {
+            throw new IllegalArgumentException("At least 2 buffers are required");
+        }
+        if (bufferRecords < 1) {
+            throw new IllegalArgumentException("Buffer size must be at least 1 record");
+        }
+        this.target = target;
+        this.buffers = buffers;
+        this.bufferRecords = bufferRecords;
+        this.free = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            free.add(new ResultBuffer(bufferRecords));
+        }
+        this.writerThread = new Thread(this::drain, "hpi-report-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void write(RawDataRecord rawRecord, PredictionResult prediction) throws IOException {
+        ResultBuffer buffer = buffer();
+        buffer.records[buffer.size] = rawRecord;
+        buffer.predictions[buffer.size] = prediction;
+        added(buffer);
+    }
+
+    @Override
+    public void write(RecordStore store, int row) throws IOException {
+        ResultBuffer buffer = buffer();
+        if (buffer.store != null && buffer.store != store) {
+            handOff();
+            buffer = buffer();
+        }
+        buffer.store = store;
+        buffer.rows[buffer.size] = row;
+        added(buffer);
+    }
+
+    /**
+     * @return Resultados recibidos hasta el momento (escritos o pendientes
+     *         del hilo escritor); tras close(), los escritos.
+     */
+    @Override
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Entrega el buffer en curso y espera a que el hilo escritor vuelque todo
+     * lo recibido hasta ahora.
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer().flush = true;
+        handOff();
+        // Con todos los buffers de vuelta, lo anterior ya está escrito
+        List<ResultBuffer> all = new ArrayList<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            all.add(take(free));
+        }
+        free.addAll(all);
+        checkFailure();
+    }
+
+    /**
+     * Entrega lo pendiente, espera al hilo escritor y relanza su error si lo
+     * hubo. El escritor real se cierra (pie, volcado y fsync) en su hilo.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current != null) {
+            filled.add(current);
+            current = null;
+        }
+        filled.add(END);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the report writer");
+        }
+        checkFailure();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Async export: %d buffers of %d records, %d hand-offs, producer waited %.1f ms",
+                buffers, bufferRecords, handOffs, waitNanos / 1e6);
+    }
+
+    private ResultBuffer buffer() throws IOException {
+        if (closed) {
+            throw new IOException("Report writer is closed");
+        }
+        if (current == null) {
+            long started = System.nanoTime();
+            current = take(free);
+            waitNanos += System.nanoTime() - started;
+        }
+        return current;
+    }
+
+    private void added(ResultBuffer buffer) throws IOException {
+        buffer.size++;
+        recordsWritten++;
+        if (buffer.size == buffer.rows.length) {
+            handOff();
+        }
+    }
+
+    private void handOff() throws IOException {
+        checkFailure();
+        filled.add(current);
+        current = null;
+        handOffs++;
+    }
+
+    private void checkFailure() throws IOException {
+        Exception cause = failure;
+        if (cause != null) {
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    // Hilo escritor: vuelca cada buffer lleno y lo devuelve al productor
+    private void drain() {
+        while (true) {
+            ResultBuffer buffer = takeUninterruptibly(filled);
+            if (buffer == END) {
+                break;
+            }
+            if (failure == null) {
+                try {
+                    buffer.writeTo(target);
+                    if (buffer.flush) {
+                        target.flush();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure = e; // Los siguientes buffers se descartan
+                }
+            }
+            buffer.clear();
+            free.add(buffer);
+        }
+        try {
+            target.close();
+        } catch (IOException | RuntimeException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private static ResultBuffer take(BlockingQueue<ResultBuffer> queue) throws IOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a report buffer");
+        }
+    }
+
+    // El hilo escritor no abandona: el productor espera sus buffers y su cierre
+    private static ResultBuffer takeUninterruptibly(BlockingQueue<ResultBuffer> queue) {
+        while (true) {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                // Nadie interrumpe este hilo; si ocurre, se sigue esperando
+            }
+        }
+    }
+
+    /**
+     * Resultados anotados por el productor: pares (registro, predicción) o
+     * filas de un RecordStore (records[i] == null).
+     */
+    private static final class ResultBuffer {
+        final int[] rows;
+        final RawDataRecord[] records;
+        final PredictionResult[] predictions;
+        RecordStore store;
+        int size = 0;
+        boolean flush = false;
+
+        ResultBuffer(int capacity) {
+            this.rows = new int[capacity];
+            this.records = new RawDataRecord[capacity];
+            this.predictions = new PredictionResult[capacity];
+        }
+
+        void writeTo(IReportWriter target) throws IOException {
+            for (int i = 0; i < size; i++) {
+                if (records[i] != null) {
+                    target.write(records[i], predictions[i]);
+                } else {
+                    target.write(store, rows[i]);
+                }
+            }
+        }
+
+        void clear() {
+            Arrays.fill(records, 0, size, null);
+            Arrays.fill(predictions, 0, size, null);
+            store = null;
+            size = 0;
+            flush = false;
+        }
+    }
+}
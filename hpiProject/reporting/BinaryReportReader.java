@@ -0,0 +1,90 @@
+package reporting;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import model.PredictionResult;
+
+/**
+ * Lector del formato binario columnar generado por BinaryReportWriter.
+ */
+public class BinaryReportReader {
+
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Recorre el reporte en orden y entrega cada fila como (sourceId, predicción).
+     *
+     * @return Número de filas leídas.
+     * @throws IOException Si el archivo no existe o no tiene el formato esperado.
+     */
+    public long read(Path file, BiConsumer<String, PredictionResult> sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), READ_BUFFER_BYTES))) {
+            if (in.readInt() != BinaryReportWriter.MAGIC) {
+                throw new IOException("Not a binary report: " + file);
+            }
+            int version = in.readInt();
+            if (version != BinaryReportWriter.VERSION) {
+                throw new IOException("Unsupported binary report version: " + version);
+            }
+
+            List<String> labels = new ArrayList<>();
+            int[] sourceIds = new int[0];
+            int[] targetIds = new int[0];
+            int[] modelIds = new int[0];
+            double[] predictedValues = new double[0];
+            double[] confidences = new double[0];
+            long total = 0;
+
+            int rows;
+            while ((rows = in.readInt()) > 0) {
+                int newLabels = in.readInt();
+                for (int i = 0; i < newLabels; i++) {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    labels.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+
+                if (sourceIds.length < rows) {
+                    sourceIds = new int[rows];
+                    targetIds = new int[rows];
+                    modelIds = new int[rows];
+                    predictedValues = new double[rows];
+                    confidences = new double[rows];
+                }
+                readInts(in, sourceIds, rows);
+                readInts(in, targetIds, rows);
+                readInts(in, modelIds, rows);
+                readDoubles(in, predictedValues, rows);
+                readDoubles(in, confidences, rows);
+
+                for (int i = 0; i < rows; i++) {
+                    sink.accept(labels.get(sourceIds[i]), new PredictionResult(labels.get(targetIds[i]),
+                            predictedValues[i], confidences[i], labels.get(modelIds[i])));
+                }
+                total += rows;
+            }
+            return total;
+        }
+    }
+
+    private static void readInts(DataInputStream in, int[] column, int rows) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            column[i] = in.readInt();
+        }
+    }
+
+    private static void readDoubles(DataInputStream in, double[] column, int rows) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            column[i] = in.readDouble();
+        }
+    }
+}
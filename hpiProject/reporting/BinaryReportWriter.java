@@ -0,0 +1,132 @@
+package reporting;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import model.LabelDictionary;
+import model.PredictionResult;
+import model.RawDataRecord;
+import model.RecordStore;
+
+/**
+ * Reporte binario columnar compacto (big-endian).
+ *
+ * <pre>
+ * cabecera : int MAGIC ("HPIR"), int VERSION
+ * bloque   : int filas (0 = fin de archivo)
+ *            int etiquetas nuevas, y por cada una: int bytes + UTF-8
+ *            int[filas] sourceId, int[filas] target, int[filas] modelo (ids de etiqueta)
+ *            double[filas] valor proyectado, double[filas] confianza
+ * </pre>
+ *
+ * Los textos se codifican una sola vez en un diccionario compartido por todo
+ * el archivo; cada bloque solo añade las etiquetas que aparecen por primera
+ * vez. Se lee con BinaryReportReader.
+ */
+final class BinaryReportWriter implements IReportWriter {
+
+    static final int MAGIC = 0x48504952; // "HPIR"
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 64 * 1024;
+
+    private final ChannelOutput out;
+    private final LabelDictionary labels = new LabelDictionary();
+    private int labelsWritten = 0;
+
+    // Columnas del bloque en curso
+    private final int[] sourceIds = new int[BLOCK_ROWS];
+    private final int[] targetIds = new int[BLOCK_ROWS];
+    private final int[] modelIds = new int[BLOCK_ROWS];
+    private final double[] predictedValues = new double[BLOCK_ROWS];
+    private final double[] confidences = new double[BLOCK_ROWS];
+    private int rows = 0;
+    private long recordsWritten = 0;
+
+    BinaryReportWriter(Path file, int bufferBytes) throws IOException {
+        this.out = new ChannelOutput(file, bufferBytes);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+    }
+
+    @Override
+    public void write(RawDataRecord rawRecord, PredictionResult prediction) throws IOException {
+        write(rawRecord.getSourceId(), prediction.getTargetVariable(), prediction.getModelName(),
+                prediction.getPredictedValue(), prediction.getConfidenceScore());
+    }
+
+    @Override
+    public void write(RecordStore store, int row) throws IOException {
+        write(store.getSourceId(row), store.getTargetVariable(row), store.getModelName(row),
+                store.getPredictedValue(row), store.getConfidence(row));
+    }
+
+    private void write(String sourceId, String target, String model, double predictedValue, double confidence)
+            throws IOException {
+        sourceIds[rows] = labels.intern(nonNull(sourceId));
+        targetIds[rows] = labels.intern(nonNull(target));
+        modelIds[rows] = labels.intern(nonNull(model));
+        predictedValues[rows] = predictedValue;
+        confidences[rows] = confidence;
+        rows++;
+        recordsWritten++;
+        out.endRecord();
+
+        if (rows == BLOCK_ROWS) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Cierra el bloque en curso aunque no esté lleno (un lector ve todas las
+     * filas escritas hasta ahora, salvo el marcador final).
+     */
+    @Override
+    public void flush() throws IOException {
+        if (rows > 0) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows > 0) {
+                writeBlock();
+            }
+            out.putInt(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        out.putInt(rows);
+
+        int known = labels.size();
+        out.putInt(known - labelsWritten);
+        for (int id = labelsWritten; id < known; id++) {
+            byte[] bytes = labels.label(id).getBytes(StandardCharsets.UTF_8);
+            out.putInt(bytes.length);
+            out.putBytes(bytes);
+        }
+        labelsWritten = known;
+
+        out.putInts(sourceIds, rows);
+        out.putInts(targetIds, rows);
+        out.putInts(modelIds, rows);
+        out.putDoubles(predictedValues, rows);
+        out.putDoubles(confidences, rows);
+        rows = 0;
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,225 @@
+package reporting;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import metrics.MetricsRegistry;
+import metrics.Stage;
+
+/**
+ * Salida a archivo a través de un FileChannel y un ByteBuffer directo grande.
+ * Los textos y números se codifican directamente en el buffer, sin crear
+ * Strings intermedios ni pasar por String.format.
+ *
+ * Los valores binarios (putInt, putDouble...) se escriben en big-endian.
+ * flush() solo entrega los bytes al sistema operativo; close() además los
+ * fuerza a disco.
+ */
+final class ChannelOutput implements AutoCloseable {
+
+    static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+
+    private static final long[] POW10 = { 1, 10, 100, 1_000, 10_000, 100_000, 1_000_000 };
+    // Por encima de este valor (o con empates de redondeo) se usa BigDecimal
+    private static final double FIXED_FAST_LIMIT = 1e9;
+    private static final double TIE_EPSILON = 1e-4;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[20];
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private long pendingRecords = 0;
+
+    ChannelOutput(Path file, int bufferBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    void putByte(int b) throws IOException {
+        ensure(1);
+        buffer.put((byte) b);
+    }
+
+    void putInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void putBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    // Columnas completas: copia en bloque por tramos del tamaño del buffer
+    void putInts(int[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            ensure(Integer.BYTES);
+            int n = Math.min(buffer.remaining() / Integer.BYTES, count - offset);
+            buffer.asIntBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Integer.BYTES);
+            offset += n;
+        }
+    }
+
+    void putDoubles(double[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            ensure(Double.BYTES);
+            int n = Math.min(buffer.remaining() / Double.BYTES, count - offset);
+            buffer.asDoubleBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Double.BYTES);
+            offset += n;
+        }
+    }
+
+    /**
+     * Texto en UTF-8. Los caracteres ASCII (el caso habitual) se copian byte a byte.
+     */
+    void putText(CharSequence text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                ensure(1);
+                buffer.put((byte) c);
+            } else {
+                i = putNonAscii(text, i);
+            }
+        }
+    }
+
+    /**
+     * Entero decimal sin signo negativo (p. ej. partes enteras ya en valor absoluto).
+     */
+    void putDecimal(long value) throws IOException {
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        ensure(digits.length - pos);
+        buffer.put(digits, pos, digits.length - pos);
+    }
+
+    /**
+     * Equivalente a String.format("%." + decimals + "f", value) con separador
+     * '.': redondeo HALF_UP sobre la representación decimal más corta del double.
+     * El caso común se resuelve con aritmética entera; los empates y los valores
+     * muy grandes pasan por BigDecimal, que da el mismo resultado.
+     */
+    void putFixed(double value, int decimals) throws IOException {
+        if (Double.isNaN(value)) {
+            putText("NaN");
+            return;
+        }
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        double magnitude = Math.abs(value);
+        if (Double.isInfinite(magnitude)) {
+            putText(negative ? "-Infinity" : "Infinity");
+            return;
+        }
+        if (negative) {
+            putByte('-');
+        }
+
+        double scaled = magnitude * POW10[decimals];
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        if (magnitude >= FIXED_FAST_LIMIT || Math.abs(fraction - 0.5) < TIE_EPSILON) {
+            putText(BigDecimal.valueOf(magnitude).setScale(decimals, RoundingMode.HALF_UP).toPlainString());
+            return;
+        }
+
+        long units = (long) floor + (fraction > 0.5 ? 1 : 0);
+        putDecimal(units / POW10[decimals]);
+        if (decimals > 0) {
+            putByte('.');
+            long fractionUnits = units % POW10[decimals];
+            // Ceros a la izquierda de la parte decimal ("05", "00")
+            for (long limit = POW10[decimals - 1]; limit > 1 && fractionUnits < limit; limit /= 10) {
+                putByte('0');
+            }
+            putDecimal(fractionUnits);
+        }
+    }
+
+    /**
+     * Marca el final de un registro del reporte; los registros se cuentan en
+     * las métricas de exportación con el siguiente volcado.
+     */
+    void endRecord() {
+        pendingRecords++;
+    }
+
+    /**
+     * Vuelca el buffer al canal (sin forzar a disco).
+     */
+    void flush() throws IOException {
+        long started = metrics.startTimer();
+        buffer.flip();
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        metrics.record(Stage.EXPORT, started, pendingRecords, bytes);
+        pendingRecords = 0;
+    }
+
+    /**
+     * Vuelca el buffer y fuerza el contenido a disco (fsync) antes de cerrar:
+     * un reporte cerrado está completo aunque el sistema caiga después.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    // Codifica un carácter no ASCII (o un par sustituto) y devuelve el último índice consumido
+    private int putNonAscii(CharSequence text, int i) throws IOException {
+        int codePoint = Character.codePointAt(text, i);
+        ensure(4);
+        if (codePoint < 0x800) {
+            buffer.put((byte) (0xC0 | (codePoint >> 6)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        } else if (codePoint < 0x10000) {
+            if (Character.isSurrogate((char) codePoint)) {
+                buffer.put((byte) '?'); // Sustituto huérfano: igual que el codificador del JDK
+                return i;
+            }
+            buffer.put((byte) (0xE0 | (codePoint >> 12)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        } else {
+            buffer.put((byte) (0xF0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            return i + 1;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,104 @@
+package reporting;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import model.PredictionResult;
+import model.RawDataRecord;
+import model.RecordStore;
+
+/**
+ * Reporte CSV (RFC 4180) para herramientas externas:
+ *
+ * <pre>
+ * source_id,target,predicted_value,confidence,model
+ * CRM_Sales_North,Future_Sales_Revenue,1380.575,0.8731,Standard_Growth_Algorithm_v1
+ * </pre>
+ *
+ * Los valores numéricos se escriben en precisión completa (representación
+ * decimal más corta del double) para que la lectura sea exacta.
+ */
+final class CsvReportWriter implements IReportWriter {
+
+    static final String HEADER = "source_id,target,predicted_value,confidence,model";
+
+    private final ChannelOutput out;
+    // Reutilizado para formatear los double sin crear un String por valor
+    private final StringBuilder number = new StringBuilder(32);
+    private long recordsWritten = 0;
+
+    CsvReportWriter(Path file, int bufferBytes) throws IOException {
+        this.out = new ChannelOutput(file, bufferBytes);
+        out.putText(HEADER);
+        out.putByte('\n');
+    }
+
+    @Override
+    public void write(RawDataRecord rawRecord, PredictionResult prediction) throws IOException {
+        write(rawRecord.getSourceId(), prediction.getTargetVariable(), prediction.getPredictedValue(),
+                prediction.getConfidenceScore(), prediction.getModelName());
+    }
+
+    @Override
+    public void write(RecordStore store, int row) throws IOException {
+        write(store.getSourceId(row), store.getTargetVariable(row), store.getPredictedValue(row),
+                store.getConfidence(row), store.getModelName(row));
+    }
+
+    private void write(String sourceId, String target, double predictedValue, double confidence, String model)
+            throws IOException {
+        field(sourceId);
+        out.putByte(',');
+        field(target);
+        out.putByte(',');
+        number(predictedValue);
+        out.putByte(',');
+        number(confidence);
+        out.putByte(',');
+        field(model);
+        out.putByte('\n');
+        recordsWritten++;
+        out.endRecord();
+    }
+
+    @Override
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void number(double value) throws IOException {
+        number.setLength(0);
+        number.append(value);
+        out.putText(number);
+    }
+
+    // Entre comillas solo si contiene separador, comillas o salto de línea
+    private void field(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.putText(value);
+            return;
+        }
+
+        out.putByte('"');
+        out.putText(value.replace("\"", "\"\""));
+        out.putByte('"');
+    }
+}
@@ -0,0 +1,89 @@
+package reporting;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+
+import model.PredictionResult;
+import model.RawDataRecord;
+import model.RecordStore;
+
+/**
+ * Escritor de reportes en streaming.
+ * Recibe cada resultado a medida que se produce, en lugar de dos listas
+ * completas, de modo que la memoria usada no depende del tamaño del análisis.
+ *
+ * No es thread-safe: se escribe desde un único hilo (p. ej. el sink del
+ * AnalysisPipeline, que ya entrega los resultados en orden).
+ */
+public interface IReportWriter extends Closeable {
+
+    /**
+     * Añade un resultado al reporte.
+     *
+     * @throws IOException Si falla la escritura a disco.
+     */
+    void write(RawDataRecord rawRecord, PredictionResult prediction) throws IOException;
+
+    /**
+     * Añade el resultado de una fila analizada de un RecordStore. Por
+     * defecto se materializa como vistas; los escritores de este paquete leen
+     * las columnas y las etiquetas compartidas del almacén, sin crear objetos
+     * por fila.
+     *
+     * @throws IOException Si falla la escritura a disco.
+     */
+    default void write(RecordStore store, int row) throws IOException {
+        write(store.record(row), store.prediction(row));
+    }
+
+    /**
+     * @return Resultados escritos hasta el momento.
+     */
+    long getRecordsWritten();
+
+    /**
+     * Vuelca al archivo lo escrito hasta ahora (p. ej. al final de cada
+     * micro-lote en modo streaming), sin escribir el pie ni cerrar.
+     *
+     * @throws IOException Si falla la escritura a disco.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Escribe el pie del reporte, vuelca el buffer y cierra el archivo.
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Adaptador para usar el escritor como sink del pipeline. Los errores de
+     * escritura se relanzan como UncheckedIOException y detienen el pipeline.
+     */
+    default BiConsumer<RawDataRecord, PredictionResult> asSink() {
+        return (rawRecord, prediction) -> {
+            try {
+                write(rawRecord, prediction);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Adaptador para usar el escritor como receptor de las filas analizadas
+     * de un RecordStore (AnalysisPipeline.run(store, analyzedRows)), con el
+     * mismo tratamiento de errores que asSink().
+     */
+    default IntConsumer asSink(RecordStore store) {
+        return row -> {
+            try {
+                write(store, row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -1,49 +1,169 @@
 package reporting;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
+import analytics.AggregationResult;
 import model.PredictionResult;
 import model.RawDataRecord;
+import model.RecordStore;
 
+/**
+ * Exportación de reportes a disco.
+ *
+ * Para ejecuciones grandes conviene usar open(): devuelve un IReportWriter
+ * que escribe los resultados a medida que el pipeline los produce. Los
+ * métodos exportReport(...) se mantienen para el menú, que ya tiene los
+ * resultados en memoria, y usan internamente el mismo escritor.
+ *
+ * openAsync() añade delante del escritor un hilo propio con doble buffer
+ * (AsyncReportWriter), para que la escritura a disco se solape con el
+ * análisis que produce los resultados.
+ *
+ * exportAggregation(...) guarda el resultado de una agregación
+ * (AggregationEngine) en texto o CSV.
+ */
 public class ReportExporter {
 
-    public void exportReport(List<RawDataRecord> rawData, List<PredictionResult> predictions) {
+    private final int bufferBytes;
+
+    public ReportExporter() {
+        this(ChannelOutput.DEFAULT_BUFFER_BYTES);
+    }
+
+    /**
+     * @param bufferBytes Tamaño del buffer de escritura de cada reporte.
+     */
+    public ReportExporter(int bufferBytes) {
+        if (bufferBytes < 64) {
+            throw new IllegalArgumentException("Buffer size must be at least 64 bytes");
+        }
+        this.bufferBytes = bufferBytes;
+    }
+
+    /**
+     * Abre un reporte en streaming en el formato indicado.
+     *
+     * @throws IOException Si el archivo no puede crearse.
+     */
+    public IReportWriter open(Path file, ReportFormat format) throws IOException {
+        switch (format) {
+            case CSV:
+                return new CsvReportWriter(file, bufferBytes);
+            case BINARY:
+                return new BinaryReportWriter(file, bufferBytes);
+            case TEXT:
+            default:
+                return new TextReportWriter(file, bufferBytes);
+        }
+    }
+
+    /**
+     * Igual que open(), pero la escritura se hace en un hilo propio: quien
+     * escribe solo anota los resultados en uno de los buffers y sigue. Los
+     * errores de escritura se relanzan en write(), flush() o close().
+     *
+     * @throws IOException Si el archivo no puede crearse.
+     */
+    public IReportWriter openAsync(Path file, ReportFormat format) throws IOException {
+        return new AsyncReportWriter(open(file, format), AsyncReportWriter.DEFAULT_BUFFERS,
+                AsyncReportWriter.DEFAULT_BUFFER_RECORDS);
+    }
+
+    /**
+     * Nombre por defecto: Analysis_Report_&lt;fecha&gt;&lt;extensión del formato&gt;.
+     */
+    public static String defaultFileName(ReportFormat format) {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String filename = "Analysis_Report_" + timestamp + ".txt";
+        return "Analysis_Report_" + timestamp + format.getExtension();
+    }
+
+    /**
+     * Exporta las filas analizadas de un almacén columnar directamente desde
+     * sus columnas (IReportWriter.write(RecordStore, int)).
+     */
+    public void exportReport(RecordStore store, ReportFormat format) {
+        exportReport(store, defaultFileName(format), format);
+    }
 
+    public void exportReport(RecordStore store, String filename, ReportFormat format) {
         System.out.println("\n>>> Generating report on disk: " + filename + "...");
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            // Cabecera del reporte
-            writer.println("==================================================");
-            writer.println("          ARTIFICIAL SOCIETY - REPORT");
-            writer.println("          Generated: " + LocalDateTime.now());
-            writer.println("==================================================");
-            writer.println("");
+        try (IReportWriter writer = open(Paths.get(filename), format)) {
+            for (int row = 0; row < store.size(); row++) {
+                if (store.isAnalyzed(row)) {
+                    writer.write(store, row);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println(">>> [ERROR] Failed to write report: " + e.getMessage());
+            return;
+        }
+        System.out.println(">>> [OK] Report saved successfully.");
+    }
+
+    public void exportReport(List<RawDataRecord> rawData, List<PredictionResult> predictions) {
+        exportReport(rawData, predictions, ReportFormat.TEXT);
+    }
+
+    public void exportReport(List<RawDataRecord> rawData, List<PredictionResult> predictions, ReportFormat format) {
+        exportReport(rawData, predictions, defaultFileName(format), format);
+    }
 
-            int count = Math.min(rawData.size(), predictions.size());
+    /**
+     * Igual que exportReport(rawData, predictions) pero escribiendo en la ruta indicada.
+     */
+    public void exportReport(List<RawDataRecord> rawData, List<PredictionResult> predictions, String filename) {
+        exportReport(rawData, predictions, filename, ReportFormat.TEXT);
+    }
 
+    public void exportReport(List<RawDataRecord> rawData, List<PredictionResult> predictions, String filename,
+            ReportFormat format) {
+        System.out.println("\n>>> Generating report on disk: " + filename + "...");
+
+        int count = Math.min(rawData.size(), predictions.size());
+        try (IReportWriter writer = open(Paths.get(filename), format)) {
             for (int i = 0; i < count; i++) {
-                RawDataRecord raw = rawData.get(i);
-                PredictionResult pred = predictions.get(i);
-
-                writer.println("RECORD ID: " + raw.getSourceId());
-                writer.println(" - Target: " + pred.getModelName()); // O el campo que convenga
-                writer.println(" - Projected Value: " + String.format("%.2f", pred.getPredictedValue()));
-                writer.println(" - Confidence: " + String.format("%.1f%%", pred.getConfidenceScore() * 100));
-                writer.println("--------------------------------------------------");
+                writer.write(rawData.get(i), predictions.get(i));
             }
+        } catch (IOException e) {
+            System.err.println(">>> [ERROR] Failed to write report: " + e.getMessage());
+            return;
+        }
+        System.out.println(">>> [OK] Report saved successfully.");
+    }
 
-            writer.println("\n[END OF REPORT]");
-            System.out.println(">>> [OK] Report saved successfully.");
+    /**
+     * Nombre por defecto: Aggregation_Report_&lt;fecha&gt;&lt;extensión del formato&gt;.
+     */
+    public static String defaultAggregationFileName(ReportFormat format) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        return "Aggregation_Report_" + timestamp + format.getExtension();
+    }
+
+    /**
+     * Exporta una agregación en texto o CSV (BINARY no está soportado).
+     */
+    public void exportAggregation(AggregationResult result, ReportFormat format) {
+        exportAggregation(result, defaultAggregationFileName(format), format);
+    }
+
+    public void exportAggregation(AggregationResult result, String filename, ReportFormat format) {
+        if (format == ReportFormat.BINARY) {
+            throw new IllegalArgumentException("Aggregation reports support text and CSV only");
+        }
+        System.out.println("\n>>> Generating aggregation report on disk: " + filename + "...");
 
+        try {
+            AggregationReportWriter.write(result, Paths.get(filename), format);
         } catch (IOException e) {
             System.err.println(">>> [ERROR] Failed to write report: " + e.getMessage());
+            return;
         }
+        System.out.println(">>> [OK] Report saved successfully.");
     }
 }
@@ -0,0 +1,23 @@
+package reporting;
+
+/**
+ * Formatos de salida del reporte.
+ */
+public enum ReportFormat {
+    /** Reporte legible (mismo contenido que el reporte clásico). */
+    TEXT(".txt"),
+    /** CSV para herramientas externas, con valores en precisión completa. */
+    CSV(".csv"),
+    /** Formato binario columnar compacto (ver BinaryReportWriter). */
+    BINARY(".hpir");
+
+    private final String extension;
+
+    ReportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
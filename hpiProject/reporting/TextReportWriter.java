@@ -0,0 +1,86 @@
+package reporting;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import model.PredictionResult;
+import model.RawDataRecord;
+import model.RecordStore;
+
+/**
+ * Reporte legible con el mismo contenido que el reporte clásico de
+ * ReportExporter (cabecera, bloque por registro y pie).
+ */
+final class TextReportWriter implements IReportWriter {
+
+    private static final String SEPARATOR = "==================================================";
+    private static final String RECORD_SEPARATOR = "--------------------------------------------------";
+
+    private final ChannelOutput out;
+    private final String newLine = System.lineSeparator();
+    private long recordsWritten = 0;
+
+    TextReportWriter(Path file, int bufferBytes) throws IOException {
+        this.out = new ChannelOutput(file, bufferBytes);
+        line(SEPARATOR);
+        line("          ARTIFICIAL SOCIETY - REPORT");
+        line("          Generated: " + LocalDateTime.now());
+        line(SEPARATOR);
+        line("");
+    }
+
+    @Override
+    public void write(RawDataRecord rawRecord, PredictionResult prediction) throws IOException {
+        write(rawRecord.getSourceId(), prediction.getModelName(), prediction.getPredictedValue(),
+                prediction.getConfidenceScore());
+    }
+
+    @Override
+    public void write(RecordStore store, int row) throws IOException {
+        write(store.getSourceId(row), store.getModelName(row), store.getPredictedValue(row),
+                store.getConfidence(row));
+    }
+
+    private void write(String sourceId, String model, double predictedValue, double confidence) throws IOException {
+        out.putText("RECORD ID: ");
+        line(sourceId);
+        out.putText(" - Target: ");
+        line(model);
+        out.putText(" - Projected Value: ");
+        out.putFixed(predictedValue, 2);
+        out.putText(newLine);
+        out.putText(" - Confidence: ");
+        out.putFixed(confidence * 100, 1);
+        out.putByte('%');
+        out.putText(newLine);
+        line(RECORD_SEPARATOR);
+        recordsWritten++;
+        out.endRecord();
+    }
+
+    @Override
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.putText(newLine);
+            line("[END OF REPORT]");
+        } finally {
+            out.close();
+        }
+    }
+
+    private void line(String text) throws IOException {
+        out.putText(String.valueOf(text));
+        out.putText(newLine);
+    }
+}